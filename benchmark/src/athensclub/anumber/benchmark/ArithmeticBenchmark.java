@@ -0,0 +1,131 @@
+package athensclub.anumber.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import athensclub.anumber.ADecimal;
+import athensclub.anumber.ANumber;
+
+/**
+ * Chains of exact additions and multiplications of decimals and fractions, and
+ * comparisons between them.
+ * 
+ * @author Athensclub
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ArithmeticBenchmark {
+
+    /**
+     * Number of operations in each chain
+     */
+    @Param({ "100", "1000" })
+    public int length;
+
+    private ANumber[] decimals, fractions;
+
+    @Setup
+    public void setup() {
+	decimals = new ANumber[length];
+	fractions = new ANumber[length];
+	for (int i = 0; i < length; i++) {
+	    decimals[i] = new ADecimal((i + 1) + ".25");
+	    // small denominators that repeat, as in typical data
+	    fractions[i] = ANumber.valueOf(i + 1, i % 12 + 2);
+	}
+    }
+
+    @Benchmark
+    public ANumber decimalAdd() {
+	ANumber result = ADecimal.ZERO;
+	for (ANumber x : decimals) {
+	    result = result.add(x);
+	}
+	return result;
+    }
+
+    @Benchmark
+    public ANumber decimalMultiply() {
+	ANumber result = ADecimal.ONE;
+	for (ANumber x : decimals) {
+	    result = result.multiply(x);
+	}
+	return result;
+    }
+
+    @Benchmark
+    public ANumber fractionAdd() {
+	ANumber result = ADecimal.ZERO;
+	for (ANumber x : fractions) {
+	    result = result.add(x);
+	}
+	return result;
+    }
+
+    @Benchmark
+    public ANumber fractionMultiply() {
+	ANumber result = ADecimal.ONE;
+	for (ANumber x : fractions) {
+	    result = result.multiply(x);
+	}
+	return result;
+    }
+
+    /**
+     * Harmonic sum 1/1 + 1/2 + ... + 1/length, whose denominator keeps growing
+     * 
+     * @return
+     */
+    @Benchmark
+    public ANumber fractionGrowth() {
+	ANumber result = ADecimal.ZERO;
+	for (int i = 1; i <= length; i++) {
+	    result = result.add(ANumber.valueOf(1, i));
+	}
+	return result;
+    }
+
+    @Benchmark
+    public int compareDecimals() {
+	int result = 0;
+	for (int i = 1; i < length; i++) {
+	    result += decimals[i - 1].compareTo(decimals[i]);
+	}
+	return result;
+    }
+
+    @Benchmark
+    public int compareFractions() {
+	int result = 0;
+	for (int i = 1; i < length; i++) {
+	    result += fractions[i - 1].compareTo(fractions[i]);
+	}
+	return result;
+    }
+
+    @Benchmark
+    public int compareMixed() {
+	int result = 0;
+	for (int i = 0; i < length; i++) {
+	    result += decimals[i].compareTo(fractions[i]);
+	}
+	return result;
+    }
+
+}
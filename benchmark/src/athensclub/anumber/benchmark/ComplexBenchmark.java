@@ -0,0 +1,62 @@
+package athensclub.anumber.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import athensclub.anumber.AComplex;
+import athensclub.anumber.ADecimal;
+import athensclub.anumber.ANumber;
+
+/**
+ * Complex powers, exponentials and logarithms
+ * 
+ * @author Athensclub
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ComplexBenchmark {
+
+    private final ANumber z = new AComplex(new ADecimal("1.5"), ANumber.valueOf(-2, 3));
+
+    private final ANumber w = new AComplex(new ADecimal("0.5"), new ADecimal("0.25"));
+
+    @Benchmark
+    public ANumber powInteger() {
+	return z.pow(ANumber.valueOf(7));
+    }
+
+    @Benchmark
+    public ANumber powComplex() {
+	return z.pow(w);
+    }
+
+    @Benchmark
+    public ANumber exp() {
+	return z.exp();
+    }
+
+    @Benchmark
+    public ANumber ln() {
+	return z.ln();
+    }
+
+    @Benchmark
+    public ANumber tanh() {
+	return z.tanh();
+    }
+
+}
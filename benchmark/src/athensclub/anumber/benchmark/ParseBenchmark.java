@@ -0,0 +1,41 @@
+package athensclub.anumber.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import athensclub.anumber.ANumber;
+
+/**
+ * Parsing of single number literals with ANumber.valueOf
+ * 
+ * @author Athensclub
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParseBenchmark {
+
+    @Param({ "42", "-12345.6789", "1234567890123456789012345678901234567890", "2.5e-3", "355/113",
+	    "3/4-1/2i", "-i" })
+    public String literal;
+
+    @Benchmark
+    public ANumber valueOf() {
+	return ANumber.valueOf(literal);
+    }
+
+}
@@ -0,0 +1,101 @@
+package athensclub.anumber.benchmark;
+
+import java.math.MathContext;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import athensclub.anumber.ADecimal;
+import athensclub.anumber.AFunctionCache;
+import athensclub.anumber.AMathContext;
+import athensclub.anumber.ANumber;
+
+/**
+ * Trigonometric and exponential functions of a real number at several
+ * precisions.The function cache is disabled, so every call is calculated.
+ * 
+ * @author Athensclub
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TranscendentalBenchmark {
+
+    @Param({ "16", "34", "100", "500" })
+    public int precision;
+
+    /**
+     * A large argument, so range reduction is part of the measurement
+     */
+    @Param({ "0.7", "123.456" })
+    public String argument;
+
+    private ANumber x;
+
+    private MathContext previous;
+
+    @Setup(Level.Trial)
+    public void setup() {
+	AFunctionCache.disable();
+	previous = AMathContext.getDefault();
+	AMathContext.setDefault(new MathContext(precision));
+	x = new ADecimal(argument);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+	AMathContext.setDefault(previous);
+    }
+
+    @Benchmark
+    public ANumber sin() {
+	return x.sin();
+    }
+
+    @Benchmark
+    public ANumber cos() {
+	return x.cos();
+    }
+
+    @Benchmark
+    public ANumber tan() {
+	return x.tan();
+    }
+
+    @Benchmark
+    public ANumber[] sinCos() {
+	return x.sinCos();
+    }
+
+    @Benchmark
+    public ANumber exp() {
+	return x.exp();
+    }
+
+    @Benchmark
+    public ANumber ln() {
+	return x.ln();
+    }
+
+    @Benchmark
+    public ANumber sqrt() {
+	return x.sqrt();
+    }
+
+}
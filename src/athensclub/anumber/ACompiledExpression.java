@@ -0,0 +1,159 @@
+package athensclub.anumber;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import athensclub.anumber.AExpression.Operation;
+
+/**
+ * An {@link AExpression} compiled into a flat array of operations, for
+ * evaluating the same expression many times with different variable values.
+ * 
+ * <p>
+ * Each distinct subexpression gets one slot, and the operations are stored in
+ * an order where every operand is calculated before it is used, so evaluation
+ * is a single loop over the slots. Subexpressions without variables are folded
+ * into constants when compiling, using the precision of {@link AMathContext}
+ * at that time. Compiled expressions are immutable and can be evaluated by many
+ * threads at once.
+ * </p>
+ * 
+ * @author Athensclub
+ *
+ */
+public final class ACompiledExpression {
+
+    private final AExpression expression;
+
+    /**
+     * Operation of each slot, null for slots that are constants or variables
+     */
+    private final Operation[] operations;
+
+    private final int[] left, right;
+
+    /**
+     * Initial values of slots, with constants and folded subexpressions filled
+     */
+    private final ANumber[] constants;
+
+    private final List<String> variables;
+
+    /**
+     * Slot of each variable, in the same order as variables
+     */
+    private final int[] variableSlots;
+
+    ACompiledExpression(AExpression expression) {
+	this.expression = expression;
+	List<AExpression> order = expression.order();
+	int size = order.size();
+	operations = new Operation[size];
+	left = new int[size];
+	right = new int[size];
+	constants = new ANumber[size];
+	Map<AExpression, Integer> slots = new IdentityHashMap<>();
+	List<String> names = new ArrayList<>();
+	List<Integer> nameSlots = new ArrayList<>();
+	for (int i = 0; i < size; i++) {
+	    AExpression e = order.get(i);
+	    slots.put(e, i);
+	    Operation operation = e.getOperation();
+	    if (operation == Operation.CONSTANT) {
+		constants[i] = e.getConstant();
+	    } else if (operation == Operation.VARIABLE) {
+		names.add(e.getVariable());
+		nameSlots.add(i);
+	    } else {
+		left[i] = slots.get(e.getLeft());
+		right[i] = e.getRight() == null ? -1 : slots.get(e.getRight());
+		if (e.hasVariables()) {
+		    operations[i] = operation;
+		} else {
+		    // constant folding, operands are already constants
+		    constants[i] = AExpression.apply(operation, constants[left[i]],
+			    right[i] < 0 ? null : constants[right[i]]);
+		}
+	    }
+	}
+	variables = Collections.unmodifiableList(names);
+	variableSlots = new int[nameSlots.size()];
+	for (int i = 0; i < variableSlots.length; i++) {
+	    variableSlots[i] = nameSlots.get(i);
+	}
+    }
+
+    /**
+     * The expression this was compiled from
+     * 
+     * @return
+     */
+    public AExpression getExpression() {
+	return expression;
+    }
+
+    /**
+     * Names of variables of the expression, in the order values are given to
+     * {@link #evaluate(ANumber...)}
+     * 
+     * @return
+     */
+    public List<String> getVariables() {
+	return variables;
+    }
+
+    /**
+     * Evaluate with the given variable values
+     * 
+     * @param values values of variables, in the order of {@link #getVariables()}
+     * @return
+     */
+    public ANumber evaluate(ANumber... values) {
+	if (values.length != variableSlots.length) {
+	    throw new IllegalArgumentException("Expected " + variableSlots.length + " values: " + variables);
+	}
+	ANumber[] slots = constants.clone();
+	for (int i = 0; i < values.length; i++) {
+	    slots[variableSlots[i]] = values[i];
+	}
+	return run(slots);
+    }
+
+    /**
+     * Evaluate with the given variable values
+     * 
+     * @param values
+     * @return
+     * @throws IllegalArgumentException if a variable has no value
+     */
+    public ANumber evaluate(Map<String, ? extends ANumber> values) {
+	ANumber[] slots = constants.clone();
+	for (int i = 0; i < variableSlots.length; i++) {
+	    ANumber value = values.get(variables.get(i));
+	    if (value == null) {
+		throw new IllegalArgumentException("Unbound variable: " + variables.get(i));
+	    }
+	    slots[variableSlots[i]] = value;
+	}
+	return run(slots);
+    }
+
+    private ANumber run(ANumber[] slots) {
+	for (int i = 0; i < slots.length; i++) {
+	    Operation operation = operations[i];
+	    if (operation != null) {
+		slots[i] = AExpression.apply(operation, slots[left[i]], right[i] < 0 ? null : slots[right[i]]);
+	    }
+	}
+	return slots[slots.length - 1];
+    }
+
+    @Override
+    public String toString() {
+	return expression.toString();
+    }
+
+}
@@ -3,7 +3,7 @@ package athensclub.anumber;
 import java.math.BigDecimal;
 import java.math.MathContext;
 
-import ch.obermuhlner.math.big.BigDecimalMath;
+import athensclub.anumber.AFunctionCache.Function;
 
 /**
  * Represent a complex number consist of real number added by imaginary number
@@ -73,6 +73,37 @@ public class AComplex extends ANumber {
 	return new AComplex(decimal, ADecimal.ZERO);
     }
 
+    @Override
+    public int compareTo(ANumber other) {
+	if (other instanceof AComplex) {
+	    AComplex o = (AComplex) other;
+	    if (imaginary.isZero() && o.imaginary.isZero()) {
+		return real.compareTo(o.real);
+	    }
+	} else if (imaginary.isZero()) {
+	    return real.compareTo(other);
+	}
+	if (equals(other)) {
+	    return 0;
+	}
+	throw new IllegalArgumentException("Compare complex number: " + this + " with " + other);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+	if (obj instanceof AComplex) {
+	    AComplex o = (AComplex) obj;
+	    return real.equals(o.real) && imaginary.equals(o.imaginary);
+	}
+	return imaginary.isZero() && real.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+	// same as real number if there is no imaginary part
+	return imaginary.isZero() ? real.hashCode() : 31 * real.hashCode() + imaginary.hashCode();
+    }
+
     @Override
     public boolean isNegative() {
 	if (imaginary.isZero()) {
@@ -111,6 +142,11 @@ public class AComplex extends ANumber {
 	}
     }
 
+    @Override
+    public ANumber negate() {
+	return new AComplex(real.negate(), imaginary.negate());
+    }
+
     /**
      * Get the real number part of this complex number
      * 
@@ -132,12 +168,16 @@ public class AComplex extends ANumber {
     @Override
     public ANumber reciprocal() {
 	// 1 / (a+bi) = (a-bi)/(a^2+b^2)
-	ANumber denom = imaginary.pow(ADecimal.TWO).add(real.pow(ADecimal.TWO));
+	ANumber denom = imaginary.multiply(imaginary).add(real.multiply(real));
 	return new AComplex(new AFraction(real, denom), new AFraction(imaginary.negate(), denom));
     }
 
     @Override
     public ANumber pow(ANumber other) {
+	if (isExactExponent(other)) {
+	    // (a+bi)^n by repeated multiplication instead of polar form
+	    return pow(other.bigDecimalValue().longValueExact());
+	}
 	return other.multiply(ln()).exp();
     }
 
@@ -156,10 +196,25 @@ public class AComplex extends ANumber {
 	throw new IllegalArgumentException("Calculate decimal value for complex number: " + this);
     }
 
+    @Override
+    protected boolean isBigDecimalValueExact() {
+	return real.isBigDecimalValueExact();
+    }
+
+    @Override
+    public BigDecimal bigDecimalValue(MathContext mc) {
+	if (imaginary.isZero()) {
+	    return real.bigDecimalValue(mc);
+	}
+	throw new IllegalArgumentException("Calculate decimal value for complex number: " + this);
+    }
+
     @Override
     public ANumber exp() {
+	// e^(a+bi)=e^a(cos(b)+isin(b))
 	ANumber expRe = real.exp();
-	return new AComplex(expRe.multiply(imaginary.cos()), expRe.multiply(imaginary.sin()));
+	ANumber[] b = imaginary.sinCos();
+	return new AComplex(expRe.multiply(b[1]), expRe.multiply(b[0]));
     }
 
     /**
@@ -168,14 +223,15 @@ public class AComplex extends ANumber {
      * @return
      */
     public ADecimal angle() {
+	MathContext mc = AMathContext.get();
 	return new ADecimal(
-		BigDecimalMath.atan2(imaginary.bigDecimalValue(), real.bigDecimalValue(), MathContext.DECIMAL128));
+		AFunctionCache.apply(Function.ATAN2, imaginary.argumentValue(mc), real.argumentValue(mc), mc));
     }
 
     @Override
     public ANumber abs() {
 	// |a+bi|=sqrt(a^2+b^2)
-	return real.pow(ADecimal.TWO).add(imaginary.pow(ADecimal.TWO)).sqrt();
+	return real.multiply(real).add(imaginary.multiply(imaginary)).sqrt();
     }
 
     @Override
@@ -183,46 +239,68 @@ public class AComplex extends ANumber {
 	return new AComplex(abs().ln(), angle());
     }
 
+    @Override
+    public ANumber[] sinhCosh() {
+	ANumber[] a = real.sinhCosh(), b = imaginary.sinCos();
+	// sinh(a+bi)=sinh(a)cos(b)+icosh(a)sin(b)
+	// cosh(a+bi)=cosh(a)cos(b)+isinh(a)sin(b)
+	return new ANumber[] { new AComplex(a[0].multiply(b[1]), a[1].multiply(b[0])),
+		new AComplex(a[1].multiply(b[1]), a[0].multiply(b[0])) };
+    }
+
     @Override
     public ANumber cosh() {
-	// cosh(x+yi) =sinh(x) cos(y) + i cosh(x) sin(y)
-	return new AComplex(real.sinh().multiply(imaginary.cos()), real.cosh().multiply(imaginary.sin()));
+	ANumber[] a = real.sinhCosh(), b = imaginary.sinCos();
+	// cosh(a+bi)=cosh(a)cos(b)+isinh(a)sin(b)
+	return new AComplex(a[1].multiply(b[1]), a[0].multiply(b[0]));
     }
 
     @Override
     public ANumber sinh() {
+	ANumber[] a = real.sinhCosh(), b = imaginary.sinCos();
 	// sinh(a+bi)=sinh(a)cos(b)+icosh(a)sin(b)
-	return new AComplex(real.sinh().multiply(imaginary.cos()), real.cosh().multiply(imaginary.sin()));
+	return new AComplex(a[0].multiply(b[1]), a[1].multiply(b[0]));
     }
 
     @Override
     public ANumber tanh() {
-	// tanh(a+bi)=sinh(2a)+isin(2b)/cosh(2a)+cos(2b)
-	ANumber a2 = real.multiply(ADecimal.TWO);
-	ANumber b2 = imaginary.multiply(ADecimal.TWO);
-	ANumber denom = a2.cosh().add(b2.cos());
-	return new AComplex(new AFraction(a2.sinh(),denom),new AFraction(b2.sin(),denom));
+	// tanh(a+bi)=(sinh(2a)+isin(2b))/(cosh(2a)+cos(2b))
+	ANumber[] a2 = real.multiply(ADecimal.TWO).sinhCosh();
+	ANumber[] b2 = imaginary.multiply(ADecimal.TWO).sinCos();
+	ANumber denom = a2[1].add(b2[1]);
+	return new AComplex(new AFraction(a2[0], denom), new AFraction(b2[0], denom));
     }
 
     @Override
-    public ANumber cos() {
+    public ANumber[] sinCos() {
+	ANumber[] a = real.sinCos(), b = imaginary.sinhCosh();
 	// sin(a+bi)=sin(a)cosh(b)+icos(a)sinh(b)
-	return new AComplex(real.sin().multiply(imaginary.cosh()), real.cos().multiply(imaginary.sinh()));
+	// cos(a+bi)=cos(a)cosh(b)-isin(a)sinh(b)
+	return new ANumber[] { new AComplex(a[0].multiply(b[1]), a[1].multiply(b[0])),
+		new AComplex(a[1].multiply(b[1]), a[0].multiply(b[0]).negate()) };
     }
 
     @Override
-    public ANumber sin() {
+    public ANumber cos() {
+	ANumber[] a = real.sinCos(), b = imaginary.sinhCosh();
 	// cos(a+bi)=cos(a)cosh(b)-isin(a)sinh(b)
-	return new AComplex(real.cos().multiply(imaginary.cosh()), real.sin().multiply(imaginary.sinh()).negate());
+	return new AComplex(a[1].multiply(b[1]), a[0].multiply(b[0]).negate());
+    }
+
+    @Override
+    public ANumber sin() {
+	ANumber[] a = real.sinCos(), b = imaginary.sinhCosh();
+	// sin(a+bi)=sin(a)cosh(b)+icos(a)sinh(b)
+	return new AComplex(a[0].multiply(b[1]), a[1].multiply(b[0]));
     }
 
     @Override
     public ANumber tan() {
 	// tan(a+bi)=(sin(2a)+sinh(2b)i)/(cos(2a)+cosh(2b))
-	ANumber a2 = real.multiply(ADecimal.TWO);
-	ANumber b2 = imaginary.multiply(ADecimal.TWO);
-	ANumber denom = a2.cos().add(b2.cosh());
-	return new AComplex(new AFraction(a2.sin(), denom), new AFraction(b2.sinh(), denom));
+	ANumber[] a2 = real.multiply(ADecimal.TWO).sinCos();
+	ANumber[] b2 = imaginary.multiply(ADecimal.TWO).sinhCosh();
+	ANumber denom = a2[1].add(b2[1]);
+	return new AComplex(new AFraction(a2[0], denom), new AFraction(b2[0], denom));
     }
 
 }
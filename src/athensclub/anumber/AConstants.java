@@ -0,0 +1,155 @@
+package athensclub.anumber;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.function.Function;
+
+import ch.obermuhlner.math.big.BigDecimalMath;
+
+/**
+ * Process-wide cache of mathematical constants.
+ * 
+ * <p>
+ * Each constant is calculated once, with {@value #GUARD_DIGITS} digits more
+ * than requested, and later requests with lower precision are rounded from it.
+ * When a higher precision is requested, the constant is calculated again with
+ * at least twice the digits, so a program that slowly raises its precision only
+ * recalculates a few times. All methods can be called from any number of
+ * threads.
+ * </p>
+ * 
+ * @author Athensclub
+ *
+ */
+public final class AConstants {
+
+    /**
+     * Extra digits kept beyond the requested precision
+     */
+    static final int GUARD_DIGITS = 10;
+
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+
+    private static final Constant PI = new Constant(BigDecimalMath::pi);
+
+    private static final Constant TWO_PI = new Constant(mc -> PI.get(mc).multiply(TWO, mc));
+
+    private static final Constant HALF_PI = new Constant(mc -> PI.get(mc).divide(TWO, mc));
+
+    private static final Constant E = new Constant(BigDecimalMath::e);
+
+    private static final Constant LN_2 = new Constant(mc -> BigDecimalMath.log(TWO, mc));
+
+    private AConstants() {
+    }
+
+    /**
+     * Return pi rounded by the given context
+     * 
+     * @param mc
+     * @return
+     */
+    public static BigDecimal pi(MathContext mc) {
+	return PI.get(mc);
+    }
+
+    /**
+     * Return 2pi rounded by the given context
+     * 
+     * @param mc
+     * @return
+     */
+    public static BigDecimal twoPi(MathContext mc) {
+	return TWO_PI.get(mc);
+    }
+
+    /**
+     * Return pi/2 rounded by the given context
+     * 
+     * @param mc
+     * @return
+     */
+    public static BigDecimal halfPi(MathContext mc) {
+	return HALF_PI.get(mc);
+    }
+
+    /**
+     * Return e rounded by the given context
+     * 
+     * @param mc
+     * @return
+     */
+    public static BigDecimal e(MathContext mc) {
+	return E.get(mc);
+    }
+
+    /**
+     * Return ln(2) rounded by the given context
+     * 
+     * @param mc
+     * @return
+     */
+    public static BigDecimal ln2(MathContext mc) {
+	return LN_2.get(mc);
+    }
+
+    /**
+     * A constant with its most precise value calculated so far
+     * 
+     * @author Athensclub
+     *
+     */
+    private static final class Constant {
+
+	private final Function<MathContext, BigDecimal> calculation;
+
+	/**
+	 * Read without locking, replaced only while holding the lock of this
+	 */
+	private volatile Value value = new Value(BigDecimal.ZERO, 0);
+
+	private Constant(Function<MathContext, BigDecimal> calculation) {
+	    this.calculation = calculation;
+	}
+
+	private BigDecimal get(MathContext mc) {
+	    if (mc.getPrecision() == 0) {
+		throw new ArithmeticException("Unlimited precision of irrational constant");
+	    }
+	    int needed = mc.getPrecision() + GUARD_DIGITS;
+	    Value v = value;
+	    if (v.precision < needed) {
+		synchronized (this) {
+		    v = value;
+		    if (v.precision < needed) {
+			int p = Math.max(needed, v.precision * 2);
+			v = new Value(calculation.apply(new MathContext(p)), p);
+			value = v;
+		    }
+		}
+	    }
+	    return v.value.round(mc);
+	}
+
+    }
+
+    /**
+     * A value of a constant with the precision it was calculated with
+     * 
+     * @author Athensclub
+     *
+     */
+    private static final class Value {
+
+	private final BigDecimal value;
+
+	private final int precision;
+
+	private Value(BigDecimal value, int precision) {
+	    this.value = value;
+	    this.precision = precision;
+	}
+
+    }
+
+}
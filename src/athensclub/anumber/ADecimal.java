@@ -1,9 +1,10 @@
 package athensclub.anumber;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.math.MathContext;
 
-import ch.obermuhlner.math.big.BigDecimalMath;
+import athensclub.anumber.AFunctionCache.Function;
 
 /**
  * A class that represent a single decimal number
@@ -13,22 +14,52 @@ import ch.obermuhlner.math.big.BigDecimalMath;
  */
 public class ADecimal extends ANumber {
 
-    public static final ADecimal TWO = new ADecimal(BigDecimal.valueOf(2));
+    /**
+     * 
+     */
+    private static final long serialVersionUID = -8046218406182056502L;
+
+    public static final ADecimal TWO = new AInteger(2);
 
-    public static final ADecimal ONE = new ADecimal(BigDecimal.valueOf(1));
+    public static final ADecimal ONE = new AInteger(1);
 
-    public static final ADecimal ZERO = new ADecimal(BigDecimal.valueOf(0));
+    public static final ADecimal ZERO = new AInteger(0);
 
-    public static final ADecimal NEGATIVE_ONE = new ADecimal(BigDecimal.valueOf(-1));
+    public static final ADecimal NEGATIVE_ONE = new AInteger(-1);
+
+    /**
+     * Value of unscaled when the unscaled value does not fit in a long, in which
+     * case the number is held by the BigDecimal value instead
+     */
+    static final long INFLATED = Long.MIN_VALUE;
+
+    /**
+     * LONG_TEN_POWERS[n] = 10^n, for every power of ten that fits in a long
+     */
+    static final long[] LONG_TEN_POWERS = { 1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L,
+	    100000000L, 1000000000L, 10000000000L, 100000000000L, 1000000000000L, 10000000000000L,
+	    100000000000000L, 1000000000000000L, 10000000000000000L, 100000000000000000L,
+	    1000000000000000000L };
 
     /**
      * Note that this class implemented operation with ADecimal only
      */
 
-    private BigDecimal value;
+    /**
+     * This number is unscaled * 10^-scale, unless unscaled is INFLATED
+     */
+    private final long unscaled;
+
+    private final int scale;
+
+    /**
+     * The value of this number if it is created from BigDecimal or it does not fit
+     * in the compact form, otherwise null
+     */
+    private final BigDecimal value;
 
     public ADecimal(String value) {
-	this.value = new BigDecimal(value);
+	this(new BigDecimal(value));
     }
 
     public ADecimal(BigDecimal value) {
@@ -36,12 +67,82 @@ public class ADecimal extends ANumber {
 	    throw new NullPointerException();
 	}
 	this.value = value;
+	BigInteger unscaledValue = value.unscaledValue();
+	this.unscaled = unscaledValue.bitLength() < 64 ? unscaledValue.longValue() : INFLATED;
+	this.scale = value.scale();
+    }
+
+    /**
+     * Create decimal number with value unscaled * 10^-scale without creating a
+     * BigDecimal.
+     * 
+     * @param unscaled
+     * @param scale
+     */
+    ADecimal(long unscaled, int scale) {
+	this.unscaled = unscaled;
+	this.scale = scale;
+	this.value = unscaled == INFLATED ? BigDecimal.valueOf(unscaled, scale) : null;
+    }
+
+    /**
+     * The unscaled value of this number, or INFLATED if it does not fit in a long
+     * 
+     * @return
+     */
+    long unscaledValue() {
+	return unscaled;
+    }
+
+    /**
+     * The scale of this number, same as bigDecimalValue().scale()
+     * 
+     * @return
+     */
+    int scale() {
+	return scale;
+    }
+
+    /**
+     * Return v * 10^n, throwing ArithmeticException if it does not fit in a long.
+     * 
+     * @param v
+     * @param n
+     * @return
+     */
+    static long multiplyPowerOfTen(long v, long n) {
+	if (n >= LONG_TEN_POWERS.length) {
+	    if (v == 0) {
+		return 0;
+	    }
+	    throw new ArithmeticException("long overflow");
+	}
+	return Math.multiplyExact(v, LONG_TEN_POWERS[(int) n]);
     }
 
     @Override
     public ANumber add(ANumber other) {
 	if (other instanceof ADecimal) {
-	    return new ADecimal(value.add(((ADecimal) other).value));
+	    ADecimal o = (ADecimal) other;
+	    if (unscaled != INFLATED && o.unscaled != INFLATED) {
+		try {
+		    // same result and scale as BigDecimal.add
+		    if (scale == o.scale) {
+			return ANumberCache.decimal(Math.addExact(unscaled, o.unscaled), scale);
+		    } else if (scale > o.scale) {
+			return ANumberCache.decimal(
+				Math.addExact(unscaled, multiplyPowerOfTen(o.unscaled, (long) scale - o.scale)), scale);
+		    } else {
+			return ANumberCache.decimal(
+				Math.addExact(multiplyPowerOfTen(unscaled, (long) o.scale - scale), o.unscaled),
+				o.scale);
+		    }
+		} catch (ArithmeticException e) {
+		    // overflow, fall back to BigDecimal
+		    AMetrics.fallback(AMetrics.Fallback.DECIMAL_OVERFLOW);
+		}
+	    }
+	    return ANumberCache.decimal(bigDecimalValue().add(o.bigDecimalValue()));
 	}
 	return other.add(this);
     }
@@ -49,24 +150,123 @@ public class ADecimal extends ANumber {
     @Override
     public ANumber multiply(ANumber other) {
 	if (other instanceof ADecimal) {
-	    return new ADecimal(value.multiply(((ADecimal) other).value));
+	    ADecimal o = (ADecimal) other;
+	    if (unscaled != INFLATED && o.unscaled != INFLATED) {
+		try {
+		    // same result and scale as BigDecimal.multiply
+		    return ANumberCache.decimal(Math.multiplyExact(unscaled, o.unscaled),
+			    Math.addExact(scale, o.scale));
+		} catch (ArithmeticException e) {
+		    // overflow, fall back to BigDecimal
+		    AMetrics.fallback(AMetrics.Fallback.DECIMAL_OVERFLOW);
+		}
+	    }
+	    return ANumberCache.decimal(bigDecimalValue().multiply(o.bigDecimalValue()));
 	}
 	return other.multiply(this);
     }
 
+    @Override
+    public ANumber negate() {
+	if (unscaled != INFLATED) {
+	    // never overflow, since Long.MIN_VALUE is INFLATED
+	    return ANumberCache.decimal(-unscaled, scale);
+	}
+	return ANumberCache.decimal(value.negate());
+    }
+
+    @Override
+    public ANumber reciprocal() {
+	if (unscaled != INFLATED && scale == 0 && unscaled != 0) {
+	    // 1/n, with sign moved to the numerator
+	    return ANumberCache.fraction(Long.signum(unscaled), Math.abs(unscaled));
+	}
+	return super.reciprocal();
+    }
+
+    @Override
+    public boolean isInteger() {
+	if (unscaled != INFLATED) {
+	    return unscaled == 0 || scale <= 0
+		    || (scale < LONG_TEN_POWERS.length && unscaled % LONG_TEN_POWERS[scale] == 0);
+	}
+	return super.isInteger();
+    }
+
+    @Override
+    public int compareTo(ANumber other) {
+	if (other instanceof ADecimal) {
+	    ADecimal o = (ADecimal) other;
+	    if (unscaled != INFLATED && o.unscaled != INFLATED) {
+		int sign = Long.signum(unscaled);
+		int otherSign = Long.signum(o.unscaled);
+		if (sign != otherSign) {
+		    return Integer.compare(sign, otherSign);
+		}
+		try {
+		    if (scale == o.scale) {
+			return Long.compare(unscaled, o.unscaled);
+		    } else if (scale > o.scale) {
+			return Long.compare(unscaled, multiplyPowerOfTen(o.unscaled, (long) scale - o.scale));
+		    } else {
+			return Long.compare(multiplyPowerOfTen(unscaled, (long) o.scale - scale), o.unscaled);
+		    }
+		} catch (ArithmeticException e) {
+		    // overflow, fall back to BigDecimal
+		    AMetrics.fallback(AMetrics.Fallback.DECIMAL_OVERFLOW);
+		}
+	    }
+	    return bigDecimalValue().compareTo(o.bigDecimalValue());
+	}
+	return -other.compareTo(this);
+    }
+
+    /**
+     * Same as {@link ANumber#hashCode(BigDecimal)}, without creating BigDecimal for
+     * compact values
+     */
+    @Override
+    public int hashCode() {
+	if (unscaled == INFLATED) {
+	    return hashCode(value);
+	} else if (unscaled == 0) {
+	    return hashCode(0, 0, 0);
+	}
+	long u = unscaled;
+	int s = scale;
+	while (u % 10 == 0) {
+	    u /= 10;
+	    s--;
+	}
+	if (s <= 0) {
+	    return hashCode(u, s, s);
+	}
+	int twos = Math.min(Long.numberOfTrailingZeros(u), s), fives = 0;
+	u >>= twos;
+	if (twos == 0) {
+	    while (fives < s && u % 5 == 0) {
+		u /= 5;
+		fives++;
+	    }
+	}
+	return hashCode(u, s - twos, s - fives);
+    }
+
     @Override
     public boolean isNegative() {
-	return value.signum() == -1;
+	return unscaled != INFLATED ? unscaled < 0 : value.signum() == -1;
     }
 
     @Override
     public boolean isZero() {
-	return value.signum() == 0;
+	return unscaled != INFLATED ? unscaled == 0 : value.signum() == 0;
     }
 
     @Override
     public ANumber pow(ANumber other) {
-	if (other instanceof AComplex) {
+	if (isExactExponent(other)) {
+	    return pow(other.bigDecimalValue().longValueExact());
+	} else if (other instanceof AComplex) {
 	    AComplex o = (AComplex) other;
 	    if (o.isZero()) {
 		return pow(o.getReal());
@@ -83,28 +283,32 @@ public class ADecimal extends ANumber {
 	    return AComplex.fromDecimal(this).pow(other);
 	} else if (other instanceof AFraction) {
 	    AFraction o = (AFraction) other;
-	    return new ADecimal(BigDecimalMath.root(
-		    BigDecimalMath.pow(value, o.getNumerator().bigDecimalValue(), MathContext.DECIMAL128),
-		    ((AFraction) other).getDenominator().bigDecimalValue(), MathContext.DECIMAL128));
+	    MathContext mc = AMathContext.get();
+	    return new ADecimal(AFunctionCache.apply(Function.ROOT,
+		    AFunctionCache.apply(Function.POW, bigDecimalValue(), o.getNumerator().argumentValue(mc), mc),
+		    o.getDenominator().argumentValue(mc), mc));
 	} else {
 	    // assume ADecimal
-	    return new ADecimal(BigDecimalMath.pow(value, other.bigDecimalValue(), MathContext.DECIMAL128));
+	    MathContext mc = AMathContext.get();
+	    return new ADecimal(AFunctionCache.apply(Function.POW, bigDecimalValue(), other.argumentValue(mc), mc));
 	}
     }
 
     @Override
     protected BigDecimal calculateBigDecimalValue() {
-	return value;
+	return value != null ? value : BigDecimal.valueOf(unscaled, scale);
     }
 
     @Override
     public ANumber exp() {
-	return new ADecimal(BigDecimalMath.exp(value, MathContext.DECIMAL128));
+	MathContext mc = AMathContext.get();
+	return new ADecimal(AFunctionCache.apply(Function.EXP, argumentValue(mc), mc));
     }
 
     @Override
     public ANumber ln() {
-	return new ADecimal(BigDecimalMath.log(value, MathContext.DECIMAL128));
+	MathContext mc = AMathContext.get();
+	return new ADecimal(AFunctionCache.apply(Function.LN, argumentValue(mc), mc));
     }
 
 }
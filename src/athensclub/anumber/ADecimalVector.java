@@ -0,0 +1,391 @@
+package athensclub.anumber;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Fixed size array of decimal numbers stored column-wise: unscaled values in a
+ * long array and scales in an int array, with unscaled values that do not fit
+ * in a long kept in a separate BigInteger table. Holding a million decimals
+ * this way takes two primitive arrays instead of a million ADecimal objects.
+ * 
+ * <p>
+ * Bulk operations work directly on the primitive arrays and return a new
+ * vector. Results are exact and have the same scale as the corresponding
+ * ADecimal operations. Elements are created as ADecimal only when requested by
+ * {@link #get(int)}. This class is not thread-safe.
+ * </p>
+ * 
+ * @author Athensclub
+ *
+ */
+public final class ADecimalVector {
+
+    private static final long INFLATED = ADecimal.INFLATED;
+
+    private final long[] unscaled;
+
+    private final int[] scales;
+
+    /**
+     * Unscaled values of elements whose unscaled is INFLATED, null until needed
+     */
+    private BigInteger[] overflow;
+
+    /**
+     * Create vector of zeros of the given length
+     * 
+     * @param length
+     */
+    public ADecimalVector(int length) {
+	unscaled = new long[length];
+	scales = new int[length];
+    }
+
+    /**
+     * Create vector of the given decimals
+     * 
+     * @param values
+     * @return
+     */
+    public static ADecimalVector valueOf(ADecimal... values) {
+	ADecimalVector result = new ADecimalVector(values.length);
+	for (int i = 0; i < values.length; i++) {
+	    result.set(i, values[i]);
+	}
+	return result;
+    }
+
+    /**
+     * Create vector of the given numbers, which must all be ADecimal or complex
+     * numbers with ADecimal real part and no imaginary part.
+     * 
+     * @param values
+     * @return
+     */
+    public static ADecimalVector valueOf(ANumber[] values) {
+	ADecimalVector result = new ADecimalVector(values.length);
+	for (int i = 0; i < values.length; i++) {
+	    ANumber value = values[i];
+	    if (value instanceof AComplex && ((AComplex) value).getImaginary().isZero()) {
+		value = ((AComplex) value).getReal();
+	    }
+	    if (!(value instanceof ADecimal)) {
+		throw new IllegalArgumentException("Not a decimal number: " + values[i]);
+	    }
+	    result.set(i, (ADecimal) value);
+	}
+	return result;
+    }
+
+    public int length() {
+	return unscaled.length;
+    }
+
+    /**
+     * Return the element at index as ADecimal
+     * 
+     * @param index
+     * @return
+     */
+    public ADecimal get(int index) {
+	if (unscaled[index] != INFLATED) {
+	    return ANumberCache.decimal(unscaled[index], scales[index]);
+	}
+	return ANumberCache.decimal(new BigDecimal(overflow[index], scales[index]));
+    }
+
+    public void set(int index, ADecimal value) {
+	long u = value.unscaledValue();
+	if (u != INFLATED) {
+	    unscaled[index] = u;
+	    scales[index] = value.scale();
+	    if (overflow != null) {
+		overflow[index] = null;
+	    }
+	} else {
+	    set(index, value.bigDecimalValue());
+	}
+    }
+
+    /**
+     * Return the element at index as BigDecimal
+     * 
+     * @param index
+     * @return
+     */
+    public BigDecimal bigDecimalValue(int index) {
+	if (unscaled[index] != INFLATED) {
+	    return BigDecimal.valueOf(unscaled[index], scales[index]);
+	}
+	return new BigDecimal(overflow[index], scales[index]);
+    }
+
+    private void set(int index, BigDecimal value) {
+	BigInteger u = value.unscaledValue();
+	scales[index] = value.scale();
+	if (u.bitLength() < 64 && u.longValue() != INFLATED) {
+	    unscaled[index] = u.longValue();
+	    if (overflow != null) {
+		overflow[index] = null;
+	    }
+	} else {
+	    if (overflow == null) {
+		overflow = new BigInteger[unscaled.length];
+	    }
+	    unscaled[index] = INFLATED;
+	    overflow[index] = u;
+	}
+    }
+
+    public ADecimal[] toArray() {
+	ADecimal[] result = new ADecimal[unscaled.length];
+	for (int i = 0; i < result.length; i++) {
+	    result[i] = get(i);
+	}
+	return result;
+    }
+
+    /**
+     * Return vector of this[i] + other[i]
+     * 
+     * @param other
+     * @return
+     */
+    public ADecimalVector add(ADecimalVector other) {
+	checkLength(other);
+	ADecimalVector result = new ADecimalVector(unscaled.length);
+	long[] a = unscaled, b = other.unscaled, r = result.unscaled;
+	int[] as = scales, bs = other.scales, rs = result.scales;
+	for (int i = 0; i < r.length; i++) {
+	    long x = a[i], y = b[i], sum = x + y;
+	    // same scale and no overflow, see Math.addExact
+	    if (as[i] == bs[i] && x != INFLATED && y != INFLATED && ((x ^ sum) & (y ^ sum)) >= 0
+		    && sum != INFLATED) {
+		r[i] = sum;
+		rs[i] = as[i];
+	    } else {
+		result.set(i, bigDecimalValue(i).add(other.bigDecimalValue(i)));
+	    }
+	}
+	return result;
+    }
+
+    /**
+     * Return vector of this[i] - other[i]
+     * 
+     * @param other
+     * @return
+     */
+    public ADecimalVector subtract(ADecimalVector other) {
+	checkLength(other);
+	ADecimalVector result = new ADecimalVector(unscaled.length);
+	long[] a = unscaled, b = other.unscaled, r = result.unscaled;
+	int[] as = scales, bs = other.scales, rs = result.scales;
+	for (int i = 0; i < r.length; i++) {
+	    long x = a[i], y = b[i], difference = x - y;
+	    // same scale and no overflow, see Math.subtractExact
+	    if (as[i] == bs[i] && x != INFLATED && y != INFLATED && ((x ^ y) & (x ^ difference)) >= 0
+		    && difference != INFLATED) {
+		r[i] = difference;
+		rs[i] = as[i];
+	    } else {
+		result.set(i, bigDecimalValue(i).subtract(other.bigDecimalValue(i)));
+	    }
+	}
+	return result;
+    }
+
+    /**
+     * Return vector of this[i] * other[i]
+     * 
+     * @param other
+     * @return
+     */
+    public ADecimalVector multiply(ADecimalVector other) {
+	checkLength(other);
+	ADecimalVector result = new ADecimalVector(unscaled.length);
+	for (int i = 0; i < unscaled.length; i++) {
+	    result.multiply(i, unscaled[i], scales[i], other.unscaled[i], other.scales[i], this, other);
+	}
+	return result;
+    }
+
+    /**
+     * Return vector of this[i] * factor
+     * 
+     * @param factor
+     * @return
+     */
+    public ADecimalVector scale(ADecimal factor) {
+	ADecimalVector result = new ADecimalVector(unscaled.length);
+	long f = factor.unscaledValue();
+	int fs = factor.scale();
+	for (int i = 0; i < unscaled.length; i++) {
+	    if (f != INFLATED) {
+		result.multiply(i, unscaled[i], scales[i], f, fs, this, null);
+	    } else {
+		result.set(i, bigDecimalValue(i).multiply(factor.bigDecimalValue()));
+	    }
+	}
+	return result;
+    }
+
+    /**
+     * Set this[index] to x * y, where x is element of the vector a and y is either
+     * element of vector b or the long y if b is null.
+     */
+    private void multiply(int index, long x, int xs, long y, int ys, ADecimalVector a, ADecimalVector b) {
+	long product = x * y;
+	long scale = (long) xs + ys;
+	if (x != INFLATED && y != INFLATED && !multiplyOverflows(x, y, product) && product != INFLATED
+		&& scale == (int) scale) {
+	    unscaled[index] = product;
+	    scales[index] = (int) scale;
+	} else {
+	    BigDecimal other = b == null ? BigDecimal.valueOf(y, ys) : b.bigDecimalValue(index);
+	    set(index, a.bigDecimalValue(index).multiply(other));
+	}
+    }
+
+    /**
+     * Return whether x * y overflows, given product = x * y with overflow, see
+     * Math.multiplyExact
+     */
+    private static boolean multiplyOverflows(long x, long y, long product) {
+	return ((Math.abs(x) | Math.abs(y)) >>> 31 != 0)
+		&& ((y != 0 && product / y != x) || (x == Long.MIN_VALUE && y == -1));
+    }
+
+    /**
+     * Return the sum of all elements
+     * 
+     * @return
+     */
+    public ADecimal sum() {
+	Sum sum = new Sum();
+	for (int i = 0; i < unscaled.length; i++) {
+	    if (unscaled[i] != INFLATED) {
+		sum.add(unscaled[i], scales[i]);
+	    } else {
+		sum.add(bigDecimalValue(i));
+	    }
+	}
+	return sum.result();
+    }
+
+    /**
+     * Return the sum of this[i] * other[i]
+     * 
+     * @param other
+     * @return
+     */
+    public ADecimal dot(ADecimalVector other) {
+	checkLength(other);
+	Sum sum = new Sum();
+	for (int i = 0; i < unscaled.length; i++) {
+	    long x = unscaled[i], y = other.unscaled[i], product = x * y;
+	    long scale = (long) scales[i] + other.scales[i];
+	    if (x != INFLATED && y != INFLATED && !multiplyOverflows(x, y, product) && product != INFLATED
+		    && scale == (int) scale) {
+		sum.add(product, (int) scale);
+	    } else {
+		sum.add(bigDecimalValue(i).multiply(other.bigDecimalValue(i)));
+	    }
+	}
+	return sum.result();
+    }
+
+    /**
+     * Compare every element of this vector with the element at the same index of
+     * the other vector.
+     * 
+     * @param other
+     * @return array of -1, 0 or 1 as this[i] is less than, equal to or greater than
+     *         other[i]
+     */
+    public int[] compare(ADecimalVector other) {
+	checkLength(other);
+	int[] result = new int[unscaled.length];
+	for (int i = 0; i < result.length; i++) {
+	    long x = unscaled[i], y = other.unscaled[i];
+	    if (scales[i] == other.scales[i] && x != INFLATED && y != INFLATED) {
+		result[i] = Long.compare(x, y);
+	    } else {
+		result[i] = bigDecimalValue(i).compareTo(other.bigDecimalValue(i));
+	    }
+	}
+	return result;
+    }
+
+    private void checkLength(ADecimalVector other) {
+	if (other.unscaled.length != unscaled.length) {
+	    throw new IllegalArgumentException("Length: " + other.unscaled.length + ", expected: " + unscaled.length);
+	}
+    }
+
+    @Override
+    public String toString() {
+	StringBuilder builder = new StringBuilder("[");
+	for (int i = 0; i < unscaled.length; i++) {
+	    if (i > 0) {
+		builder.append(", ");
+	    }
+	    builder.append(bigDecimalValue(i).toPlainString());
+	}
+	return builder.append(']').toString();
+    }
+
+    /**
+     * Exact sum that adds values of the same scale in a long, and everything else
+     * in a BigDecimal.
+     * 
+     * @author Athensclub
+     *
+     */
+    private static final class Sum {
+
+	/**
+	 * Value of {@link #scale} before anything was added to compact.Values with
+	 * this scale are added to big instead.
+	 */
+	private static final int NO_SCALE = Integer.MIN_VALUE;
+
+	private long compact;
+
+	/**
+	 * Scale of compact, or {@link #NO_SCALE} if nothing was added to compact yet
+	 */
+	private int scale = NO_SCALE;
+
+	private BigDecimal big;
+
+	private void add(long value, int valueScale) {
+	    if (scale == NO_SCALE && valueScale != NO_SCALE) {
+		scale = valueScale;
+	    }
+	    long sum = compact + value;
+	    if (valueScale == scale && ((compact ^ sum) & (value ^ sum)) >= 0) {
+		compact = sum;
+	    } else {
+		add(BigDecimal.valueOf(value, valueScale));
+	    }
+	}
+
+	private void add(BigDecimal value) {
+	    big = big == null ? value : big.add(value);
+	}
+
+	private ADecimal result() {
+	    if (scale == NO_SCALE) {
+		return big == null ? ADecimal.ZERO : ANumberCache.decimal(big);
+	    }
+	    if (big == null) {
+		return ANumberCache.decimal(compact, scale);
+	    }
+	    return ANumberCache.decimal(big.add(BigDecimal.valueOf(compact, scale)));
+	}
+
+    }
+
+}
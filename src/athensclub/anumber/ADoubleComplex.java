@@ -0,0 +1,264 @@
+package athensclub.anumber;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Complex number backed by two doubles, for calculations that only need IEEE
+ * double precision. It supports the same operations as ANumber and can be
+ * converted from and to the exact types with {@link #valueOf(ANumber)} and
+ * {@link #toANumber()}.
+ * 
+ * <p>
+ * Real numbers are represented by complex numbers with zero imaginary part.
+ * See {@link ADoubleComplexArray} for batches of numbers.
+ * </p>
+ * 
+ * @author Athensclub
+ *
+ */
+public final class ADoubleComplex implements Serializable {
+
+    /**
+     * 
+     */
+    private static final long serialVersionUID = -3018207406337093474L;
+
+    public static final ADoubleComplex ZERO = new ADoubleComplex(0, 0);
+
+    public static final ADoubleComplex ONE = new ADoubleComplex(1, 0);
+
+    /**
+     * The imaginary unit
+     */
+    public static final ADoubleComplex I = new ADoubleComplex(0, 1);
+
+    private final double real, imaginary;
+
+    public ADoubleComplex(double real, double imaginary) {
+	this.real = real;
+	this.imaginary = imaginary;
+    }
+
+    public static ADoubleComplex valueOf(double real) {
+	return new ADoubleComplex(real, 0);
+    }
+
+    /**
+     * Return the nearest double complex number of the given number
+     * 
+     * @param number
+     * @return
+     */
+    public static ADoubleComplex valueOf(ANumber number) {
+	if (number instanceof AComplex) {
+	    AComplex c = (AComplex) number;
+	    return new ADoubleComplex(c.getReal().doubleValue(), c.getImaginary().doubleValue());
+	}
+	return new ADoubleComplex(number.doubleValue(), 0);
+    }
+
+    /**
+     * Convert this number to ADecimal, or AComplex if it has imaginary part. Each
+     * part is converted using its shortest decimal representation, see
+     * {@link BigDecimal#valueOf(double)}.
+     * 
+     * @return
+     * @throws NumberFormatException if a part is infinite or NaN
+     */
+    public ANumber toANumber() {
+	ADecimal re = new ADecimal(BigDecimal.valueOf(real));
+	if (imaginary == 0) {
+	    return re;
+	}
+	return new AComplex(re, new ADecimal(BigDecimal.valueOf(imaginary)));
+    }
+
+    public double getReal() {
+	return real;
+    }
+
+    public double getImaginary() {
+	return imaginary;
+    }
+
+    public boolean isZero() {
+	return real == 0 && imaginary == 0;
+    }
+
+    public ADoubleComplex add(ADoubleComplex other) {
+	return new ADoubleComplex(real + other.real, imaginary + other.imaginary);
+    }
+
+    public ADoubleComplex subtract(ADoubleComplex other) {
+	return new ADoubleComplex(real - other.real, imaginary - other.imaginary);
+    }
+
+    public ADoubleComplex multiply(ADoubleComplex other) {
+	// (a+bi)(c+di) = ac - bd + (ad + bc)i
+	return new ADoubleComplex(real * other.real - imaginary * other.imaginary,
+		real * other.imaginary + imaginary * other.real);
+    }
+
+    public ADoubleComplex multiply(double other) {
+	return new ADoubleComplex(real * other, imaginary * other);
+    }
+
+    public ADoubleComplex divide(ADoubleComplex other) {
+	// Smith's algorithm, avoids overflow of c^2+d^2
+	double c = other.real, d = other.imaginary;
+	if (Math.abs(c) >= Math.abs(d)) {
+	    double r = d / c;
+	    double denom = c + d * r;
+	    return new ADoubleComplex((real + imaginary * r) / denom, (imaginary - real * r) / denom);
+	}
+	double r = c / d;
+	double denom = c * r + d;
+	return new ADoubleComplex((real * r + imaginary) / denom, (imaginary * r - real) / denom);
+    }
+
+    public ADoubleComplex reciprocal() {
+	return ONE.divide(this);
+    }
+
+    public ADoubleComplex negate() {
+	return new ADoubleComplex(-real, -imaginary);
+    }
+
+    public ADoubleComplex conjugate() {
+	return new ADoubleComplex(real, -imaginary);
+    }
+
+    /**
+     * Return |this|
+     * 
+     * @return
+     */
+    public double abs() {
+	return Math.hypot(real, imaginary);
+    }
+
+    /**
+     * Return angle in radians of this complex number
+     * 
+     * @return
+     */
+    public double angle() {
+	return Math.atan2(imaginary, real);
+    }
+
+    public ADoubleComplex exp() {
+	// e^(a+bi)=e^a(cos(b)+isin(b))
+	double expRe = Math.exp(real);
+	return new ADoubleComplex(expRe * Math.cos(imaginary), expRe * Math.sin(imaginary));
+    }
+
+    public ADoubleComplex ln() {
+	return new ADoubleComplex(Math.log(abs()), angle());
+    }
+
+    public ADoubleComplex pow(ADoubleComplex other) {
+	if (other.imaginary == 0 && other.real == (int) other.real) {
+	    return pow((int) other.real);
+	}
+	if (isZero()) {
+	    return ZERO;
+	}
+	return other.multiply(ln()).exp();
+    }
+
+    /**
+     * Raise this number by the integer exponent, using repeated squaring.
+     * 
+     * @param exponent
+     * @return
+     */
+    public ADoubleComplex pow(int exponent) {
+	if (exponent < 0) {
+	    return pow(-(long) exponent).reciprocal();
+	}
+	return pow((long) exponent);
+    }
+
+    private ADoubleComplex pow(long exponent) {
+	double re = 1, im = 0;
+	double baseRe = real, baseIm = imaginary;
+	while (exponent != 0) {
+	    if ((exponent & 1) != 0) {
+		double t = re * baseRe - im * baseIm;
+		im = re * baseIm + im * baseRe;
+		re = t;
+	    }
+	    exponent >>>= 1;
+	    double t = baseRe * baseRe - baseIm * baseIm;
+	    baseIm = 2 * baseRe * baseIm;
+	    baseRe = t;
+	}
+	return new ADoubleComplex(re, im);
+    }
+
+    public ADoubleComplex sqrt() {
+	if (isZero()) {
+	    return ZERO;
+	}
+	// principal root, computed without cancellation
+	double t = Math.sqrt((Math.abs(real) + abs()) / 2);
+	if (real >= 0) {
+	    return new ADoubleComplex(t, imaginary / (2 * t));
+	}
+	return new ADoubleComplex(Math.abs(imaginary) / (2 * t), Math.copySign(t, imaginary));
+    }
+
+    public ADoubleComplex sin() {
+	// sin(a+bi)=sin(a)cosh(b)+icos(a)sinh(b)
+	return new ADoubleComplex(Math.sin(real) * Math.cosh(imaginary), Math.cos(real) * Math.sinh(imaginary));
+    }
+
+    public ADoubleComplex cos() {
+	// cos(a+bi)=cos(a)cosh(b)-isin(a)sinh(b)
+	return new ADoubleComplex(Math.cos(real) * Math.cosh(imaginary), -Math.sin(real) * Math.sinh(imaginary));
+    }
+
+    public ADoubleComplex tan() {
+	// tan(a+bi)=(sin(2a)+sinh(2b)i)/(cos(2a)+cosh(2b))
+	double denom = Math.cos(2 * real) + Math.cosh(2 * imaginary);
+	return new ADoubleComplex(Math.sin(2 * real) / denom, Math.sinh(2 * imaginary) / denom);
+    }
+
+    public ADoubleComplex sinh() {
+	// sinh(a+bi)=sinh(a)cos(b)+icosh(a)sin(b)
+	return new ADoubleComplex(Math.sinh(real) * Math.cos(imaginary), Math.cosh(real) * Math.sin(imaginary));
+    }
+
+    public ADoubleComplex cosh() {
+	// cosh(a+bi)=cosh(a)cos(b)+isinh(a)sin(b)
+	return new ADoubleComplex(Math.cosh(real) * Math.cos(imaginary), Math.sinh(real) * Math.sin(imaginary));
+    }
+
+    public ADoubleComplex tanh() {
+	// tanh(a+bi)=(sinh(2a)+isin(2b))/(cosh(2a)+cos(2b))
+	double denom = Math.cosh(2 * real) + Math.cos(2 * imaginary);
+	return new ADoubleComplex(Math.sinh(2 * real) / denom, Math.sin(2 * imaginary) / denom);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+	if (!(obj instanceof ADoubleComplex)) {
+	    return false;
+	}
+	ADoubleComplex o = (ADoubleComplex) obj;
+	return Double.compare(real, o.real) == 0 && Double.compare(imaginary, o.imaginary) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+	return 31 * Double.hashCode(real) + Double.hashCode(imaginary);
+    }
+
+    @Override
+    public String toString() {
+	return imaginary == 0 ? Double.toString(real)
+		: imaginary < 0 ? real + "-" + (-imaginary) + "i" : real + "+" + imaginary + "i";
+    }
+
+}
@@ -0,0 +1,253 @@
+package athensclub.anumber;
+
+/**
+ * Fixed size array of double complex numbers stored as two primitive arrays,
+ * one for the real parts and one for the imaginary parts. Bulk operations are
+ * simple loops over the primitive arrays that the JIT compiler can vectorize.
+ * 
+ * <p>
+ * Bulk operations modify this array and return it, so they can be chained.
+ * This class is not thread-safe.
+ * </p>
+ * 
+ * @author Athensclub
+ *
+ */
+public final class ADoubleComplexArray {
+
+    private final double[] real, imaginary;
+
+    /**
+     * Create array of zeros of the given length
+     * 
+     * @param length
+     */
+    public ADoubleComplexArray(int length) {
+	this(new double[length], new double[length]);
+    }
+
+    /**
+     * Create array backed by the given arrays of parts, which must have the same
+     * length.
+     * 
+     * @param real
+     * @param imaginary
+     */
+    public ADoubleComplexArray(double[] real, double[] imaginary) {
+	if (real.length != imaginary.length) {
+	    throw new IllegalArgumentException("Length of parts: " + real.length + ", " + imaginary.length);
+	}
+	this.real = real;
+	this.imaginary = imaginary;
+    }
+
+    /**
+     * Create array of nearest double complex numbers of the given numbers
+     * 
+     * @param numbers
+     * @return
+     */
+    public static ADoubleComplexArray valueOf(ANumber[] numbers) {
+	ADoubleComplexArray result = new ADoubleComplexArray(numbers.length);
+	for (int i = 0; i < numbers.length; i++) {
+	    result.set(i, ADoubleComplex.valueOf(numbers[i]));
+	}
+	return result;
+    }
+
+    /**
+     * Convert every element to exact number, see {@link ADoubleComplex#toANumber()}
+     * 
+     * @return
+     */
+    public ANumber[] toANumbers() {
+	ANumber[] result = new ANumber[real.length];
+	for (int i = 0; i < result.length; i++) {
+	    result[i] = get(i).toANumber();
+	}
+	return result;
+    }
+
+    public int length() {
+	return real.length;
+    }
+
+    public ADoubleComplex get(int index) {
+	return new ADoubleComplex(real[index], imaginary[index]);
+    }
+
+    public void set(int index, ADoubleComplex value) {
+	real[index] = value.getReal();
+	imaginary[index] = value.getImaginary();
+    }
+
+    /**
+     * The array of real parts backing this array
+     * 
+     * @return
+     */
+    public double[] getReal() {
+	return real;
+    }
+
+    /**
+     * The array of imaginary parts backing this array
+     * 
+     * @return
+     */
+    public double[] getImaginary() {
+	return imaginary;
+    }
+
+    /**
+     * this[i] += other[i]
+     * 
+     * @param other
+     * @return this
+     */
+    public ADoubleComplexArray add(ADoubleComplexArray other) {
+	checkLength(other);
+	double[] re = real, im = imaginary, ore = other.real, oim = other.imaginary;
+	for (int i = 0; i < re.length; i++) {
+	    re[i] += ore[i];
+	    im[i] += oim[i];
+	}
+	return this;
+    }
+
+    /**
+     * this[i] -= other[i]
+     * 
+     * @param other
+     * @return this
+     */
+    public ADoubleComplexArray subtract(ADoubleComplexArray other) {
+	checkLength(other);
+	double[] re = real, im = imaginary, ore = other.real, oim = other.imaginary;
+	for (int i = 0; i < re.length; i++) {
+	    re[i] -= ore[i];
+	    im[i] -= oim[i];
+	}
+	return this;
+    }
+
+    /**
+     * this[i] *= other[i]
+     * 
+     * @param other
+     * @return this
+     */
+    public ADoubleComplexArray multiply(ADoubleComplexArray other) {
+	checkLength(other);
+	double[] re = real, im = imaginary, ore = other.real, oim = other.imaginary;
+	// read both operands before writing, since other may be this
+	for (int i = 0; i < re.length; i++) {
+	    double a = re[i], b = im[i], c = ore[i], d = oim[i];
+	    re[i] = a * c - b * d;
+	    im[i] = a * d + b * c;
+	}
+	return this;
+    }
+
+    /**
+     * this[i] *= factor
+     * 
+     * @param factor
+     * @return this
+     */
+    public ADoubleComplexArray multiply(ADoubleComplex factor) {
+	double c = factor.getReal(), d = factor.getImaginary();
+	double[] re = real, im = imaginary;
+	for (int i = 0; i < re.length; i++) {
+	    double a = re[i], b = im[i];
+	    re[i] = a * c - b * d;
+	    im[i] = a * d + b * c;
+	}
+	return this;
+    }
+
+    /**
+     * this[i] *= factor
+     * 
+     * @param factor
+     * @return this
+     */
+    public ADoubleComplexArray scale(double factor) {
+	double[] re = real, im = imaginary;
+	for (int i = 0; i < re.length; i++) {
+	    re[i] *= factor;
+	    im[i] *= factor;
+	}
+	return this;
+    }
+
+    /**
+     * this[i] = e^this[i]
+     * 
+     * @return this
+     */
+    public ADoubleComplexArray exp() {
+	double[] re = real, im = imaginary;
+	for (int i = 0; i < re.length; i++) {
+	    double expRe = Math.exp(re[i]);
+	    double b = im[i];
+	    re[i] = expRe * Math.cos(b);
+	    im[i] = expRe * Math.sin(b);
+	}
+	return this;
+    }
+
+    /**
+     * Return the sum of all elements
+     * 
+     * @return
+     */
+    public ADoubleComplex sum() {
+	double re = 0, im = 0;
+	for (int i = 0; i < real.length; i++) {
+	    re += real[i];
+	    im += imaginary[i];
+	}
+	return new ADoubleComplex(re, im);
+    }
+
+    /**
+     * Return the sum of this[i] * other[i]
+     * 
+     * @param other
+     * @return
+     */
+    public ADoubleComplex dot(ADoubleComplexArray other) {
+	checkLength(other);
+	double re = 0, im = 0;
+	double[] ore = other.real, oim = other.imaginary;
+	for (int i = 0; i < real.length; i++) {
+	    re += real[i] * ore[i] - imaginary[i] * oim[i];
+	    im += real[i] * oim[i] + imaginary[i] * ore[i];
+	}
+	return new ADoubleComplex(re, im);
+    }
+
+    public ADoubleComplexArray copy() {
+	return new ADoubleComplexArray(real.clone(), imaginary.clone());
+    }
+
+    private void checkLength(ADoubleComplexArray other) {
+	if (other.real.length != real.length) {
+	    throw new IllegalArgumentException("Length: " + other.real.length + ", expected: " + real.length);
+	}
+    }
+
+    @Override
+    public String toString() {
+	StringBuilder builder = new StringBuilder("[");
+	for (int i = 0; i < real.length; i++) {
+	    if (i > 0) {
+		builder.append(", ");
+	    }
+	    builder.append(get(i));
+	}
+	return builder.append(']').toString();
+    }
+
+}
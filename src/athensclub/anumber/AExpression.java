@@ -0,0 +1,496 @@
+package athensclub.anumber;
+
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * An immutable expression of numbers and named variables, which is evaluated
+ * only when requested.
+ * 
+ * <p>
+ * Expressions are hash-consed: building the same operation on the same operands
+ * twice returns the same instance, so common subexpressions form a directed
+ * acyclic graph and are evaluated only once per evaluation. An expression can be
+ * evaluated with different values of its variables, or compiled into an
+ * {@link ACompiledExpression} for repeated evaluation.
+ * </p>
+ * 
+ * @author Athensclub
+ *
+ */
+public final class AExpression {
+
+    /**
+     * Operation of an expression node
+     * 
+     * @author Athensclub
+     *
+     */
+    public enum Operation {
+	CONSTANT(0, null), VARIABLE(0, null), ADD(2, "+"), SUBTRACT(2, "-"), MULTIPLY(2, "*"), DIVIDE(2, "/"),
+	POW(2, "^"), ROOT(2, "root"), NEGATE(1, "-"), RECIPROCAL(1, "1/"), EXP(1, "exp"), LN(1, "ln"),
+	SQRT(1, "sqrt"), ABS(1, "abs"), SIN(1, "sin"), COS(1, "cos"), TAN(1, "tan"), SINH(1, "sinh"),
+	COSH(1, "cosh"), TANH(1, "tanh");
+
+	private final int arity;
+
+	private final String symbol;
+
+	private Operation(int arity, String symbol) {
+	    this.arity = arity;
+	    this.symbol = symbol;
+	}
+
+	/**
+	 * The number of operands of this operation
+	 * 
+	 * @return
+	 */
+	public int getArity() {
+	    return arity;
+	}
+
+    }
+
+    /**
+     * Number of separately locked parts of the interning table, a power of two
+     */
+    private static final int STRIPES = 32;
+
+    /**
+     * Every live expression, used to return the existing instance of an
+     * expression instead of creating equal one.Expressions are split by hash
+     * into stripes with their own locks, so threads building different
+     * expressions rarely wait for each other.
+     */
+    private static final Map<AExpression, WeakReference<AExpression>>[] INTERNED = newStripes();
+
+    private final Operation operation;
+
+    private final ANumber constant;
+
+    private final String variable;
+
+    private final AExpression left, right;
+
+    private final boolean hasVariables;
+
+    private final int hash;
+
+    private AExpression(Operation operation, ANumber constant, String variable, AExpression left,
+	    AExpression right) {
+	this.operation = operation;
+	this.constant = constant;
+	this.variable = variable;
+	this.left = left;
+	this.right = right;
+	hasVariables = operation == Operation.VARIABLE || (left != null && left.hasVariables)
+		|| (right != null && right.hasVariables);
+	hash = Objects.hash(operation, constant, variable, System.identityHashCode(left),
+		System.identityHashCode(right));
+    }
+
+    private static AExpression intern(Operation operation, ANumber constant, String variable, AExpression left,
+	    AExpression right) {
+	AExpression expression = new AExpression(operation, constant, variable, left, right);
+	int h = expression.hash;
+	Map<AExpression, WeakReference<AExpression>> stripe = INTERNED[(h ^ (h >>> 16)) & (STRIPES - 1)];
+	synchronized (stripe) {
+	    WeakReference<AExpression> ref = stripe.get(expression);
+	    AExpression existing = ref == null ? null : ref.get();
+	    if (existing != null) {
+		return existing;
+	    }
+	    stripe.put(expression, new WeakReference<>(expression));
+	}
+	return expression;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<AExpression, WeakReference<AExpression>>[] newStripes() {
+	Map<AExpression, WeakReference<AExpression>>[] stripes = (Map<AExpression, WeakReference<AExpression>>[]) new Map<?,
+		?>[STRIPES];
+	for (int i = 0; i < STRIPES; i++) {
+	    stripes[i] = new WeakHashMap<>();
+	}
+	return stripes;
+    }
+
+    /**
+     * Return expression of the given number.If the number is lazy, its expression
+     * is returned instead.
+     * 
+     * @param value
+     * @return
+     */
+    public static AExpression constant(ANumber value) {
+	if (value instanceof ALazyNumber) {
+	    return ((ALazyNumber) value).getExpression();
+	}
+	return intern(Operation.CONSTANT, Objects.requireNonNull(value), null, null, null);
+    }
+
+    /**
+     * Return expression of the variable with the given name
+     * 
+     * @param name
+     * @return
+     */
+    public static AExpression variable(String name) {
+	return intern(Operation.VARIABLE, null, Objects.requireNonNull(name), null, null);
+    }
+
+    /**
+     * Return expression of the given operation on the given operands
+     * 
+     * @param operation
+     * @param operands
+     * @return
+     */
+    public static AExpression of(Operation operation, AExpression... operands) {
+	if (operation.arity == 0 || operands.length != operation.arity) {
+	    throw new IllegalArgumentException(operation + " with " + operands.length + " operands");
+	}
+	return intern(operation, null, null, Objects.requireNonNull(operands[0]),
+		operation.arity == 2 ? Objects.requireNonNull(operands[1]) : null);
+    }
+
+    public AExpression add(AExpression other) {
+	return of(Operation.ADD, this, other);
+    }
+
+    public AExpression subtract(AExpression other) {
+	return of(Operation.SUBTRACT, this, other);
+    }
+
+    public AExpression multiply(AExpression other) {
+	return of(Operation.MULTIPLY, this, other);
+    }
+
+    public AExpression divide(AExpression other) {
+	return of(Operation.DIVIDE, this, other);
+    }
+
+    public AExpression pow(AExpression other) {
+	return of(Operation.POW, this, other);
+    }
+
+    public AExpression root(AExpression other) {
+	return of(Operation.ROOT, this, other);
+    }
+
+    public AExpression negate() {
+	return of(Operation.NEGATE, this);
+    }
+
+    public AExpression reciprocal() {
+	return of(Operation.RECIPROCAL, this);
+    }
+
+    public AExpression exp() {
+	return of(Operation.EXP, this);
+    }
+
+    public AExpression ln() {
+	return of(Operation.LN, this);
+    }
+
+    public AExpression sqrt() {
+	return of(Operation.SQRT, this);
+    }
+
+    public AExpression abs() {
+	return of(Operation.ABS, this);
+    }
+
+    public AExpression sin() {
+	return of(Operation.SIN, this);
+    }
+
+    public AExpression cos() {
+	return of(Operation.COS, this);
+    }
+
+    public AExpression tan() {
+	return of(Operation.TAN, this);
+    }
+
+    public AExpression sinh() {
+	return of(Operation.SINH, this);
+    }
+
+    public AExpression cosh() {
+	return of(Operation.COSH, this);
+    }
+
+    public AExpression tanh() {
+	return of(Operation.TANH, this);
+    }
+
+    public Operation getOperation() {
+	return operation;
+    }
+
+    /**
+     * The value of constant expression, null for other expressions
+     * 
+     * @return
+     */
+    public ANumber getConstant() {
+	return constant;
+    }
+
+    /**
+     * The name of variable expression, null for other expressions
+     * 
+     * @return
+     */
+    public String getVariable() {
+	return variable;
+    }
+
+    /**
+     * The first operand, null if the operation has no operand
+     * 
+     * @return
+     */
+    public AExpression getLeft() {
+	return left;
+    }
+
+    /**
+     * The second operand, null if the operation has less than two operands
+     * 
+     * @return
+     */
+    public AExpression getRight() {
+	return right;
+    }
+
+    /**
+     * Return if this expression contains any variable
+     * 
+     * @return
+     */
+    public boolean hasVariables() {
+	return hasVariables;
+    }
+
+    /**
+     * Return names of variables in this expression, in order of their first
+     * appearance.
+     * 
+     * @return
+     */
+    public Set<String> getVariables() {
+	Set<String> result = new LinkedHashSet<>();
+	for (AExpression e : order()) {
+	    if (e.operation == Operation.VARIABLE) {
+		result.add(e.variable);
+	    }
+	}
+	return Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * Evaluate this expression with the given variable values, using the precision
+     * of {@link AMathContext} for inexact operations.Each distinct subexpression
+     * is evaluated once.
+     * 
+     * @param variables
+     * @return
+     * @throws IllegalArgumentException if a variable has no value
+     */
+    public ANumber evaluate(Map<String, ? extends ANumber> variables) {
+	Map<AExpression, ANumber> values = new IdentityHashMap<>();
+	ANumber result = null;
+	for (AExpression e : order()) {
+	    if (e.operation == Operation.CONSTANT) {
+		result = e.constant;
+	    } else if (e.operation == Operation.VARIABLE) {
+		result = variables.get(e.variable);
+		if (result == null) {
+		    throw new IllegalArgumentException("Unbound variable: " + e.variable);
+		}
+	    } else {
+		result = apply(e.operation, values.get(e.left), e.right == null ? null : values.get(e.right));
+	    }
+	    values.put(e, result);
+	}
+	return result;
+    }
+
+    /**
+     * Evaluate this expression, which must not have any variable
+     * 
+     * @return
+     */
+    public ANumber evaluate() {
+	return evaluate(Collections.emptyMap());
+    }
+
+    /**
+     * Compile this expression for repeated evaluation
+     * 
+     * @return
+     */
+    public ACompiledExpression compile() {
+	return new ACompiledExpression(this);
+    }
+
+    /**
+     * Return the distinct subexpressions of this expression, each one after all of
+     * its operands, ending with this expression.
+     * 
+     * @return
+     */
+    List<AExpression> order() {
+	List<AExpression> result = new ArrayList<>();
+	Set<AExpression> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+	Deque<AExpression> stack = new ArrayDeque<>();
+	stack.push(this);
+	while (!stack.isEmpty()) {
+	    AExpression e = stack.peek();
+	    if (visited.contains(e)) {
+		stack.pop();
+		continue;
+	    }
+	    boolean ready = true;
+	    if (e.right != null && !visited.contains(e.right)) {
+		stack.push(e.right);
+		ready = false;
+	    }
+	    if (e.left != null && !visited.contains(e.left)) {
+		stack.push(e.left);
+		ready = false;
+	    }
+	    if (ready) {
+		stack.pop();
+		visited.add(e);
+		result.add(e);
+	    }
+	}
+	return result;
+    }
+
+    /**
+     * Apply the operation on the given operands
+     * 
+     * @param operation
+     * @param a
+     * @param b         null for operations with one operand
+     * @return
+     */
+    static ANumber apply(Operation operation, ANumber a, ANumber b) {
+	switch (operation) {
+	case ADD:
+	    return a.add(b);
+	case SUBTRACT:
+	    return a.subtract(b);
+	case MULTIPLY:
+	    return a.multiply(b);
+	case DIVIDE:
+	    return a.divide(b);
+	case POW:
+	    return a.pow(b);
+	case ROOT:
+	    return a.root(b);
+	case NEGATE:
+	    return a.negate();
+	case RECIPROCAL:
+	    return a.reciprocal();
+	case EXP:
+	    return a.exp();
+	case LN:
+	    return a.ln();
+	case SQRT:
+	    return a.sqrt();
+	case ABS:
+	    return a.abs();
+	case SIN:
+	    return a.sin();
+	case COS:
+	    return a.cos();
+	case TAN:
+	    return a.tan();
+	case SINH:
+	    return a.sinh();
+	case COSH:
+	    return a.cosh();
+	case TANH:
+	    return a.tanh();
+	default:
+	    throw new IllegalArgumentException("Apply " + operation);
+	}
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+	if (this == obj) {
+	    return true;
+	}
+	if (!(obj instanceof AExpression)) {
+	    return false;
+	}
+	AExpression o = (AExpression) obj;
+	// operands are interned, so they are compared by identity
+	return hash == o.hash && operation == o.operation && left == o.left && right == o.right
+		&& Objects.equals(variable, o.variable) && sameConstant(constant, o.constant);
+    }
+
+    /**
+     * Return if the two constants are the same value of the same type, including
+     * the scale of decimals, so that replacing one with the other does not change
+     * any result.
+     */
+    private static boolean sameConstant(ANumber a, ANumber b) {
+	if (a == b) {
+	    return true;
+	}
+	if (a == null || b == null || a.getClass() != b.getClass() || !a.equals(b)) {
+	    return false;
+	}
+	if (a instanceof ADecimal) {
+	    BigDecimal x = a.bigDecimalValue(), y = b.bigDecimalValue();
+	    return x.scale() == y.scale();
+	}
+	return true;
+    }
+
+    @Override
+    public int hashCode() {
+	return hash;
+    }
+
+    @Override
+    public String toString() {
+	switch (operation) {
+	case CONSTANT:
+	    return constant.toString();
+	case VARIABLE:
+	    return variable;
+	case NEGATE:
+	case RECIPROCAL:
+	    return operation.symbol + "(" + left + ")";
+	case ROOT:
+	    return "root(" + left + ", " + right + ")";
+	default:
+	    if (operation.arity == 2) {
+		return "(" + left + " " + operation.symbol + " " + right + ")";
+	    }
+	    return operation.symbol + "(" + left + ")";
+	}
+    }
+
+}
@@ -0,0 +1,344 @@
+package athensclub.anumber;
+
+import java.math.MathContext;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import athensclub.anumber.AExpression.Operation;
+
+/**
+ * Parser of formulas written as strings (eg. "(3/4 + 2i) * x ^ 2 - sin(y)")
+ * into {@link AExpression}, with a cache of compiled formulas.
+ *
+ * <p>
+ * A formula is made of decimal literals (eg. 2, 1.5, 2.5e-3), the imaginary
+ * unit i or imaginary literals (eg. 2i), variables, parentheses, the binary
+ * operators + - * / ^ and unary minus. ^ binds tighter than unary minus and is
+ * right associative, so -x^2 is -(x^2) and 2^3^2 is 2^9. The functions exp, ln,
+ * sqrt, abs, sin, cos, tan, sinh, cosh and tanh take one argument, and root(x,
+ * n) takes two. Variables are names that are not followed by '(' and are not
+ * i.
+ * </p>
+ *
+ * <p>
+ * Unlike {@link ANumber#valueOf(String)}, 3/4 and 1+2i are not single literals
+ * here but operators applied to literals, so 1+2i*x is 1+(2i*x). Literals are
+ * read with the decimal reader of {@link ANumberScanner}, which stops at
+ * operators but reads the sign of an exponent such as 2.5e-3 as part of the
+ * number.
+ * </p>
+ *
+ * <p>
+ * {@link #compile(String)} parses each formula once, folds every part that has
+ * no variables into a constant, and keeps the result in a cache of about
+ * {@value #CACHE_SIZE} formulas, keyed by the source string and the
+ * {@link AMathContext} the constants were folded with. Cache hits do not lock,
+ * and formulas that were not used since the last eviction pass are evicted first
+ * (second chance eviction, an approximation of least recently used). All
+ * methods can be called from any number of threads.
+ * </p>
+ *
+ * @author Athensclub
+ *
+ */
+public final class AFormula {
+
+    /**
+     * Maximum number of compiled formulas kept
+     */
+    static final int CACHE_SIZE = 1024;
+
+    private static final Map<String, Operation> FUNCTIONS = new HashMap<>();
+
+    static {
+	for (Operation operation : new Operation[] { Operation.EXP, Operation.LN, Operation.SQRT, Operation.ABS,
+		Operation.SIN, Operation.COS, Operation.TAN, Operation.SINH, Operation.COSH, Operation.TANH,
+		Operation.ROOT }) {
+	    FUNCTIONS.put(operation.name().toLowerCase(Locale.ROOT), operation);
+	}
+    }
+
+    private static final AExpression IMAGINARY_UNIT = AExpression.constant(new AComplex(ADecimal.ZERO,
+	    ADecimal.ONE));
+
+    private static final Map<Map.Entry<String, MathContext>, Cached> CACHE = new ConcurrentHashMap<>();
+
+    private final String source;
+
+    private int position;
+
+    private AFormula(String source) {
+	this.source = source;
+    }
+
+    /**
+     * Parse the formula into an expression, without using the cache
+     *
+     * @param source
+     * @return
+     * @throws IllegalArgumentException if source is not a valid formula
+     */
+    public static AExpression parse(String source) {
+	AFormula parser = new AFormula(source);
+	AExpression result = parser.sum();
+	parser.skipWhitespace();
+	if (parser.position < source.length()) {
+	    throw parser.error("Unexpected '" + source.charAt(parser.position) + "'");
+	}
+	return result;
+    }
+
+    /**
+     * Return the compiled form of the formula, parsing and compiling it only if
+     * it is not in the cache
+     *
+     * @param source
+     * @return
+     * @throws IllegalArgumentException if source is not a valid formula
+     */
+    public static ACompiledExpression compile(String source) {
+	Map.Entry<String, MathContext> key = new SimpleImmutableEntry<>(source, AMathContext.get());
+	Cached cached = CACHE.get(key);
+	if (cached != null) {
+	    if (!cached.used) {
+		// only written once per eviction pass, so hits do not keep writing
+		cached.used = true;
+	    }
+	    return cached.compiled;
+	}
+	// two threads may compile the same formula, but only the first result is
+	// kept
+	Cached compiled = new Cached(parse(source).compile());
+	cached = CACHE.putIfAbsent(key, compiled);
+	if (cached != null) {
+	    return cached.compiled;
+	}
+	if (CACHE.size() > CACHE_SIZE) {
+	    evict();
+	}
+	return compiled.compiled;
+    }
+
+    /**
+     * Remove formulas until the cache is not larger than {@value #CACHE_SIZE},
+     * giving every formula used since the last pass a second chance
+     */
+    private static void evict() {
+	synchronized (CACHE) {
+	    for (int pass = 0; pass < 2 && CACHE.size() > CACHE_SIZE; pass++) {
+		Iterator<Cached> it = CACHE.values().iterator();
+		while (CACHE.size() > CACHE_SIZE && it.hasNext()) {
+		    Cached cached = it.next();
+		    if (cached.used) {
+			cached.used = false;
+		    } else {
+			it.remove();
+		    }
+		}
+	    }
+	}
+    }
+
+    /**
+     * Evaluate the formula with the given variable values, using the compiled form
+     * from the cache
+     *
+     * @param source
+     * @param variables
+     * @return
+     * @throws IllegalArgumentException if source is not a valid formula or a
+     *                                  variable has no value
+     */
+    public static ANumber evaluate(String source, Map<String, ? extends ANumber> variables) {
+	return compile(source).evaluate(variables);
+    }
+
+    /**
+     * Remove every compiled formula from the cache
+     */
+    public static void clearCache() {
+	CACHE.clear();
+    }
+
+    /**
+     * sum := product (('+' | '-') product)*
+     */
+    private AExpression sum() {
+	AExpression result = product();
+	while (true) {
+	    if (accept('+')) {
+		result = result.add(product());
+	    } else if (accept('-')) {
+		result = result.subtract(product());
+	    } else {
+		return result;
+	    }
+	}
+    }
+
+    /**
+     * product := unary (('*' | '/') unary)*
+     */
+    private AExpression product() {
+	AExpression result = unary();
+	while (true) {
+	    if (accept('*')) {
+		result = result.multiply(unary());
+	    } else if (accept('/')) {
+		result = result.divide(unary());
+	    } else {
+		return result;
+	    }
+	}
+    }
+
+    /**
+     * unary := ('-' | '+') unary | power
+     */
+    private AExpression unary() {
+	if (accept('-')) {
+	    return unary().negate();
+	} else if (accept('+')) {
+	    return unary();
+	}
+	return power();
+    }
+
+    /**
+     * power := primary ('^' unary)?
+     */
+    private AExpression power() {
+	AExpression base = primary();
+	if (accept('^')) {
+	    return base.pow(unary());
+	}
+	return base;
+    }
+
+    /**
+     * primary := number | number 'i' | 'i' | name | name '(' arguments ')' | '('
+     * sum ')'
+     */
+    private AExpression primary() {
+	skipWhitespace();
+	if (position >= source.length()) {
+	    throw error("Unexpected end of formula");
+	}
+	char c = source.charAt(position);
+	if (accept('(')) {
+	    AExpression result = sum();
+	    expect(')');
+	    return result;
+	} else if (c >= '0' && c <= '9' || c == '.') {
+	    return number();
+	} else if (Character.isLetter(c) || c == '_') {
+	    return name();
+	}
+	throw error("Unexpected '" + c + "'");
+    }
+
+    private AExpression number() {
+	ANumberScanner scanner = new ANumberScanner(source, position, source.length() - position);
+	ADecimal value = scanner.decimal();
+	if (value == null) {
+	    throw error("Invalid number");
+	}
+	position = scanner.position();
+	if (position < source.length() && source.charAt(position) == 'i' && !isNamePart(position + 1)) {
+	    position++;
+	    return AExpression.constant(new AComplex(ADecimal.ZERO, value));
+	}
+	return AExpression.constant(value);
+    }
+
+    private AExpression name() {
+	int start = position;
+	while (isNamePart(position)) {
+	    position++;
+	}
+	String name = source.substring(start, position);
+	if (accept('(')) {
+	    Operation function = FUNCTIONS.get(name);
+	    if (function == null) {
+		position = start;
+		throw error("Unknown function " + name);
+	    }
+	    AExpression[] arguments = new AExpression[function.getArity()];
+	    for (int i = 0; i < arguments.length; i++) {
+		if (i > 0) {
+		    expect(',');
+		}
+		arguments[i] = sum();
+	    }
+	    expect(')');
+	    return AExpression.of(function, arguments);
+	}
+	return name.equals("i") ? IMAGINARY_UNIT : AExpression.variable(name);
+    }
+
+    private boolean isNamePart(int index) {
+	if (index >= source.length()) {
+	    return false;
+	}
+	char c = source.charAt(index);
+	return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    /**
+     * Skip whitespaces and the given character if it is next
+     *
+     * @return whether the character was skipped
+     */
+    private boolean accept(char c) {
+	skipWhitespace();
+	if (position < source.length() && source.charAt(position) == c) {
+	    position++;
+	    return true;
+	}
+	return false;
+    }
+
+    private void expect(char c) {
+	if (!accept(c)) {
+	    throw error("Expected '" + c + "'");
+	}
+    }
+
+    private void skipWhitespace() {
+	while (position < source.length() && Character.isWhitespace(source.charAt(position))) {
+	    position++;
+	}
+    }
+
+    private IllegalArgumentException error(String message) {
+	return new IllegalArgumentException(message + " at index " + position + ": " + source);
+    }
+
+    /**
+     * A compiled formula in the cache
+     *
+     * @author Athensclub
+     *
+     */
+    private static final class Cached {
+
+	private final ACompiledExpression compiled;
+
+	/**
+	 * Whether the formula was used since the last eviction pass.New formulas
+	 * start as used, so the eviction their insertion triggers does not remove
+	 * them right away.
+	 */
+	private volatile boolean used = true;
+
+	private Cached(ACompiledExpression compiled) {
+	    this.compiled = compiled;
+	}
+
+    }
+
+}
@@ -1,6 +1,7 @@
 package athensclub.anumber;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.math.MathContext;
 import java.math.RoundingMode;
 
@@ -30,6 +31,12 @@ public class AFraction extends ANumber {
 
     private ANumber numerator, denominator;
 
+    /**
+     * The most precise decimal value of this fraction calculated so far, null if
+     * none is calculated yet
+     */
+    private transient volatile Approximation approximation;
+
     /**
      * Convert ADecimal value to AFraction value
      * 
@@ -41,15 +48,14 @@ public class AFraction extends ANumber {
     }
 
     /**
-     * Get the remainder from division of this fraction.
+     * Get the remainder from division of this fraction.Note that the fraction is
+     * always in lowest terms, so this is the remainder of the reduced numerator
+     * divided by the reduced denominator.
      * 
      * @return
      */
     public ADecimal remainder() {
-	if (numerator.isInteger() && denominator.isInteger()) {
-	    return new ADecimal(numerator.bigDecimalValue().remainder(denominator.bigDecimalValue()).abs());
-	}
-	throw new IllegalArgumentException("Find the remainder of division beween non integer number: " + this);
+	return ANumberCache.decimal(numeratorValue().remainder(denominatorValue()).abs());
     }
 
     public AFraction(ANumber numerator, ANumber denominator) {
@@ -72,22 +78,147 @@ public class AFraction extends ANumber {
 	    }
 	    denominator = num.getReal();
 	}
-	ANumber toMultNum = null, toMultDenom = null;
-	ANumber aNum = numerator, aDenom = denominator;
-	if (numerator instanceof AFraction) {
-	    aNum = ((AFraction) numerator).numerator;
-	    toMultDenom = ((AFraction) numerator).denominator;
+	BigInteger[] num = integerRatio(numerator);
+	BigInteger[] denom = integerRatio(denominator);
+	// (a/b) / (c/d) = ad/bc
+	init(num[0].multiply(denom[1]), num[1].multiply(denom[0]));
+    }
+
+    /**
+     * Create fraction from integer numerator and denominator.The fraction will be
+     * reduced to its lowest terms.
+     * 
+     * @param numerator
+     * @param denominator
+     */
+    AFraction(BigInteger numerator, BigInteger denominator) {
+	init(numerator, denominator);
+    }
+
+    private AFraction() {
+    }
+
+    /**
+     * Create fraction from numerator and positive denominator that are already in
+     * lowest terms, without reducing them again.
+     * 
+     * @param numerator
+     * @param denominator
+     * @return
+     */
+    static AFraction fromLowestTerms(BigInteger numerator, BigInteger denominator) {
+	AFraction result = new AFraction();
+	result.numerator = ANumberCache.decimal(numerator);
+	result.denominator = ANumberCache.decimal(denominator);
+	AMetrics.fractionCreated(denominator);
+	return result;
+    }
+
+    /**
+     * Set this fraction to numerator/denominator reduced to lowest terms, with the
+     * sign kept on the numerator.
+     * 
+     * @param num
+     * @param denom
+     */
+    private void init(BigInteger num, BigInteger denom) {
+	if (denom.signum() == 0) {
+	    throw new ArithmeticException("Division by zero: " + num + "/" + denom);
+	}
+	if (denom.signum() < 0) {
+	    num = num.negate();
+	    denom = denom.negate();
+	}
+	BigInteger gcd = gcd(num, denom);
+	if (!gcd.equals(BigInteger.ONE)) {
+	    num = num.divide(gcd);
+	    denom = denom.divide(gcd);
+	}
+	this.numerator = ANumberCache.decimal(num);
+	this.denominator = ANumberCache.decimal(denom);
+	AMetrics.fractionCreated(denom);
+    }
+
+    /**
+     * Return the given real number as {numerator, denominator} pair of integers.
+     * Decimal scales are shifted into the integer form, eg. 1.25 -> {125, 100}.
+     * 
+     * @param number
+     * @return
+     */
+    static BigInteger[] integerRatio(ANumber number) {
+	if (number instanceof AFraction) {
+	    AFraction f = (AFraction) number;
+	    return new BigInteger[] { f.numeratorValue(), f.denominatorValue() };
+	}
+	BigDecimal value = number.bigDecimalValue();
+	if (value.scale() <= 0) {
+	    return new BigInteger[] { value.toBigIntegerExact(), BigInteger.ONE };
+	}
+	return new BigInteger[] { value.unscaledValue(), BigInteger.TEN.pow(value.scale()) };
+    }
+
+    /**
+     * Greatest common divisor of the two integers, always non-negative. Uses long
+     * arithmetic when both values fit in a long.
+     * 
+     * @param a
+     * @param b
+     * @return
+     */
+    static BigInteger gcd(BigInteger a, BigInteger b) {
+	if (a.bitLength() < 63 && b.bitLength() < 63) {
+	    return BigInteger.valueOf(gcd(a.longValue(), b.longValue()));
+	}
+	return a.gcd(b);
+    }
+
+    /**
+     * Binary GCD of two long values, neither of which may be Long.MIN_VALUE.
+     * 
+     * @param a
+     * @param b
+     * @return
+     */
+    static long gcd(long a, long b) {
+	a = Math.abs(a);
+	b = Math.abs(b);
+	if (a == 0) {
+	    return b;
 	}
-	if (denominator instanceof AFraction) {
-	    aDenom = ((AFraction) denominator).numerator;
-	    toMultNum = ((AFraction) denominator).denominator;
+	if (b == 0) {
+	    return a;
 	}
-	this.numerator = toMultNum == null ? aNum : aNum.multiply(toMultNum);
-	this.denominator = toMultDenom == null ? aDenom : aDenom.multiply(toMultDenom);
-	if (this.numerator.isNegative() && this.denominator.isNegative()) {
-	    this.numerator = numerator.negate();
-	    this.denominator = denominator.negate();
+	int shift = Long.numberOfTrailingZeros(a | b);
+	a >>= Long.numberOfTrailingZeros(a);
+	while (b != 0) {
+	    b >>= Long.numberOfTrailingZeros(b);
+	    if (a > b) {
+		long t = a;
+		a = b;
+		b = t;
+	    }
+	    b -= a;
 	}
+	return a << shift;
+    }
+
+    /**
+     * The numerator of this fraction as an integer
+     * 
+     * @return
+     */
+    BigInteger numeratorValue() {
+	return numerator.bigDecimalValue().toBigInteger();
+    }
+
+    /**
+     * The (always positive) denominator of this fraction as an integer
+     * 
+     * @return
+     */
+    BigInteger denominatorValue() {
+	return denominator.bigDecimalValue().toBigInteger();
     }
 
     /**
@@ -113,8 +244,8 @@ public class AFraction extends ANumber {
 	if (other instanceof AFraction) {
 	    AFraction o = (AFraction) other;
 	    // (a/b) + (c/d) = (ad+bc)/bd
-	    return new AFraction(numerator.multiply(o.denominator).add(o.numerator.multiply(denominator)),
-		    denominator.multiply(o.denominator));
+	    BigInteger b = denominatorValue(), d = o.denominatorValue();
+	    return new AFraction(numeratorValue().multiply(d).add(o.numeratorValue().multiply(b)), b.multiply(d));
 	}
 	if (other instanceof ADecimal) {
 	    return add(fromDecimal((ADecimal) other));
@@ -127,17 +258,45 @@ public class AFraction extends ANumber {
 	if (other instanceof AFraction) {
 	    AFraction o = (AFraction) other;
 	    // (a/b) * (c/d) = (ab/cd)
-	    return new AFraction(numerator.multiply(o.numerator), denominator.multiply(o.denominator));
+	    return new AFraction(numeratorValue().multiply(o.numeratorValue()),
+		    denominatorValue().multiply(o.denominatorValue()));
 	}
 	if (other instanceof ADecimal) {
 	    return multiply(fromDecimal((ADecimal) other));
 	}
-	return other.add(this);
+	return other.multiply(this);
+    }
+
+    @Override
+    public int compareTo(ANumber other) {
+	if (other instanceof AFraction || other instanceof ADecimal) {
+	    int sign = isZero() ? 0 : isNegative() ? -1 : 1;
+	    int otherSign = other.isZero() ? 0 : other.isNegative() ? -1 : 1;
+	    if (sign != otherSign) {
+		return Integer.compare(sign, otherSign);
+	    }
+	    BigInteger[] o = integerRatio(other);
+	    // denominators are positive, so a/b < c/d if ad < cb
+	    return numeratorValue().multiply(o[1]).compareTo(o[0].multiply(denominatorValue()));
+	}
+	return -other.compareTo(this);
+    }
+
+    @Override
+    public int hashCode() {
+	Approximation a = approximation();
+	if (a.precision == 0) {
+	    // terminating fractions hash as the equal decimal
+	    return hashCode(a.value);
+	}
+	// already in lowest terms
+	return hashCode(numeratorValue(), denominatorValue());
     }
 
     @Override
     public boolean isNegative() {
-	return numerator.isNegative() ^ denominator.isNegative(); // either but not both
+	// sign is always kept on the numerator
+	return numerator.isNegative();
     }
 
     @Override
@@ -147,7 +306,22 @@ public class AFraction extends ANumber {
 
     @Override
     public ANumber reciprocal() {
-	return new AFraction(denominator, numerator);
+	BigInteger num = numeratorValue(), denom = denominatorValue();
+	if (num.bitLength() < 63 && denom.bitLength() < 63 && num.signum() != 0) {
+	    // already in lowest terms, only the sign needs to be moved
+	    long n = num.longValue();
+	    return ANumberCache.fraction(Long.signum(n) * denom.longValue(), Math.abs(n));
+	}
+	return new AFraction(denom, num);
+    }
+
+    @Override
+    public ANumber negate() {
+	BigInteger num = numeratorValue(), denom = denominatorValue();
+	if (num.bitLength() < 63 && denom.bitLength() < 63) {
+	    return ANumberCache.fraction(-num.longValue(), denom.longValue());
+	}
+	return new AFraction(num.negate(), denom);
     }
 
     @Override
@@ -157,18 +331,153 @@ public class AFraction extends ANumber {
 
     @Override
     public ANumber pow(ANumber other) {
-	return new AFraction(numerator.pow(other), denominator.pow(denominator));
+	if (isExactExponent(other)) {
+	    return pow(other.bigDecimalValue().longValueExact());
+	}
+	// (a/b)^x = a^x/b^x
+	return numerator.pow(other).divide(denominator.pow(other));
     }
 
+    @Override
+    public ANumber pow(long exponent) {
+	if (exponent == 0) {
+	    return ADecimal.ONE;
+	}
+	if (exponent < Integer.MIN_VALUE || exponent > Integer.MAX_VALUE) {
+	    throw new ArithmeticException("Exponent too large: " + exponent);
+	}
+	// powers of numbers in lowest terms are still in lowest terms
+	int n = (int) Math.abs(exponent);
+	BigInteger num = numeratorValue().pow(n), denom = denominatorValue().pow(n);
+	if (exponent > 0) {
+	    return fromLowestTerms(num, denom);
+	}
+	if (num.signum() == 0) {
+	    throw new ArithmeticException("Division by zero: " + this + "^" + exponent);
+	}
+	return num.signum() < 0 ? fromLowestTerms(denom.negate(), num.negate()) : fromLowestTerms(denom, num);
+    }
+
+    /**
+     * Return the exact value if the decimal expansion of this fraction terminates,
+     * otherwise the value with precision of {@link AMathContext}.
+     */
     @Override
     protected BigDecimal calculateBigDecimalValue() {
-	BigDecimal num = numerator.bigDecimalValue();
-	BigDecimal denom = denominator.bigDecimalValue();
-	try {
-	    return num.divide(denom);
-	} catch (ArithmeticException e) {
-	    return num.divide(denom, 20 + num.scale() + denom.scale(), RoundingMode.HALF_UP);
+	Approximation a = approximation();
+	if (a.precision == 0) {
+	    return a.value;
+	}
+	return bigDecimalValue(AMathContext.get());
+    }
+
+    /**
+     * Return whether the decimal expansion of this fraction terminates.Other
+     * fractions keep their own {@link Approximation} by precision instead.
+     */
+    @Override
+    protected boolean isBigDecimalValueExact() {
+	return approximation().precision == 0;
+    }
+
+    /**
+     * Return the value of this fraction rounded by the given context.Lower
+     * precisions are rounded from the most precise value calculated so far, so
+     * only requests for more digits divide again.
+     * 
+     * @throws ArithmeticException if the precision is unlimited and the decimal
+     *                             expansion does not terminate
+     */
+    @Override
+    public BigDecimal bigDecimalValue(MathContext mc) {
+	Approximation a = approximation();
+	if (a.precision == 0) {
+	    return a.value.round(mc);
+	}
+	if (mc.getPrecision() == 0) {
+	    throw new ArithmeticException("Non-terminating decimal expansion: " + this);
+	}
+	if (a.precision <= mc.getPrecision()) {
+	    AMetrics.fallback(AMetrics.Fallback.FRACTION_ROUNDED);
+	    // two more digits than needed, so the next few requests can be rounded
+	    int precision = mc.getPrecision() + 2;
+	    a = new Approximation(numerator.bigDecimalValue().divide(denominator.bigDecimalValue(),
+		    new MathContext(precision, RoundingMode.DOWN)), precision);
+	    if (approximation.precision < precision) {
+		approximation = a;
+	    }
+	}
+	// the exact value is strictly between the truncated value t and the next
+	// number of its precision, so it rounds the same way as t with one more
+	// nonzero digit, since every rounding boundary has at most
+	// mc.getPrecision() + 1 digits
+	BigDecimal t = a.value;
+	return new BigDecimal(t.unscaledValue().multiply(BigInteger.TEN).add(BigInteger.valueOf(t.signum())),
+		t.scale() + 1).round(mc);
+    }
+
+    /**
+     * Return the current approximation, calculating the exact value first if the
+     * decimal expansion terminates
+     */
+    private Approximation approximation() {
+	Approximation a = approximation;
+	if (a == null) {
+	    a = exactApproximation();
+	    approximation = a;
+	}
+	return a;
+    }
+
+    /**
+     * Return the exact value if the denominator has no prime factor other than 2
+     * and 5, otherwise the value truncated to one digit.
+     */
+    private Approximation exactApproximation() {
+	BigInteger num = numeratorValue(), denom = denominatorValue();
+	// denom = 2^twos * 5^fives * rest
+	int twos = denom.getLowestSetBit();
+	BigInteger rest = denom.shiftRight(twos);
+	int fives = 0;
+	BigInteger five = BigInteger.valueOf(5);
+	while (rest.bitLength() > 1) {
+	    BigInteger[] qr = rest.divideAndRemainder(five);
+	    if (qr[1].signum() != 0) {
+		return new Approximation(new BigDecimal(num).divide(new BigDecimal(denom),
+			new MathContext(1, RoundingMode.DOWN)), 1);
+	    }
+	    rest = qr[0];
+	    fives++;
 	}
+	// num / (2^twos * 5^fives) = num * 2^(scale - twos) * 5^(scale - fives) /
+	// 10^scale
+	int scale = Math.max(twos, fives);
+	BigInteger unscaled = num.shiftLeft(scale - twos).multiply(five.pow(scale - fives));
+	return new Approximation(new BigDecimal(unscaled, scale), 0);
+    }
+
+    /**
+     * Decimal value of a fraction, which is immutable so it can be published to
+     * other threads by a single volatile write.
+     * 
+     * @author Athensclub
+     *
+     */
+    private static final class Approximation {
+
+	/**
+	 * The exact value if precision is 0, otherwise the value truncated toward
+	 * zero to precision digits
+	 */
+	private final BigDecimal value;
+
+	private final int precision;
+
+	private Approximation(BigDecimal value, int precision) {
+	    this.value = value;
+	    this.precision = precision;
+	}
+
     }
 
     @Override
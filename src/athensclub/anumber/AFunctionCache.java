@@ -0,0 +1,406 @@
+package athensclub.anumber;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import ch.obermuhlner.math.big.BigDecimalMath;
+
+/**
+ * Optional bounded cache of results of transcendental functions, keyed by the
+ * function, its arguments and the precision.
+ * 
+ * <p>
+ * The cache is disabled by default. It can be enabled with
+ * {@link #enable(int)}, after which every exp, ln, pow, root, trigonometric and
+ * hyperbolic function of ANumber and its subclasses look up their result in
+ * the cache before calculating it. The cache is split into segments that are
+ * locked separately, so it can be used by many threads at once.
+ * </p>
+ * 
+ * @author Athensclub
+ *
+ */
+public final class AFunctionCache {
+
+    /**
+     * Functions whose results are cached
+     * 
+     * @author Athensclub
+     *
+     */
+    public enum Function {
+	EXP, LN, POW, ROOT, SIN, COS, TAN, SINH, COSH, TANH, ATAN2,
+	/**
+	 * sin and cos calculated together
+	 */
+	SIN_COS,
+	/**
+	 * sinh and cosh calculated together
+	 */
+	SINH_COSH
+    }
+
+    /**
+     * Which entry is removed when the cache is full
+     * 
+     * @author Athensclub
+     *
+     */
+    public enum Eviction {
+	/**
+	 * Remove the least recently used entry
+	 */
+	LEAST_RECENTLY_USED,
+	/**
+	 * Remove the oldest entry
+	 */
+	FIRST_IN_FIRST_OUT
+    }
+
+    /**
+     * Maximum number of separately locked segments, must be power of two
+     */
+    private static final int SEGMENTS = 16;
+
+    private static volatile AFunctionCache instance;
+
+    private final Segment[] segments;
+
+    /**
+     * 32 - log2(number of segments), see {@link #segment(Key)}
+     */
+    private final int segmentShift;
+
+    private final int maximumSize;
+
+    private final Eviction eviction;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private AFunctionCache(int maximumSize, Eviction eviction) {
+	if (maximumSize <= 0) {
+	    throw new IllegalArgumentException("Cache size: " + maximumSize);
+	}
+	this.maximumSize = maximumSize;
+	this.eviction = eviction;
+	int count = Math.min(SEGMENTS, Integer.highestOneBit(maximumSize));
+	segments = new Segment[count];
+	segmentShift = 32 - Integer.numberOfTrailingZeros(count);
+	for (int i = 0; i < count; i++) {
+	    // sizes of all segments add up to maximumSize
+	    int capacity = maximumSize / count + (i < maximumSize % count ? 1 : 0);
+	    segments[i] = new Segment(capacity, eviction == Eviction.LEAST_RECENTLY_USED);
+	}
+    }
+
+    /**
+     * Start caching results in a new least recently used cache of the given size,
+     * replacing the current cache.
+     * 
+     * @param maximumSize
+     * @return the new cache
+     */
+    public static AFunctionCache enable(int maximumSize) {
+	return enable(maximumSize, Eviction.LEAST_RECENTLY_USED);
+    }
+
+    /**
+     * Start caching results in a new cache of the given size and eviction,
+     * replacing the current cache.
+     * 
+     * @param maximumSize
+     * @param eviction
+     * @return the new cache
+     */
+    public static AFunctionCache enable(int maximumSize, Eviction eviction) {
+	AFunctionCache cache = new AFunctionCache(maximumSize, eviction);
+	instance = cache;
+	return cache;
+    }
+
+    /**
+     * Stop caching results and drop the current cache
+     */
+    public static void disable() {
+	instance = null;
+    }
+
+    /**
+     * Return the current cache, or null if caching is disabled
+     * 
+     * @return
+     */
+    public static AFunctionCache getInstance() {
+	return instance;
+    }
+
+    /**
+     * Calculate the function of x, using the cache if it is enabled
+     * 
+     * @param function
+     * @param x
+     * @param mc
+     * @return
+     */
+    static BigDecimal apply(Function function, BigDecimal x, MathContext mc) {
+	return apply(function, x, null, mc);
+    }
+
+    /**
+     * Calculate the function of x and y, using the cache if it is enabled. y is
+     * null for functions of one argument.
+     * 
+     * @param function
+     * @param x
+     * @param y
+     * @param mc
+     * @return
+     */
+    static BigDecimal apply(Function function, BigDecimal x, BigDecimal y, MathContext mc) {
+	return (BigDecimal) applyAny(function, x, y, mc);
+    }
+
+    /**
+     * Calculate the function of x that returns two values, such as SIN_COS, using
+     * the cache if it is enabled. The returned array may be shared and must not be
+     * modified.
+     * 
+     * @param function
+     * @param x
+     * @param mc
+     * @return
+     */
+    static BigDecimal[] applyPair(Function function, BigDecimal x, MathContext mc) {
+	return (BigDecimal[]) applyAny(function, x, null, mc);
+    }
+
+    private static Object applyAny(Function function, BigDecimal x, BigDecimal y, MathContext mc) {
+	AFunctionCache cache = instance;
+	if (cache == null) {
+	    return compute(function, x, y, mc);
+	}
+	return cache.get(new Key(function, x, y, mc));
+    }
+
+    /**
+     * Return the segment of the key.The segments use the low bits of the hash for
+     * their buckets, so the segment is chosen by the high bits of the hash
+     * multiplied by the golden ratio, which depend on all bits of the hash.
+     */
+    private Segment segment(Key key) {
+	// shifted as long, since a shift of 32 (one segment) does nothing to int
+	return segments[(int) ((key.hash * 0x9E3779B9 & 0xFFFFFFFFL) >>> segmentShift)];
+    }
+
+    private Object get(Key key) {
+	Segment segment = segment(key);
+	Object result;
+	synchronized (segment) {
+	    result = segment.get(key);
+	}
+	if (result != null) {
+	    hits.increment();
+	    return result;
+	}
+	misses.increment();
+	// calculated outside of the lock, two threads may calculate the same value
+	result = compute(key.function, key.x, key.y, key.mc);
+	synchronized (segment) {
+	    segment.put(key, result);
+	}
+	return result;
+    }
+
+    /**
+     * Calculate the function, recording it in {@link AMetrics} if enabled
+     */
+    private static Object compute(Function function, BigDecimal x, BigDecimal y, MathContext mc) {
+	if (!AMetrics.enabled) {
+	    return calculate(function, x, y, mc);
+	}
+	long start = System.nanoTime();
+	Object result = calculate(function, x, y, mc);
+	AMetrics.calculated(function, x, mc, System.nanoTime() - start);
+	return result;
+    }
+
+    private static Object calculate(Function function, BigDecimal x, BigDecimal y, MathContext mc) {
+	switch (function) {
+	case EXP:
+	    return BigDecimalMath.exp(x, mc);
+	case LN:
+	    return BigDecimalMath.log(x, mc);
+	case POW:
+	    return BigDecimalMath.pow(x, y, mc);
+	case ROOT:
+	    return BigDecimalMath.root(x, y, mc);
+	case SIN:
+	    return AMath.sin(x, mc);
+	case COS:
+	    return AMath.cos(x, mc);
+	case TAN:
+	    return AMath.tan(x, mc);
+	case SINH:
+	    return BigDecimalMath.sinh(x, mc);
+	case COSH:
+	    return BigDecimalMath.cosh(x, mc);
+	case TANH:
+	    return BigDecimalMath.tanh(x, mc);
+	case ATAN2:
+	    return AMath.atan2(x, y, mc);
+	case SIN_COS:
+	    return AMath.sinCos(x, mc);
+	case SINH_COSH:
+	    return AMath.sinhCosh(x, mc);
+	default:
+	    throw new IllegalArgumentException("Unknown function: " + function);
+	}
+    }
+
+    /**
+     * Number of results found in the cache
+     * 
+     * @return
+     */
+    public long hitCount() {
+	return hits.sum();
+    }
+
+    /**
+     * Number of results that were not in the cache and had to be calculated
+     * 
+     * @return
+     */
+    public long missCount() {
+	return misses.sum();
+    }
+
+    /**
+     * Number of results removed because the cache was full
+     * 
+     * @return
+     */
+    public long evictionCount() {
+	return evictions.sum();
+    }
+
+    /**
+     * Ratio of results found in the cache to all results requested, or 0 if no
+     * result was requested
+     * 
+     * @return
+     */
+    public double hitRate() {
+	long hit = hitCount();
+	long total = hit + missCount();
+	return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /**
+     * Number of results currently in the cache
+     * 
+     * @return
+     */
+    public int size() {
+	int size = 0;
+	for (Segment segment : segments) {
+	    synchronized (segment) {
+		size += segment.size();
+	    }
+	}
+	return size;
+    }
+
+    public int getMaximumSize() {
+	return maximumSize;
+    }
+
+    public Eviction getEviction() {
+	return eviction;
+    }
+
+    /**
+     * Remove every result from the cache. The statistics are kept.
+     */
+    public void clear() {
+	for (Segment segment : segments) {
+	    synchronized (segment) {
+		segment.clear();
+	    }
+	}
+    }
+
+    @Override
+    public String toString() {
+	return "AFunctionCache[size=" + size() + ", maximumSize=" + maximumSize + ", hits=" + hitCount()
+		+ ", misses=" + missCount() + ", evictions=" + evictionCount() + "]";
+    }
+
+    private final class Segment extends LinkedHashMap<Key, Object> {
+
+	private static final long serialVersionUID = 4592390367264427315L;
+
+	private final int capacity;
+
+	private Segment(int capacity, boolean accessOrder) {
+	    super(16, 0.75f, accessOrder);
+	    this.capacity = capacity;
+	}
+
+	@Override
+	protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+	    if (size() > capacity) {
+		evictions.increment();
+		return true;
+	    }
+	    return false;
+	}
+
+    }
+
+    private static final class Key {
+
+	private final Function function;
+
+	private final BigDecimal x, y;
+
+	private final MathContext mc;
+
+	private final int hash;
+
+	private Key(Function function, BigDecimal x, BigDecimal y, MathContext mc) {
+	    this.function = function;
+	    this.x = x;
+	    this.y = y;
+	    this.mc = mc;
+	    int h = function.hashCode();
+	    h = 31 * h + x.hashCode();
+	    h = 31 * h + (y == null ? 0 : y.hashCode());
+	    this.hash = 31 * h + mc.hashCode();
+	}
+
+	@Override
+	public int hashCode() {
+	    return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+	    if (!(obj instanceof Key)) {
+		return false;
+	    }
+	    Key o = (Key) obj;
+	    return hash == o.hash && function == o.function && x.equals(o.x)
+		    && (y == null ? o.y == null : y.equals(o.y)) && mc.equals(o.mc);
+	}
+
+    }
+
+}
@@ -0,0 +1,159 @@
+package athensclub.anumber;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * A class that represent an integer, which is a decimal number with scale 0.
+ * 
+ * <p>
+ * Integer results of arithmetic and parsing are created as AInteger, so integer
+ * operations such as remainder, parity and division do not go through
+ * fractions. Values that fit in a long are calculated with long arithmetic, and
+ * the others with BigInteger.
+ * </p>
+ * 
+ * @author Athensclub
+ *
+ */
+public final class AInteger extends ADecimal {
+
+    /**
+     * 
+     */
+    private static final long serialVersionUID = 6034117346719858322L;
+
+    AInteger(long value) {
+	super(value, 0);
+    }
+
+    public AInteger(BigInteger value) {
+	super(new BigDecimal(value));
+    }
+
+    /**
+     * Return integer with the given value, sharing instances of small integers
+     * 
+     * @param value
+     * @return
+     */
+    public static AInteger valueOf(long value) {
+	return (AInteger) ANumberCache.decimal(value);
+    }
+
+    /**
+     * Return integer with the given value, sharing instances of small integers
+     * 
+     * @param value
+     * @return
+     */
+    public static AInteger valueOf(BigInteger value) {
+	return (AInteger) ANumberCache.decimal(value);
+    }
+
+    private boolean isCompact() {
+	return unscaledValue() != INFLATED;
+    }
+
+    public BigInteger bigIntegerValue() {
+	return isCompact() ? BigInteger.valueOf(unscaledValue()) : bigDecimalValue().unscaledValue();
+    }
+
+    @Override
+    public boolean isInteger() {
+	return true;
+    }
+
+    @Override
+    public boolean isEven() {
+	return isCompact() ? (unscaledValue() & 1) == 0 : !bigDecimalValue().unscaledValue().testBit(0);
+    }
+
+    /**
+     * Return the remainder from dividing this number by other number, which is
+     * always non-negative as in {@link ANumber#remainder(ANumber)}.
+     */
+    @Override
+    public ADecimal remainder(ANumber other) {
+	if (other instanceof AInteger) {
+	    AInteger o = (AInteger) other;
+	    if (isCompact() && o.isCompact()) {
+		// |a % b| < |b|, so abs never overflows
+		return ANumberCache.decimal(Math.abs(unscaledValue() % o.unscaledValue()));
+	    }
+	    return ANumberCache.decimal(bigIntegerValue().remainder(o.bigIntegerValue()).abs());
+	}
+	return super.remainder(other);
+    }
+
+    /**
+     * Return {this / other rounded toward zero, this - quotient * other}, the same
+     * as BigInteger.divideAndRemainder, so the remainder has the sign of this
+     * number.
+     * 
+     * @param other
+     * @return
+     */
+    public AInteger[] divideAndRemainder(AInteger other) {
+	if (isCompact() && other.isCompact()) {
+	    // never overflow, since Long.MIN_VALUE is INFLATED
+	    long a = unscaledValue(), b = other.unscaledValue();
+	    return new AInteger[] { valueOf(a / b), valueOf(a % b) };
+	}
+	BigInteger[] result = bigIntegerValue().divideAndRemainder(other.bigIntegerValue());
+	return new AInteger[] { valueOf(result[0]), valueOf(result[1]) };
+    }
+
+    /**
+     * Return the largest integer less than or equal to this / other
+     * 
+     * @param other
+     * @return
+     */
+    public AInteger floorDiv(AInteger other) {
+	if (isCompact() && other.isCompact()) {
+	    return valueOf(Math.floorDiv(unscaledValue(), other.unscaledValue()));
+	}
+	BigInteger[] result = bigIntegerValue().divideAndRemainder(other.bigIntegerValue());
+	if (result[1].signum() != 0 && result[1].signum() != other.signum()) {
+	    return valueOf(result[0].subtract(BigInteger.ONE));
+	}
+	return valueOf(result[0]);
+    }
+
+    /**
+     * Return this - floorDiv(other) * other, which has the sign of other
+     * 
+     * @param other
+     * @return
+     */
+    public AInteger floorMod(AInteger other) {
+	if (isCompact() && other.isCompact()) {
+	    return valueOf(Math.floorMod(unscaledValue(), other.unscaledValue()));
+	}
+	BigInteger r = bigIntegerValue().remainder(other.bigIntegerValue());
+	if (r.signum() != 0 && r.signum() != other.signum()) {
+	    r = r.add(other.bigIntegerValue());
+	}
+	return valueOf(r);
+    }
+
+    /**
+     * Return the greatest common divisor of this and other, which is always
+     * non-negative
+     * 
+     * @param other
+     * @return
+     */
+    public AInteger gcd(AInteger other) {
+	if (isCompact() && other.isCompact()) {
+	    return valueOf(AFraction.gcd(unscaledValue(), other.unscaledValue()));
+	}
+	return valueOf(AFraction.gcd(bigIntegerValue(), other.bigIntegerValue()));
+    }
+
+    private int signum() {
+	return isCompact() ? Long.signum(unscaledValue()) : bigDecimalValue().signum();
+    }
+
+}
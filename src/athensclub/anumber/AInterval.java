@@ -0,0 +1,303 @@
+package athensclub.anumber;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import athensclub.anumber.AExpression.Operation;
+import athensclub.anumber.AFunctionCache.Function;
+import ch.obermuhlner.math.big.BigDecimalMath;
+
+/**
+ * A closed interval of real numbers, used to enclose the exact value of an
+ * {@link AExpression}.
+ * 
+ * <p>
+ * Arithmetic rounds the lower bound toward negative infinity and the upper
+ * bound toward positive infinity, so the exact value always stays inside the
+ * interval. Transcendental functions are assumed to be accurate to within one
+ * unit in the last place at the requested precision, and their results are
+ * widened by two units. An interval whose bounds have the same sign decides the
+ * sign of the value it encloses, no matter how wide it is.
+ * </p>
+ * 
+ * @author Athensclub
+ *
+ */
+final class AInterval {
+
+    private static final BigDecimal ONE_HALF = new BigDecimal("0.5");
+
+    private final BigDecimal lower, upper;
+
+    /**
+     * Rounding toward negative and positive infinity, at the precision of this
+     * calculation
+     */
+    private final MathContext down, up;
+
+    private AInterval(BigDecimal lower, BigDecimal upper, MathContext down, MathContext up) {
+	this.lower = lower;
+	this.upper = upper;
+	this.down = down;
+	this.up = up;
+    }
+
+    /**
+     * Return interval that encloses the value of the expression, which must not
+     * have any variable, calculated with the given number of digits.
+     * 
+     * @param expression
+     * @param precision
+     * @return
+     * @throws ArithmeticException if the interval can not be calculated, such as
+     *                             when it divides by an interval containing zero
+     *                             or the value is not real
+     */
+    static AInterval of(AExpression expression, int precision) {
+	MathContext down = new MathContext(precision, RoundingMode.FLOOR);
+	MathContext up = new MathContext(precision, RoundingMode.CEILING);
+	Map<AExpression, AInterval> values = new IdentityHashMap<>();
+	AInterval result = null;
+	for (AExpression e : expression.order()) {
+	    switch (e.getOperation()) {
+	    case CONSTANT:
+		result = constant(e.getConstant(), down, up);
+		break;
+	    case VARIABLE:
+		throw new ArithmeticException("Unbound variable: " + e.getVariable());
+	    default:
+		result = values.get(e.getLeft()).apply(e.getOperation(),
+			e.getRight() == null ? null : values.get(e.getRight()));
+	    }
+	    values.put(e, result);
+	}
+	return result;
+    }
+
+    private static AInterval constant(ANumber value, MathContext down, MathContext up) {
+	if (value instanceof AComplex) {
+	    AComplex c = (AComplex) value;
+	    if (!c.getImaginary().isZero()) {
+		throw new ArithmeticException("Complex number: " + value);
+	    }
+	    return constant(c.getReal(), down, up);
+	}
+	if (value instanceof AFraction) {
+	    AFraction f = (AFraction) value;
+	    BigDecimal n = new BigDecimal(f.numeratorValue()), d = new BigDecimal(f.denominatorValue());
+	    return new AInterval(n.divide(d, down), n.divide(d, up), down, up);
+	}
+	BigDecimal v = value.bigDecimalValue();
+	return new AInterval(v.round(down), v.round(up), down, up);
+    }
+
+    BigDecimal getLower() {
+	return lower;
+    }
+
+    BigDecimal getUpper() {
+	return upper;
+    }
+
+    /**
+     * Return 1 or -1 if every number in this interval is positive or negative, 0
+     * if this interval only contains zero, or null if it contains zero and other
+     * numbers.
+     * 
+     * @return
+     */
+    Integer signum() {
+	if (lower.signum() > 0) {
+	    return 1;
+	} else if (upper.signum() < 0) {
+	    return -1;
+	} else if (lower.signum() == 0 && upper.signum() == 0) {
+	    return 0;
+	}
+	return null;
+    }
+
+    private boolean containsZero() {
+	return lower.signum() <= 0 && upper.signum() >= 0;
+    }
+
+    private boolean isPoint() {
+	return lower.compareTo(upper) == 0;
+    }
+
+    private AInterval interval(BigDecimal lower, BigDecimal upper) {
+	return new AInterval(lower, upper, down, up);
+    }
+
+    private AInterval apply(Operation operation, AInterval other) {
+	switch (operation) {
+	case ADD:
+	    return add(other);
+	case SUBTRACT:
+	    return add(other.negate());
+	case MULTIPLY:
+	    return multiply(other);
+	case DIVIDE:
+	    return multiply(other.reciprocal());
+	case POW:
+	    return pow(other);
+	case ROOT:
+	    return pow(other.reciprocal());
+	case NEGATE:
+	    return negate();
+	case RECIPROCAL:
+	    return reciprocal();
+	case EXP:
+	    return increasing(Function.EXP);
+	case LN:
+	    if (lower.signum() <= 0) {
+		throw new ArithmeticException("ln of " + this);
+	    }
+	    return increasing(Function.LN);
+	case SQRT:
+	    return sqrt();
+	case ABS:
+	    return abs();
+	case SIN:
+	    return periodic(Function.SIN);
+	case COS:
+	    return periodic(Function.COS);
+	case TAN:
+	    return periodic(Function.SIN).multiply(periodic(Function.COS).reciprocal());
+	case SINH:
+	    return increasing(Function.SINH);
+	case COSH:
+	    return cosh();
+	case TANH:
+	    return increasing(Function.TANH);
+	default:
+	    throw new ArithmeticException("Interval of " + operation);
+	}
+    }
+
+    private AInterval add(AInterval other) {
+	return interval(lower.add(other.lower, down), upper.add(other.upper, up));
+    }
+
+    private AInterval negate() {
+	return interval(upper.negate(), lower.negate());
+    }
+
+    private AInterval multiply(AInterval other) {
+	BigDecimal[] bounds = { lower, upper };
+	BigDecimal[] otherBounds = { other.lower, other.upper };
+	BigDecimal min = null, max = null;
+	for (BigDecimal a : bounds) {
+	    for (BigDecimal b : otherBounds) {
+		BigDecimal low = a.multiply(b, down), high = a.multiply(b, up);
+		min = min == null || low.compareTo(min) < 0 ? low : min;
+		max = max == null || high.compareTo(max) > 0 ? high : max;
+	    }
+	}
+	return interval(min, max);
+    }
+
+    private AInterval reciprocal() {
+	if (containsZero()) {
+	    throw new ArithmeticException("Reciprocal of " + this);
+	}
+	return interval(BigDecimal.ONE.divide(upper, down), BigDecimal.ONE.divide(lower, up));
+    }
+
+    private AInterval abs() {
+	if (lower.signum() >= 0) {
+	    return this;
+	} else if (upper.signum() <= 0) {
+	    return negate();
+	}
+	return interval(BigDecimal.ZERO, upper.max(lower.negate()));
+    }
+
+    private AInterval sqrt() {
+	if (upper.signum() < 0) {
+	    throw new ArithmeticException("sqrt of " + this);
+	}
+	BigDecimal low = lower.signum() <= 0 ? BigDecimal.ZERO
+		: widen(BigDecimalMath.sqrt(lower, new MathContext(down.getPrecision())), -1);
+	BigDecimal high = widen(BigDecimalMath.sqrt(upper, new MathContext(up.getPrecision())), 1);
+	return interval(low.max(BigDecimal.ZERO), high);
+    }
+
+    private AInterval pow(AInterval exponent) {
+	if (exponent.isPoint() && exponent.lower.stripTrailingZeros().scale() <= 0
+		&& exponent.lower.abs().compareTo(BigDecimal.valueOf(ANumber.MAX_EXACT_EXPONENT)) <= 0) {
+	    long n = exponent.lower.longValueExact();
+	    AInterval result = interval(BigDecimal.ONE, BigDecimal.ONE);
+	    AInterval base = n < 0 ? reciprocal() : this;
+	    for (long e = Math.abs(n); e != 0; e >>>= 1) {
+		if ((e & 1) != 0) {
+		    result = result.multiply(base);
+		}
+		if (e > 1) {
+		    base = base.multiply(base);
+		}
+	    }
+	    return result;
+	}
+	if (lower.signum() <= 0) {
+	    throw new ArithmeticException("Non integer power of " + this);
+	}
+	// x^y = e^(y*ln(x))
+	return exponent.multiply(increasing(Function.LN)).increasing(Function.EXP);
+    }
+
+    private AInterval cosh() {
+	if (containsZero()) {
+	    BigDecimal m = upper.max(lower.negate());
+	    return interval(BigDecimal.ONE, widen(apply(Function.COSH, m), 1));
+	}
+	return upper.signum() < 0 ? negate().increasing(Function.COSH) : increasing(Function.COSH);
+    }
+
+    /**
+     * Apply increasing function to the bounds of this interval
+     */
+    private AInterval increasing(Function function) {
+	return interval(widen(apply(function, lower), -1), widen(apply(function, upper), 1));
+    }
+
+    /**
+     * Apply sin or cos, which change by at most the change of their argument, to
+     * this interval
+     */
+    private AInterval periodic(Function function) {
+	BigDecimal middle = lower.add(upper).multiply(ONE_HALF);
+	BigDecimal radius = upper.subtract(lower).multiply(ONE_HALF);
+	BigDecimal value = apply(function, middle);
+	BigDecimal low = widen(value, -1).subtract(radius, down);
+	BigDecimal high = widen(value, 1).add(radius, up);
+	return interval(low.max(BigDecimal.ONE.negate()), high.min(BigDecimal.ONE));
+    }
+
+    private BigDecimal apply(Function function, BigDecimal x) {
+	return AFunctionCache.apply(function, x, new MathContext(down.getPrecision()));
+    }
+
+    /**
+     * Move the value by two units in the last place of the precision of this
+     * calculation, toward positive infinity if direction is positive or negative
+     * infinity otherwise.Zero is exact.
+     */
+    private BigDecimal widen(BigDecimal value, int direction) {
+	if (value.signum() == 0) {
+	    return value;
+	}
+	// value has (precision - scale) digits before the point
+	BigDecimal error = BigDecimal.valueOf(2, down.getPrecision() - value.precision() + value.scale());
+	return direction > 0 ? value.add(error) : value.subtract(error);
+    }
+
+    @Override
+    public String toString() {
+	return "[" + lower.toPlainString() + ", " + upper.toPlainString() + "]";
+    }
+
+}
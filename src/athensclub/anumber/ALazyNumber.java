@@ -0,0 +1,323 @@
+package athensclub.anumber;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * A number that is not calculated until its value is needed.
+ * 
+ * <p>
+ * Operations on lazy numbers build an {@link AExpression} instead of
+ * calculating the result, so a formula is evaluated once, at the precision of
+ * {@link AMathContext} when the value is first requested (for example by
+ * bigDecimalValue(), toString() or compareTo()), and subexpressions that appear
+ * more than once are evaluated only once. Operations between a lazy number and
+ * any other number return a lazy number. Lazy numbers are created by
+ * {@link ANumber#lazy()}.
+ * </p>
+ * 
+ * <p>
+ * Comparisons and sign tests do not use the value at a fixed precision.They
+ * calculate an interval enclosing the exact value with
+ * {@value #INITIAL_PRECISION} digits, and double the digits only while the
+ * interval is not enough to decide the answer, up to
+ * {@link #getMaxPrecision()}. Values that still can not be told apart at that
+ * precision compare as equal.
+ * </p>
+ * 
+ * <p>
+ * Because of that, {@link #equals(Object)} and {@link #hashCode()} do not use
+ * the value: a hash code of an undecided value would depend on its rounding. Two
+ * lazy numbers are equal only if they have the same expression, and a lazy
+ * number is never equal to a number that is not lazy. Use
+ * {@link #compareTo(ANumber)} to compare values, as with BigDecimal.
+ * </p>
+ * 
+ * @author Athensclub
+ *
+ */
+public final class ALazyNumber extends ANumber {
+
+    /**
+     * 
+     */
+    private static final long serialVersionUID = -2385240958617331402L;
+
+    /**
+     * Number of digits of the first interval calculated by comparisons
+     */
+    public static final int INITIAL_PRECISION = 16;
+
+    private static volatile int maxPrecision = 256;
+
+    private final AExpression expression;
+
+    private transient volatile ANumber result;
+
+    /**
+     * Create lazy number of the given expression, which must not have any
+     * variable.
+     * 
+     * @param expression
+     */
+    public ALazyNumber(AExpression expression) {
+	if (expression.hasVariables()) {
+	    throw new IllegalArgumentException("Expression has variables: " + expression.getVariables());
+	}
+	this.expression = expression;
+    }
+
+    /**
+     * The largest number of digits used by comparisons and sign tests of lazy
+     * numbers
+     * 
+     * @return
+     */
+    public static int getMaxPrecision() {
+	return maxPrecision;
+    }
+
+    /**
+     * Set the largest number of digits used by comparisons and sign tests of lazy
+     * numbers, for all threads.
+     * 
+     * @param precision
+     */
+    public static void setMaxPrecision(int precision) {
+	if (precision < 1) {
+	    throw new IllegalArgumentException("Precision: " + precision);
+	}
+	maxPrecision = precision;
+    }
+
+    public AExpression getExpression() {
+	return expression;
+    }
+
+    /**
+     * Evaluate the expression of this number.The result is cached, so this is
+     * evaluated at most once.
+     * 
+     * @return
+     */
+    public ANumber evaluate() {
+	ANumber r = result;
+	if (r == null) {
+	    r = expression.evaluate();
+	    result = r;
+	}
+	return r;
+    }
+
+    @Override
+    public ALazyNumber lazy() {
+	return this;
+    }
+
+    private static ANumber value(ANumber number) {
+	return number instanceof ALazyNumber ? ((ALazyNumber) number).evaluate() : number;
+    }
+
+    private ALazyNumber apply(AExpression.Operation operation, ANumber other) {
+	return new ALazyNumber(AExpression.of(operation, expression, AExpression.constant(other)));
+    }
+
+    private ALazyNumber apply(AExpression.Operation operation) {
+	return new ALazyNumber(AExpression.of(operation, expression));
+    }
+
+    @Override
+    public ANumber add(ANumber other) {
+	return apply(AExpression.Operation.ADD, other);
+    }
+
+    @Override
+    public ANumber subtract(ANumber other) {
+	return apply(AExpression.Operation.SUBTRACT, other);
+    }
+
+    @Override
+    public ANumber multiply(ANumber other) {
+	return apply(AExpression.Operation.MULTIPLY, other);
+    }
+
+    @Override
+    public ANumber divide(ANumber other) {
+	return apply(AExpression.Operation.DIVIDE, other);
+    }
+
+    @Override
+    public ANumber pow(ANumber other) {
+	return apply(AExpression.Operation.POW, other);
+    }
+
+    @Override
+    public ANumber root(ANumber other) {
+	return apply(AExpression.Operation.ROOT, other);
+    }
+
+    @Override
+    public ANumber negate() {
+	return apply(AExpression.Operation.NEGATE);
+    }
+
+    @Override
+    public ANumber reciprocal() {
+	return apply(AExpression.Operation.RECIPROCAL);
+    }
+
+    @Override
+    public ANumber exp() {
+	return apply(AExpression.Operation.EXP);
+    }
+
+    @Override
+    public ANumber ln() {
+	return apply(AExpression.Operation.LN);
+    }
+
+    @Override
+    public ANumber sqrt() {
+	return apply(AExpression.Operation.SQRT);
+    }
+
+    @Override
+    public ANumber abs() {
+	return apply(AExpression.Operation.ABS);
+    }
+
+    @Override
+    public ANumber sin() {
+	return apply(AExpression.Operation.SIN);
+    }
+
+    @Override
+    public ANumber cos() {
+	return apply(AExpression.Operation.COS);
+    }
+
+    @Override
+    public ANumber tan() {
+	return apply(AExpression.Operation.TAN);
+    }
+
+    @Override
+    public ANumber sinh() {
+	return apply(AExpression.Operation.SINH);
+    }
+
+    @Override
+    public ANumber cosh() {
+	return apply(AExpression.Operation.COSH);
+    }
+
+    @Override
+    public ANumber tanh() {
+	return apply(AExpression.Operation.TANH);
+    }
+
+    @Override
+    public ANumber[] sinCos() {
+	return new ANumber[] { sin(), cos() };
+    }
+
+    @Override
+    public ANumber[] sinhCosh() {
+	return new ANumber[] { sinh(), cosh() };
+    }
+
+    /**
+     * Return the sign of the value of the expression, raising the precision of its
+     * enclosing interval until the sign is known, or null if the interval can not
+     * be calculated (such as for complex values).
+     * 
+     * @param expression
+     * @return
+     */
+    private static Integer signum(AExpression expression) {
+	int max = maxPrecision;
+	for (int precision = Math.min(INITIAL_PRECISION, max);; precision = Math.min(precision * 2, max)) {
+	    try {
+		Integer signum = AInterval.of(expression, precision).signum();
+		if (signum != null) {
+		    return signum;
+		} else if (precision >= max) {
+		    // differs from zero by less than the largest precision
+		    AMetrics.fallback(AMetrics.Fallback.PRECISION_CAP);
+		    return 0;
+		}
+		AMetrics.fallback(AMetrics.Fallback.PRECISION_RAISED);
+	    } catch (ArithmeticException e) {
+		// such as division by interval containing zero, which may be avoided by
+		// narrower interval
+		if (precision >= max) {
+		    return null;
+		}
+	    }
+	}
+    }
+
+    @Override
+    public boolean isNegative() {
+	Integer signum = signum(expression);
+	return signum == null ? evaluate().isNegative() : signum < 0;
+    }
+
+    @Override
+    public boolean isZero() {
+	Integer signum = signum(expression);
+	return signum == null ? evaluate().isZero() : signum == 0;
+    }
+
+    @Override
+    public boolean isInteger() {
+	return evaluate().isInteger();
+    }
+
+    @Override
+    public int compareTo(ANumber o) {
+	Integer signum = signum(expression.subtract(AExpression.constant(o)));
+	return signum == null ? evaluate().compareTo(value(o)) : signum;
+    }
+
+    /**
+     * Return whether the other object is a lazy number of the same expression
+     */
+    @Override
+    public boolean equals(Object obj) {
+	return obj instanceof ALazyNumber && expression.equals(((ALazyNumber) obj).expression);
+    }
+
+    @Override
+    public int hashCode() {
+	return expression.hashCode();
+    }
+
+    /**
+     * The value depends on the precision the expression is evaluated with
+     */
+    @Override
+    protected boolean isBigDecimalValueExact() {
+	return false;
+    }
+
+    @Override
+    protected BigDecimal calculateBigDecimalValue() {
+	return evaluate().bigDecimalValue();
+    }
+
+    /**
+     * Evaluate the expression again with the precision of the given context,
+     * instead of rounding the cached value.
+     */
+    @Override
+    public BigDecimal bigDecimalValue(MathContext mc) {
+	return AMathContext.compute(mc, () -> expression.evaluate()).bigDecimalValue(mc);
+    }
+
+    @Override
+    public String toString() {
+	return evaluate().toString();
+    }
+
+}
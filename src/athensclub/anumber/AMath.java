@@ -0,0 +1,222 @@
+package athensclub.anumber;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+import ch.obermuhlner.math.big.BigDecimalMath;
+
+/**
+ * BigDecimal functions used by anumber that are not provided by big-math
+ * 
+ * @author Athensclub
+ *
+ */
+final class AMath {
+
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+
+    private AMath() {
+    }
+
+    /**
+     * Argument x written as k(pi/2) + r where |r| <= pi/4, with the context r was
+     * calculated with.
+     * 
+     * @author Athensclub
+     *
+     */
+    private static final class Reduction {
+
+	private final int quadrant;
+
+	private final BigDecimal remainder;
+
+	private final MathContext work;
+
+	private Reduction(int quadrant, BigDecimal remainder, MathContext work) {
+	    this.quadrant = quadrant;
+	    this.remainder = remainder;
+	    this.work = work;
+	}
+
+    }
+
+    /**
+     * Reduce x modulo pi/2 using the shared pi/2 from {@link AConstants}. The
+     * working precision covers the integer digits of x, and is raised again by the
+     * number of leading zeros of the remainder when x is close to a multiple of
+     * pi/2, so the remainder always keeps the requested relative precision.
+     * 
+     * @param x
+     * @param mc
+     * @return
+     */
+    private static Reduction reduce(BigDecimal x, MathContext mc) {
+	int digits = mc.getPrecision() + Math.max(0, x.precision() - x.scale()) + 4;
+	int extra = 0;
+	while (true) {
+	    MathContext work = new MathContext(digits + extra);
+	    BigDecimal halfPi = AConstants.halfPi(work);
+	    BigDecimal k = x.divide(halfPi, 0, RoundingMode.HALF_EVEN);
+	    BigDecimal r = k.signum() == 0 ? x : x.subtract(halfPi.multiply(k), work);
+	    // digits lost to cancellation are the leading zeros of r, which is less
+	    // than 1, so a remainder such as 0.5 returns after the first pass
+	    int lost = r.signum() == 0 ? mc.getPrecision() : r.scale() - r.precision();
+	    if (k.signum() == 0 || lost <= extra) {
+		return new Reduction(k.toBigInteger().intValue() & 3, r, work);
+	    }
+	    extra = lost;
+	}
+    }
+
+    /**
+     * Calculate sin(x) after explicit reduction modulo pi/2, so that large
+     * arguments reach the series as a remainder of at most pi/4.
+     * 
+     * @param x
+     * @param mc
+     * @return
+     */
+    static BigDecimal sin(BigDecimal x, MathContext mc) {
+	if (x.signum() == 0) {
+	    return BigDecimal.ZERO;
+	}
+	Reduction reduction = reduce(x, mc);
+	switch (reduction.quadrant) {
+	case 0:
+	    return BigDecimalMath.sin(reduction.remainder, reduction.work).round(mc);
+	case 1:
+	    return BigDecimalMath.cos(reduction.remainder, reduction.work).round(mc);
+	case 2:
+	    return BigDecimalMath.sin(reduction.remainder, reduction.work).negate(mc);
+	default:
+	    return BigDecimalMath.cos(reduction.remainder, reduction.work).negate(mc);
+	}
+    }
+
+    /**
+     * Calculate cos(x) after explicit reduction modulo pi/2.
+     * 
+     * @param x
+     * @param mc
+     * @return
+     */
+    static BigDecimal cos(BigDecimal x, MathContext mc) {
+	if (x.signum() == 0) {
+	    return BigDecimal.ONE;
+	}
+	Reduction reduction = reduce(x, mc);
+	switch (reduction.quadrant) {
+	case 0:
+	    return BigDecimalMath.cos(reduction.remainder, reduction.work).round(mc);
+	case 1:
+	    return BigDecimalMath.sin(reduction.remainder, reduction.work).negate(mc);
+	case 2:
+	    return BigDecimalMath.cos(reduction.remainder, reduction.work).negate(mc);
+	default:
+	    return BigDecimalMath.sin(reduction.remainder, reduction.work).round(mc);
+	}
+    }
+
+    /**
+     * Calculate tan(x) after explicit reduction modulo pi/2.
+     * 
+     * @param x
+     * @param mc
+     * @return
+     * @throws ArithmeticException if x reduces to exactly an odd multiple of pi/2
+     */
+    static BigDecimal tan(BigDecimal x, MathContext mc) {
+	if (x.signum() == 0) {
+	    return BigDecimal.ZERO;
+	}
+	Reduction reduction = reduce(x, mc);
+	if ((reduction.quadrant & 1) == 0) {
+	    return BigDecimalMath.tan(reduction.remainder, reduction.work).round(mc);
+	}
+	// tan(r + pi/2) = -1/tan(r)
+	if (reduction.remainder.signum() == 0) {
+	    throw new ArithmeticException("tan of odd multiple of pi/2");
+	}
+	return BigDecimal.ONE.divide(BigDecimalMath.tan(reduction.remainder, reduction.work), reduction.work)
+		.negate(mc);
+    }
+
+    /**
+     * Calculate the angle of point (x, y) using the shared pi from
+     * {@link AConstants}.
+     * 
+     * @param y
+     * @param x
+     * @param mc
+     * @return
+     * @throws ArithmeticException if both x and y are zero
+     */
+    static BigDecimal atan2(BigDecimal y, BigDecimal x, MathContext mc) {
+	if (x.signum() == 0) {
+	    if (y.signum() == 0) {
+		throw new ArithmeticException("atan2 of (0, 0)");
+	    }
+	    BigDecimal halfPi = AConstants.halfPi(mc);
+	    return y.signum() > 0 ? halfPi : halfPi.negate();
+	}
+	MathContext work = new MathContext(mc.getPrecision() + 4);
+	BigDecimal atan = BigDecimalMath.atan(y.divide(x, work), work);
+	if (x.signum() > 0) {
+	    return atan.round(mc);
+	}
+	BigDecimal pi = AConstants.pi(work);
+	return y.signum() >= 0 ? atan.add(pi, mc) : atan.subtract(pi, mc);
+    }
+
+    /**
+     * Calculate {sin(x), cos(x)} from a single argument reduction and a single sin
+     * series.
+     * 
+     * @param x
+     * @param mc
+     * @return
+     */
+    static BigDecimal[] sinCos(BigDecimal x, MathContext mc) {
+	if (x.signum() == 0) {
+	    return new BigDecimal[] { BigDecimal.ZERO, BigDecimal.ONE };
+	}
+	Reduction reduction = reduce(x, mc);
+	MathContext work = reduction.work;
+	BigDecimal sin = BigDecimalMath.sin(reduction.remainder, work);
+	// cos(r) >= 1/sqrt(2), so there is no cancellation here
+	BigDecimal cos = BigDecimalMath.sqrt(BigDecimal.ONE.subtract(sin.multiply(sin), work), work);
+	switch (reduction.quadrant) {
+	case 0:
+	    return new BigDecimal[] { sin.round(mc), cos.round(mc) };
+	case 1:
+	    return new BigDecimal[] { cos.round(mc), sin.negate(mc) };
+	case 2:
+	    return new BigDecimal[] { sin.negate(mc), cos.negate(mc) };
+	default:
+	    return new BigDecimal[] { cos.negate(mc), sin.round(mc) };
+	}
+    }
+
+    /**
+     * Calculate {sinh(x), cosh(x)} from a single exp.
+     * 
+     * @param x
+     * @param mc
+     * @return
+     */
+    static BigDecimal[] sinhCosh(BigDecimal x, MathContext mc) {
+	if (x.signum() == 0) {
+	    return new BigDecimal[] { BigDecimal.ZERO, BigDecimal.ONE };
+	}
+	// e^x - e^-x cancels about as many digits as there are zeros after the
+	// decimal point of small x
+	MathContext work = new MathContext(mc.getPrecision() + Math.max(0, x.scale() - x.precision() + 1) + 2);
+	BigDecimal exp = BigDecimalMath.exp(x, work);
+	BigDecimal inverse = BigDecimal.ONE.divide(exp, work);
+	return new BigDecimal[] { exp.subtract(inverse, work).divide(TWO, mc),
+		exp.add(inverse, work).divide(TWO, mc) };
+    }
+
+}
@@ -0,0 +1,134 @@
+package athensclub.anumber;
+
+import java.math.MathContext;
+import java.util.function.Supplier;
+
+/**
+ * The precision used by operations of anumber package that can not be
+ * calculated exactly, such as exp, ln, sin or non-terminating fractions.
+ * 
+ * <p>
+ * The precision can be set globally with {@link #setDefault(MathContext)}, for
+ * the current thread with {@link #set(MathContext)}, for a block of code with
+ * {@link #with(MathContext)} or for a single calculation with
+ * {@link #compute(MathContext, Supplier)}. The default precision is
+ * {@link MathContext#DECIMAL128}.
+ * </p>
+ * 
+ * <pre>
+ * try (AMathContext.Scope scope = AMathContext.with(new MathContext(100))) {
+ *     ANumber e = ADecimal.ONE.exp(); // 100 digits
+ * }
+ * </pre>
+ * 
+ * @author Athensclub
+ *
+ */
+public final class AMathContext {
+
+    private static volatile MathContext defaultContext = MathContext.DECIMAL128;
+
+    private static final ThreadLocal<MathContext> current = new ThreadLocal<>();
+
+    private AMathContext() {
+    }
+
+    /**
+     * Return the precision that operations of the current thread use
+     * 
+     * @return
+     */
+    public static MathContext get() {
+	MathContext context = current.get();
+	return context != null ? context : defaultContext;
+    }
+
+    /**
+     * Return the precision used by threads that did not set their own
+     * 
+     * @return
+     */
+    public static MathContext getDefault() {
+	return defaultContext;
+    }
+
+    /**
+     * Set the precision used by threads that did not set their own
+     * 
+     * @param context
+     */
+    public static void setDefault(MathContext context) {
+	if (context == null) {
+	    throw new NullPointerException();
+	}
+	defaultContext = context;
+    }
+
+    /**
+     * Set the precision of the current thread, or use the default precision again
+     * if context is null.
+     * 
+     * @param context
+     */
+    public static void set(MathContext context) {
+	if (context == null) {
+	    current.remove();
+	} else {
+	    current.set(context);
+	}
+    }
+
+    /**
+     * Use the given precision in the current thread until the returned scope is
+     * closed, at which point the previous precision is restored.
+     * 
+     * @param context
+     * @return
+     */
+    public static Scope with(MathContext context) {
+	if (context == null) {
+	    throw new NullPointerException();
+	}
+	Scope scope = new Scope(current.get());
+	current.set(context);
+	return scope;
+    }
+
+    /**
+     * Calculate the value using the given precision.
+     * 
+     * @param context
+     * @param calculation
+     * @return
+     */
+    public static <T> T compute(MathContext context, Supplier<T> calculation) {
+	Scope scope = with(context);
+	try {
+	    return calculation.get();
+	} finally {
+	    scope.close();
+	}
+    }
+
+    /**
+     * A block of code using a precision, see {@link AMathContext#with(MathContext)}
+     * 
+     * @author Athensclub
+     *
+     */
+    public static final class Scope implements AutoCloseable {
+
+	private final MathContext previous;
+
+	private Scope(MathContext previous) {
+	    this.previous = previous;
+	}
+
+	@Override
+	public void close() {
+	    set(previous);
+	}
+
+    }
+
+}
@@ -0,0 +1,545 @@
+package athensclub.anumber;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable matrix of numbers with exact linear algebra.
+ *
+ * <p>
+ * {@link #determinant()}, {@link #rank()}, {@link #solve(AMatrix)} and
+ * {@link #inverse()} use fraction-free Bareiss elimination.Every row is first
+ * multiplied by the least common multiple of its denominators, so elimination
+ * runs on integers only, and each step divides exactly by the previous pivot.
+ * Intermediate values are then minors of the scaled matrix, so their size grows
+ * linearly with the size of the matrix instead of exponentially as with
+ * fractions. These methods accept decimals and fractions(or complex numbers with
+ * no imaginary part), and throw IllegalArgumentException for any other entry.
+ * </p>
+ *
+ * <p>
+ * Multiplication accumulates each entry in a single mutable accumulator when
+ * the entries allow it, and splits large products into blocks that are
+ * multiplied in parallel.
+ * </p>
+ *
+ * @author Athensclub
+ *
+ */
+public final class AMatrix {
+
+    /**
+     * Side of the square blocks of the result that multiplication computes as one
+     * task
+     */
+    static final int BLOCK_SIZE = 32;
+
+    /**
+     * Number of multiply-adds from which multiplication runs in parallel
+     */
+    private static final long PARALLEL_THRESHOLD = 1 << 15;
+
+    private final ANumber[][] entries;
+
+    private final int rows, columns;
+
+    private AMatrix(ANumber[][] entries, int rows, int columns) {
+	this.entries = entries;
+	this.rows = rows;
+	this.columns = columns;
+    }
+
+    /**
+     * Create matrix with the given rows, which must all have the same length
+     *
+     * @param entries
+     * @return
+     */
+    public static AMatrix valueOf(ANumber[][] entries) {
+	int columns = entries.length == 0 ? 0 : entries[0].length;
+	ANumber[][] copy = new ANumber[entries.length][];
+	for (int i = 0; i < entries.length; i++) {
+	    if (entries[i].length != columns) {
+		throw new IllegalArgumentException("Row " + i + " has " + entries[i].length + " columns, expected "
+			+ columns);
+	    }
+	    for (ANumber entry : entries[i]) {
+		if (entry == null) {
+		    throw new NullPointerException("entry");
+		}
+	    }
+	    copy[i] = entries[i].clone();
+	}
+	return new AMatrix(copy, entries.length, columns);
+    }
+
+    /**
+     * Create column vector of the given numbers
+     *
+     * @param values
+     * @return
+     */
+    public static AMatrix column(ANumber... values) {
+	ANumber[][] entries = new ANumber[values.length][];
+	for (int i = 0; i < values.length; i++) {
+	    entries[i] = new ANumber[] { values[i] };
+	}
+	return valueOf(entries);
+    }
+
+    /**
+     * Create n x n identity matrix
+     *
+     * @param n
+     * @return
+     */
+    public static AMatrix identity(int n) {
+	ANumber[][] entries = new ANumber[n][n];
+	for (int i = 0; i < n; i++) {
+	    Arrays.fill(entries[i], ADecimal.ZERO);
+	    entries[i][i] = ADecimal.ONE;
+	}
+	return new AMatrix(entries, n, n);
+    }
+
+    public int getRows() {
+	return rows;
+    }
+
+    public int getColumns() {
+	return columns;
+    }
+
+    public boolean isSquare() {
+	return rows == columns;
+    }
+
+    public ANumber get(int row, int column) {
+	return entries[row][column];
+    }
+
+    /**
+     * Return copy of the entries as an array of rows
+     *
+     * @return
+     */
+    public ANumber[][] toArray() {
+	ANumber[][] result = new ANumber[rows][];
+	for (int i = 0; i < rows; i++) {
+	    result[i] = entries[i].clone();
+	}
+	return result;
+    }
+
+    public AMatrix add(AMatrix other) {
+	checkSameSize(other);
+	ANumber[][] result = new ANumber[rows][columns];
+	for (int i = 0; i < rows; i++) {
+	    for (int j = 0; j < columns; j++) {
+		result[i][j] = entries[i][j].add(other.entries[i][j]);
+	    }
+	}
+	return new AMatrix(result, rows, columns);
+    }
+
+    public AMatrix subtract(AMatrix other) {
+	checkSameSize(other);
+	ANumber[][] result = new ANumber[rows][columns];
+	for (int i = 0; i < rows; i++) {
+	    for (int j = 0; j < columns; j++) {
+		result[i][j] = entries[i][j].subtract(other.entries[i][j]);
+	    }
+	}
+	return new AMatrix(result, rows, columns);
+    }
+
+    private void checkSameSize(AMatrix other) {
+	if (rows != other.rows || columns != other.columns) {
+	    throw new IllegalArgumentException("Size mismatch: " + rows + "x" + columns + " and " + other.rows + "x"
+		    + other.columns);
+	}
+    }
+
+    /**
+     * Multiply every entry by the given number
+     *
+     * @param factor
+     * @return
+     */
+    public AMatrix multiply(ANumber factor) {
+	ANumber[][] result = new ANumber[rows][columns];
+	for (int i = 0; i < rows; i++) {
+	    for (int j = 0; j < columns; j++) {
+		result[i][j] = entries[i][j].multiply(factor);
+	    }
+	}
+	return new AMatrix(result, rows, columns);
+    }
+
+    /**
+     * Return the matrix product of this and the other matrix.The result is split
+     * into blocks of {@value #BLOCK_SIZE} x {@value #BLOCK_SIZE} entries, which are
+     * computed in parallel when the product is large.
+     *
+     * @param other
+     * @return
+     */
+    public AMatrix multiply(AMatrix other) {
+	if (columns != other.rows) {
+	    throw new IllegalArgumentException("Size mismatch: " + rows + "x" + columns + " and " + other.rows + "x"
+		    + other.columns);
+	}
+	ANumber[][] result = new ANumber[rows][other.columns];
+	ANumber[][] transposed = other.transpose().entries;
+	boolean decimal = isDecimal() && other.isDecimal();
+	boolean exact = decimal || isExact() && other.isExact();
+	int rowBlocks = (rows + BLOCK_SIZE - 1) / BLOCK_SIZE;
+	int columnBlocks = (other.columns + BLOCK_SIZE - 1) / BLOCK_SIZE;
+	IntStream blocks = IntStream.range(0, rowBlocks * columnBlocks);
+	if ((long) rows * columns * other.columns >= PARALLEL_THRESHOLD) {
+	    blocks = blocks.parallel();
+	}
+	blocks.forEach(block -> {
+	    AMutableDecimal decimalSum = decimal ? new AMutableDecimal() : null;
+	    AMutableComplex complexSum = exact && !decimal ? new AMutableComplex() : null;
+	    int rowStart = block / columnBlocks * BLOCK_SIZE, columnStart = block % columnBlocks * BLOCK_SIZE;
+	    int rowEnd = Math.min(rows, rowStart + BLOCK_SIZE), columnEnd = Math.min(other.columns,
+		    columnStart + BLOCK_SIZE);
+	    for (int i = rowStart; i < rowEnd; i++) {
+		ANumber[] row = entries[i];
+		for (int j = columnStart; j < columnEnd; j++) {
+		    ANumber[] column = transposed[j];
+		    if (decimalSum != null) {
+			decimalSum.set(ADecimal.ZERO);
+			for (int k = 0; k < row.length; k++) {
+			    decimalSum.fma((ADecimal) row[k], (ADecimal) column[k]);
+			}
+			result[i][j] = decimalSum.toImmutable();
+		    } else if (complexSum != null) {
+			complexSum.set(ADecimal.ZERO);
+			for (int k = 0; k < row.length; k++) {
+			    complexSum.fma(row[k], column[k]);
+			}
+			result[i][j] = complexSum.toImmutable();
+		    } else {
+			ANumber sum = ADecimal.ZERO;
+			for (int k = 0; k < row.length; k++) {
+			    sum = sum.add(row[k].multiply(column[k]));
+			}
+			result[i][j] = sum;
+		    }
+		}
+	    }
+	});
+	return new AMatrix(result, rows, other.columns);
+    }
+
+    private boolean isDecimal() {
+	for (ANumber[] row : entries) {
+	    for (ANumber entry : row) {
+		if (!(entry instanceof ADecimal)) {
+		    return false;
+		}
+	    }
+	}
+	return true;
+    }
+
+    private boolean isExact() {
+	for (ANumber[] row : entries) {
+	    for (ANumber entry : row) {
+		if (!AMutableComplex.accepts(entry)) {
+		    return false;
+		}
+	    }
+	}
+	return true;
+    }
+
+    public AMatrix transpose() {
+	ANumber[][] result = new ANumber[columns][rows];
+	for (int i = 0; i < rows; i++) {
+	    for (int j = 0; j < columns; j++) {
+		result[j][i] = entries[i][j];
+	    }
+	}
+	return new AMatrix(result, columns, rows);
+    }
+
+    /**
+     * Calculate the determinant of this square matrix exactly
+     *
+     * @return
+     */
+    public ANumber determinant() {
+	checkSquare();
+	if (rows == 0) {
+	    return ADecimal.ONE;
+	}
+	BigInteger[] scales = new BigInteger[rows];
+	BigInteger[][] m = integerRows(this, null, scales);
+	int swaps = eliminate(m, rows);
+	if (swaps < 0) {
+	    return ADecimal.ZERO;
+	}
+	// det(m) = det(this) * product of the row scales
+	BigInteger denominator = BigInteger.ONE;
+	for (BigInteger scale : scales) {
+	    denominator = denominator.multiply(scale);
+	}
+	BigInteger numerator = m[rows - 1][rows - 1];
+	return ratio((swaps & 1) == 0 ? numerator : numerator.negate(), denominator);
+    }
+
+    /**
+     * Calculate the rank of this matrix exactly
+     *
+     * @return
+     */
+    public int rank() {
+	BigInteger[][] m = integerRows(this, null, new BigInteger[rows]);
+	int rank = 0;
+	BigInteger previous = BigInteger.ONE;
+	for (int k = 0; k < columns && rank < rows; k++) {
+	    if (!pivot(m, rank, k)) {
+		continue;
+	    }
+	    step(m, rank, k, previous);
+	    previous = m[rank][k];
+	    rank++;
+	}
+	return rank;
+    }
+
+    /**
+     * Solve this * X = right exactly, where this is a square matrix
+     *
+     * @param right
+     * @return X, with the same number of columns as right
+     * @throws ArithmeticException if this matrix is singular
+     */
+    public AMatrix solve(AMatrix right) {
+	checkSquare();
+	if (right.rows != rows) {
+	    throw new IllegalArgumentException("Size mismatch: " + rows + "x" + columns + " and " + right.rows + "x"
+		    + right.columns);
+	}
+	int n = rows, width = right.columns;
+	if (n == 0) {
+	    return new AMatrix(new ANumber[0][width], 0, width);
+	}
+	BigInteger[][] m = integerRows(this, right, new BigInteger[n]);
+	if (eliminate(m, n) < 0) {
+	    throw new ArithmeticException("Singular matrix");
+	}
+	// back substitution on numerators over the common denominator d, where
+	// d * x[i] = (d * c[i] - sum m[i][j] * d * x[j]) / m[i][i] is an integer by
+	// Cramer's rule
+	BigInteger d = m[n - 1][n - 1];
+	ANumber[][] result = new ANumber[n][width];
+	BigInteger[] x = new BigInteger[n];
+	for (int c = 0; c < width; c++) {
+	    for (int i = n - 1; i >= 0; i--) {
+		BigInteger sum = d.multiply(m[i][n + c]);
+		for (int j = i + 1; j < n; j++) {
+		    sum = sum.subtract(m[i][j].multiply(x[j]));
+		}
+		x[i] = sum.divide(m[i][i]);
+		result[i][c] = ratio(x[i], d);
+	    }
+	}
+	return new AMatrix(result, n, width);
+    }
+
+    /**
+     * Solve this * x = right exactly, where this is a square matrix
+     *
+     * @param right
+     * @return x
+     * @throws ArithmeticException if this matrix is singular
+     */
+    public ANumber[] solve(ANumber... right) {
+	AMatrix x = solve(column(right));
+	ANumber[] result = new ANumber[rows];
+	for (int i = 0; i < rows; i++) {
+	    result[i] = x.entries[i][0];
+	}
+	return result;
+    }
+
+    /**
+     * Calculate the inverse of this square matrix exactly
+     *
+     * @return
+     * @throws ArithmeticException if this matrix is singular
+     */
+    public AMatrix inverse() {
+	return solve(identity(rows));
+    }
+
+    private void checkSquare() {
+	if (!isSquare()) {
+	    throw new IllegalArgumentException("Not a square matrix: " + rows + "x" + columns);
+	}
+    }
+
+    /**
+     * Run Bareiss elimination on the first n columns of the first n rows, leaving
+     * an upper triangular matrix whose last pivot is the determinant.
+     *
+     * @param m
+     * @param n
+     * @return number of row swaps, or -1 if the n x n part is singular
+     */
+    private static int eliminate(BigInteger[][] m, int n) {
+	int swaps = 0;
+	BigInteger previous = BigInteger.ONE;
+	for (int k = 0; k < n; k++) {
+	    if (m[k][k].signum() == 0) {
+		if (!pivot(m, k, k)) {
+		    return -1;
+		}
+		swaps++;
+	    }
+	    step(m, k, k, previous);
+	    previous = m[k][k];
+	}
+	return swaps;
+    }
+
+    /**
+     * Swap a row with non-zero entry in the given column into the given row, if
+     * needed
+     *
+     * @return whether there is such a row
+     */
+    private static boolean pivot(BigInteger[][] m, int row, int column) {
+	for (int i = row; i < m.length; i++) {
+	    if (m[i][column].signum() != 0) {
+		if (i != row) {
+		    BigInteger[] t = m[i];
+		    m[i] = m[row];
+		    m[row] = t;
+		}
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Eliminate the given column below the pivot at (row, column), dividing exactly
+     * by the previous pivot
+     */
+    private static void step(BigInteger[][] m, int row, int column, BigInteger previous) {
+	BigInteger pivot = m[row][column];
+	BigInteger[] top = m[row];
+	for (int i = row + 1; i < m.length; i++) {
+	    BigInteger[] r = m[i];
+	    BigInteger factor = r[column];
+	    for (int j = column + 1; j < r.length; j++) {
+		BigInteger value = r[j].multiply(pivot).subtract(factor.multiply(top[j]));
+		r[j] = previous.equals(BigInteger.ONE) ? value : value.divide(previous);
+	    }
+	    r[column] = BigInteger.ZERO;
+	}
+    }
+
+    /**
+     * Return the rows of [left | right] as integers, with each row multiplied by
+     * the least common multiple of its denominators, which is stored in scales.
+     *
+     * @param left
+     * @param right  may be null
+     * @param scales
+     * @return
+     */
+    private static BigInteger[][] integerRows(AMatrix left, AMatrix right, BigInteger[] scales) {
+	int width = left.columns + (right == null ? 0 : right.columns);
+	BigInteger[][] result = new BigInteger[left.rows][width];
+	BigInteger[] denominators = new BigInteger[width];
+	for (int i = 0; i < left.rows; i++) {
+	    BigInteger lcm = BigInteger.ONE;
+	    for (int j = 0; j < width; j++) {
+		ANumber entry = j < left.columns ? left.entries[i][j] : right.entries[i][j - left.columns];
+		BigInteger[] ratio = AFraction.integerRatio(real(entry));
+		result[i][j] = ratio[0];
+		denominators[j] = ratio[1];
+		if (!ratio[1].equals(BigInteger.ONE)) {
+		    lcm = lcm.divide(AFraction.gcd(lcm, ratio[1])).multiply(ratio[1]);
+		}
+	    }
+	    for (int j = 0; j < width; j++) {
+		if (!denominators[j].equals(lcm)) {
+		    result[i][j] = result[i][j].multiply(lcm.divide(denominators[j]));
+		}
+	    }
+	    scales[i] = lcm;
+	}
+	return result;
+    }
+
+    /**
+     * Return the decimal or fraction value of the entry
+     */
+    private static ANumber real(ANumber entry) {
+	if (entry instanceof AComplex) {
+	    AComplex c = (AComplex) entry;
+	    if (!c.getImaginary().isZero()) {
+		throw new IllegalArgumentException("Complex number: " + entry);
+	    }
+	    entry = c.getReal();
+	}
+	if (!(entry instanceof ADecimal || entry instanceof AFraction)) {
+	    throw new IllegalArgumentException("Not a decimal or fraction: " + entry);
+	}
+	return entry;
+    }
+
+    /**
+     * Return numerator/denominator in lowest terms, as ADecimal if it is an integer
+     */
+    private static ANumber ratio(BigInteger numerator, BigInteger denominator) {
+	if (denominator.signum() < 0) {
+	    numerator = numerator.negate();
+	    denominator = denominator.negate();
+	}
+	BigInteger gcd = AFraction.gcd(numerator, denominator);
+	if (!gcd.equals(BigInteger.ONE)) {
+	    numerator = numerator.divide(gcd);
+	    denominator = denominator.divide(gcd);
+	}
+	return denominator.equals(BigInteger.ONE) ? ANumberCache.decimal(numerator)
+		: AFraction.fromLowestTerms(numerator, denominator);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+	if (obj == this) {
+	    return true;
+	} else if (!(obj instanceof AMatrix)) {
+	    return false;
+	}
+	AMatrix other = (AMatrix) obj;
+	return rows == other.rows && columns == other.columns && Arrays.deepEquals(entries, other.entries);
+    }
+
+    @Override
+    public int hashCode() {
+	return Arrays.deepHashCode(entries);
+    }
+
+    @Override
+    public String toString() {
+	StringBuilder builder = new StringBuilder("[");
+	for (int i = 0; i < rows; i++) {
+	    if (i > 0) {
+		builder.append(", ");
+	    }
+	    builder.append(Arrays.toString(entries[i]));
+	}
+	return builder.append(']').toString();
+    }
+
+}
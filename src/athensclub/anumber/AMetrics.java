@@ -0,0 +1,296 @@
+package athensclub.anumber;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import athensclub.anumber.AFunctionCache.Function;
+
+/**
+ * Optional counters of what the library spends its time on: calculations of
+ * transcendental functions with their latency, precision and argument size,
+ * creation of fractions, and slower paths taken by arithmetic.
+ * 
+ * <p>
+ * Metrics are disabled by default, in which case every instrumented place only
+ * reads one volatile flag. {@link #enable()} starts recording and registers the
+ * metrics on the platform MBean server as {@value #OBJECT_NAME}. All counters
+ * are LongAdder, so recording from many threads does not contend.
+ * </p>
+ * 
+ * @author Athensclub
+ *
+ */
+public final class AMetrics implements AMetricsMXBean {
+
+    /**
+     * Slower paths that are counted
+     * 
+     * @author Athensclub
+     *
+     */
+    public enum Fallback {
+	/**
+	 * ADecimal arithmetic overflowed long and used BigDecimal
+	 */
+	DECIMAL_OVERFLOW,
+	/**
+	 * Decimal value of AFraction did not terminate and was rounded to the
+	 * precision of AMathContext
+	 */
+	FRACTION_ROUNDED,
+	/**
+	 * Comparison of lazy numbers needed higher precision
+	 */
+	PRECISION_RAISED,
+	/**
+	 * Comparison of lazy numbers reached the largest precision without deciding
+	 */
+	PRECISION_CAP
+    }
+
+    public static final String OBJECT_NAME = "athensclub.anumber:type=Metrics";
+
+    /**
+     * Number of buckets of latency histograms, enough for every long
+     */
+    private static final int BUCKETS = 64;
+
+    private static final AMetrics INSTANCE = new AMetrics();
+
+    static volatile boolean enabled;
+
+    private static boolean registered;
+
+    private final LongAdder[] counts = adders(Function.values().length);
+
+    private final LongAdder[] nanos = adders(Function.values().length);
+
+    private final LongAdder[][] latencies = new LongAdder[Function.values().length][];
+
+    private final ConcurrentMap<Integer, LongAdder> precisions = new ConcurrentHashMap<>();
+
+    private final LongAdder[] fallbacks = adders(Fallback.values().length);
+
+    private final LongAdder operandDigits = new LongAdder(), operands = new LongAdder();
+
+    private final LongAccumulator maxOperandDigits = new LongAccumulator(Math::max, 0);
+
+    private final LongAdder fractions = new LongAdder();
+
+    private final LongAccumulator maxDenominatorDigits = new LongAccumulator(Math::max, 0);
+
+    private AMetrics() {
+	for (int i = 0; i < latencies.length; i++) {
+	    latencies[i] = adders(BUCKETS);
+	}
+    }
+
+    private static LongAdder[] adders(int count) {
+	LongAdder[] result = new LongAdder[count];
+	for (int i = 0; i < count; i++) {
+	    result[i] = new LongAdder();
+	}
+	return result;
+    }
+
+    /**
+     * Return the metrics, which are recorded only while enabled
+     * 
+     * @return
+     */
+    public static AMetrics getInstance() {
+	return INSTANCE;
+    }
+
+    /**
+     * Start recording metrics, and register them on the platform MBean server if
+     * they are not registered yet.
+     * 
+     * @throws IllegalStateException if the registration fails
+     */
+    public static void enable() {
+	register();
+	enabled = true;
+    }
+
+    /**
+     * Stop recording metrics.The recorded values are kept.
+     */
+    public static void disable() {
+	enabled = false;
+    }
+
+    private static synchronized void register() {
+	if (registered) {
+	    return;
+	}
+	try {
+	    ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+	} catch (InstanceAlreadyExistsException e) {
+	    // registered by another class loader
+	} catch (JMException e) {
+	    throw new IllegalStateException("Register " + OBJECT_NAME, e);
+	}
+	registered = true;
+    }
+
+    /**
+     * Record a calculation of the function, called only while enabled
+     * 
+     * @param function
+     * @param x
+     * @param mc
+     * @param time     nanoseconds taken by the calculation
+     */
+    static void calculated(Function function, BigDecimal x, MathContext mc, long time) {
+	int i = function.ordinal();
+	INSTANCE.counts[i].increment();
+	INSTANCE.nanos[i].add(time);
+	INSTANCE.latencies[i][time <= 1 ? 0 : 63 - Long.numberOfLeadingZeros(time)].increment();
+	INSTANCE.precisions.computeIfAbsent(mc.getPrecision(), p -> new LongAdder()).increment();
+	long digits = x.precision();
+	INSTANCE.operandDigits.add(digits);
+	INSTANCE.operands.increment();
+	INSTANCE.maxOperandDigits.accumulate(digits);
+    }
+
+    /**
+     * Record that the slower path was taken, if enabled
+     * 
+     * @param fallback
+     */
+    static void fallback(Fallback fallback) {
+	if (enabled) {
+	    INSTANCE.fallbacks[fallback.ordinal()].increment();
+	}
+    }
+
+    /**
+     * Record creation of fraction with the given denominator, if enabled
+     * 
+     * @param denominator
+     */
+    static void fractionCreated(BigInteger denominator) {
+	if (enabled) {
+	    INSTANCE.fractions.increment();
+	    // log10(2) ~ 0.30103
+	    INSTANCE.maxDenominatorDigits.accumulate((long) (denominator.bitLength() * 0.30103) + 1);
+	}
+    }
+
+    @Override
+    public boolean isEnabled() {
+	return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+	if (enabled) {
+	    enable();
+	} else {
+	    disable();
+	}
+    }
+
+    @Override
+    public Map<String, Long> getCalculationCounts() {
+	return sums(counts, Function.values());
+    }
+
+    @Override
+    public Map<String, Long> getCalculationNanos() {
+	return sums(nanos, Function.values());
+    }
+
+    @Override
+    public long[] getLatencyHistogram(String function) {
+	LongAdder[] buckets = latencies[Function.valueOf(function).ordinal()];
+	long[] result = new long[BUCKETS];
+	for (int i = 0; i < BUCKETS; i++) {
+	    result[i] = buckets[i].sum();
+	}
+	return result;
+    }
+
+    @Override
+    public Map<String, Long> getPrecisionCounts() {
+	Map<String, Long> result = new TreeMap<>();
+	for (Map.Entry<Integer, LongAdder> e : precisions.entrySet()) {
+	    result.put(e.getKey().toString(), e.getValue().sum());
+	}
+	return result;
+    }
+
+    @Override
+    public Map<String, Long> getFallbackCounts() {
+	return sums(fallbacks, Fallback.values());
+    }
+
+    private static Map<String, Long> sums(LongAdder[] adders, Enum<?>[] names) {
+	Map<String, Long> result = new TreeMap<>();
+	for (int i = 0; i < adders.length; i++) {
+	    result.put(names[i].name(), adders[i].sum());
+	}
+	return result;
+    }
+
+    @Override
+    public double getAverageOperandDigits() {
+	long count = operands.sum();
+	return count == 0 ? 0 : (double) operandDigits.sum() / count;
+    }
+
+    @Override
+    public long getMaxOperandDigits() {
+	return maxOperandDigits.get();
+    }
+
+    @Override
+    public long getFractionsCreated() {
+	return fractions.sum();
+    }
+
+    @Override
+    public long getMaxDenominatorDigits() {
+	return maxDenominatorDigits.get();
+    }
+
+    @Override
+    public void reset() {
+	for (int i = 0; i < counts.length; i++) {
+	    counts[i].reset();
+	    nanos[i].reset();
+	    for (LongAdder bucket : latencies[i]) {
+		bucket.reset();
+	    }
+	}
+	precisions.clear();
+	for (LongAdder fallback : fallbacks) {
+	    fallback.reset();
+	}
+	operandDigits.reset();
+	operands.reset();
+	maxOperandDigits.reset();
+	fractions.reset();
+	maxDenominatorDigits.reset();
+    }
+
+    @Override
+    public String toString() {
+	return "AMetrics[enabled=" + enabled + ", calculations=" + getCalculationCounts() + ", fallbacks="
+		+ getFallbackCounts() + ", fractions=" + getFractionsCreated() + "]";
+    }
+
+}
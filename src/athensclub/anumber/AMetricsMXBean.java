@@ -0,0 +1,94 @@
+package athensclub.anumber;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link AMetrics}, registered on the platform MBean
+ * server as {@value AMetrics#OBJECT_NAME}.
+ * 
+ * @author Athensclub
+ *
+ */
+public interface AMetricsMXBean {
+
+    /**
+     * Return if metrics are being recorded
+     * 
+     * @return
+     */
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * Number of calculations of each function, such as EXP or SIN_COS. Results
+     * found in {@link AFunctionCache} are not counted.
+     * 
+     * @return
+     */
+    Map<String, Long> getCalculationCounts();
+
+    /**
+     * Total nanoseconds spent calculating each function
+     * 
+     * @return
+     */
+    Map<String, Long> getCalculationNanos();
+
+    /**
+     * Latency histogram of the function. Element i is the number of calculations
+     * that took from 2^i to 2^(i+1) - 1 nanoseconds.
+     * 
+     * @param function
+     * @return
+     */
+    long[] getLatencyHistogram(String function);
+
+    /**
+     * Number of function calculations at each precision
+     * 
+     * @return
+     */
+    Map<String, Long> getPrecisionCounts();
+
+    /**
+     * Number of times each slower path of {@link AMetrics.Fallback} was taken
+     * 
+     * @return
+     */
+    Map<String, Long> getFallbackCounts();
+
+    /**
+     * Average number of digits of the arguments of function calculations
+     * 
+     * @return
+     */
+    double getAverageOperandDigits();
+
+    /**
+     * Largest number of digits of an argument of function calculations
+     * 
+     * @return
+     */
+    long getMaxOperandDigits();
+
+    /**
+     * Number of AFraction created by arithmetic
+     * 
+     * @return
+     */
+    long getFractionsCreated();
+
+    /**
+     * Largest number of digits of a denominator of created AFraction
+     * 
+     * @return
+     */
+    long getMaxDenominatorDigits();
+
+    /**
+     * Set every metric back to zero
+     */
+    void reset();
+
+}
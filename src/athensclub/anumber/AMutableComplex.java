@@ -0,0 +1,219 @@
+package athensclub.anumber;
+
+/**
+ * A complex accumulator that changes its own value instead of creating a new
+ * number for every operation.
+ * 
+ * <p>
+ * Both parts are kept as {@link AMutableFraction}, so operations on parts that
+ * fit in a long do not allocate anything. Multiplication uses buffers owned by
+ * this accumulator for its intermediate products. Use {@link #toImmutable()}
+ * to get the value as a normal number.This class is not thread-safe.
+ * </p>
+ * 
+ * @author Athensclub
+ *
+ */
+public final class AMutableComplex {
+
+    private final AMutableFraction real = new AMutableFraction(), imaginary = new AMutableFraction();
+
+    /**
+     * Reusable buffers for intermediate values
+     */
+    private final AMutableFraction a = new AMutableFraction(), b = new AMutableFraction(),
+	    c = new AMutableFraction(), d = new AMutableFraction();
+
+    /**
+     * Create accumulator with value zero
+     */
+    public AMutableComplex() {
+    }
+
+    public AMutableComplex(ANumber value) {
+	set(value);
+    }
+
+    /**
+     * Set the value of this to the given number, whose parts must be decimals or
+     * fractions
+     * 
+     * @param value
+     * @return this
+     */
+    public AMutableComplex set(ANumber value) {
+	if (value instanceof AComplex) {
+	    AComplex v = (AComplex) value;
+	    real.set(v.getReal());
+	    imaginary.set(v.getImaginary());
+	} else {
+	    real.set(value);
+	    imaginary.set(0, 1);
+	}
+	return this;
+    }
+
+    public AMutableComplex set(AMutableComplex value) {
+	real.set(value.real);
+	imaginary.set(value.imaginary);
+	return this;
+    }
+
+    /**
+     * Add the given number to this
+     * 
+     * @param value
+     * @return this
+     */
+    public AMutableComplex addTo(ANumber value) {
+	if (value instanceof AComplex) {
+	    AComplex v = (AComplex) value;
+	    real.addTo(v.getReal());
+	    imaginary.addTo(v.getImaginary());
+	} else {
+	    real.addTo(value);
+	}
+	return this;
+    }
+
+    public AMutableComplex addTo(AMutableComplex value) {
+	real.addTo(value.real);
+	imaginary.addTo(value.imaginary);
+	return this;
+    }
+
+    /**
+     * Multiply this by the given number
+     * 
+     * @param value
+     * @return this
+     */
+    public AMutableComplex multiplyBy(ANumber value) {
+	if (value instanceof AComplex) {
+	    AComplex v = (AComplex) value;
+	    c.set(v.getReal());
+	    d.set(v.getImaginary());
+	    return multiplyBy(c, d);
+	}
+	real.multiplyBy(value);
+	imaginary.multiplyBy(value);
+	return this;
+    }
+
+    public AMutableComplex multiplyBy(AMutableComplex value) {
+	c.set(value.real);
+	d.set(value.imaginary);
+	return multiplyBy(c, d);
+    }
+
+    /**
+     * Multiply this by re + im*i.re and im are not changed, and must not be
+     * buffers a or b.
+     */
+    private AMutableComplex multiplyBy(AMutableFraction re, AMutableFraction im) {
+	// (x+yi)(re+im*i) = (x*re - y*im) + (x*im + y*re)i
+	a.set(real);
+	b.set(imaginary);
+	real.multiplyBy(re);
+	b.multiplyBy(im).negate();
+	real.addTo(b);
+	imaginary.multiplyBy(re);
+	a.multiplyBy(im);
+	imaginary.addTo(a);
+	return this;
+    }
+
+    /**
+     * Add x * y to this
+     * 
+     * @param x
+     * @param y
+     * @return this
+     */
+    public AMutableComplex fma(AMutableComplex x, AMutableComplex y) {
+	// (p+qi)(r+si) = (pr - qs) + (ps + qr)i, operands are copied first since x
+	// or y may be this
+	c.set(x.real);
+	d.set(x.imaginary);
+	a.set(y.real);
+	b.set(y.imaginary);
+	real.fma(c, a);
+	imaginary.fma(c, b);
+	imaginary.fma(d, a);
+	d.negate();
+	real.fma(d, b);
+	return this;
+    }
+
+    /**
+     * Add x * y to this
+     * 
+     * @param x
+     * @param y
+     * @return this
+     */
+    public AMutableComplex fma(ANumber x, ANumber y) {
+	c.set(x instanceof AComplex ? ((AComplex) x).getReal() : x);
+	d.set(x instanceof AComplex ? ((AComplex) x).getImaginary() : ADecimal.ZERO);
+	a.set(y instanceof AComplex ? ((AComplex) y).getReal() : y);
+	b.set(y instanceof AComplex ? ((AComplex) y).getImaginary() : ADecimal.ZERO);
+	real.fma(c, a);
+	imaginary.fma(c, b);
+	imaginary.fma(d, a);
+	d.negate();
+	real.fma(d, b);
+	return this;
+    }
+
+    /**
+     * Negate this
+     * 
+     * @return this
+     */
+    public AMutableComplex negate() {
+	real.negate();
+	imaginary.negate();
+	return this;
+    }
+
+    public boolean isZero() {
+	return real.isZero() && imaginary.isZero();
+    }
+
+    /**
+     * Return whether the number can be held by this accumulator: a decimal, a
+     * fraction or a complex number of them
+     * 
+     * @param value
+     * @return
+     */
+    static boolean accepts(ANumber value) {
+	if (value instanceof AComplex) {
+	    AComplex c = (AComplex) value;
+	    return isPart(c.getReal()) && isPart(c.getImaginary());
+	}
+	return isPart(value);
+    }
+
+    private static boolean isPart(ANumber value) {
+	return value instanceof ADecimal || value instanceof AFraction;
+    }
+
+    /**
+     * Return the current value, as a real number if the imaginary part is zero
+     * 
+     * @return
+     */
+    public ANumber toImmutable() {
+	if (imaginary.isZero()) {
+	    return real.toImmutable();
+	}
+	return new AComplex(real.toImmutable(), imaginary.toImmutable());
+    }
+
+    @Override
+    public String toString() {
+	return toImmutable().toString();
+    }
+
+}
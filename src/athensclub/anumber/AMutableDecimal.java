@@ -0,0 +1,227 @@
+package athensclub.anumber;
+
+import java.math.BigDecimal;
+
+/**
+ * A decimal accumulator that changes its own value instead of creating a new
+ * number for every operation.
+ * 
+ * <p>
+ * While the unscaled value fits in a long, additions and multiplications do not
+ * allocate anything, which makes it suitable for summing series and dot
+ * products in a loop. Results are exact and have the same scale as the
+ * corresponding ADecimal operations. Use {@link #toImmutable()} to get the
+ * value as a normal number.This class is not thread-safe.
+ * </p>
+ * 
+ * @author Athensclub
+ *
+ */
+public final class AMutableDecimal {
+
+    private long unscaled;
+
+    private int scale;
+
+    /**
+     * The value when it does not fit in unscaled and scale, null otherwise
+     */
+    private BigDecimal big;
+
+    /**
+     * Create accumulator with value zero
+     */
+    public AMutableDecimal() {
+    }
+
+    public AMutableDecimal(ADecimal value) {
+	set(value);
+    }
+
+    public AMutableDecimal set(ADecimal value) {
+	if (value.unscaledValue() != ADecimal.INFLATED) {
+	    unscaled = value.unscaledValue();
+	    scale = value.scale();
+	    big = null;
+	} else {
+	    big = value.bigDecimalValue();
+	}
+	return this;
+    }
+
+    /**
+     * Set the value to unscaled * 10^-scale
+     * 
+     * @param unscaled
+     * @param scale
+     * @return
+     */
+    public AMutableDecimal set(long unscaled, int scale) {
+	this.unscaled = unscaled;
+	this.scale = scale;
+	big = unscaled == ADecimal.INFLATED ? BigDecimal.valueOf(unscaled, scale) : null;
+	return this;
+    }
+
+    /**
+     * Add the given value to this
+     * 
+     * @param value
+     * @return this
+     */
+    public AMutableDecimal addTo(ADecimal value) {
+	if (value.unscaledValue() != ADecimal.INFLATED) {
+	    return addTo(value.unscaledValue(), value.scale());
+	}
+	return addBig(value.bigDecimalValue());
+    }
+
+    /**
+     * Add unscaled * 10^-scale to this
+     * 
+     * @param unscaled
+     * @param scale
+     * @return this
+     */
+    public AMutableDecimal addTo(long unscaled, int scale) {
+	if (big == null && unscaled != ADecimal.INFLATED) {
+	    try {
+		// same result and scale as BigDecimal.add
+		if (this.scale == scale) {
+		    return compact(Math.addExact(this.unscaled, unscaled), scale);
+		} else if (this.scale > scale) {
+		    return compact(Math.addExact(this.unscaled,
+			    ADecimal.multiplyPowerOfTen(unscaled, (long) this.scale - scale)), this.scale);
+		} else {
+		    return compact(Math.addExact(
+			    ADecimal.multiplyPowerOfTen(this.unscaled, (long) scale - this.scale), unscaled), scale);
+		}
+	    } catch (ArithmeticException e) {
+		// overflow, use BigDecimal
+	    }
+	}
+	return addBig(BigDecimal.valueOf(unscaled, scale));
+    }
+
+    public AMutableDecimal addTo(AMutableDecimal value) {
+	if (value.big == null) {
+	    return addTo(value.unscaled, value.scale);
+	}
+	return addBig(value.big);
+    }
+
+    /**
+     * Multiply this by the given value
+     * 
+     * @param value
+     * @return this
+     */
+    public AMutableDecimal multiplyBy(ADecimal value) {
+	if (value.unscaledValue() != ADecimal.INFLATED) {
+	    return multiplyBy(value.unscaledValue(), value.scale());
+	}
+	return big(bigDecimalValue().multiply(value.bigDecimalValue()));
+    }
+
+    /**
+     * Multiply this by unscaled * 10^-scale
+     * 
+     * @param unscaled
+     * @param scale
+     * @return this
+     */
+    public AMutableDecimal multiplyBy(long unscaled, int scale) {
+	long productScale = (long) this.scale + scale;
+	if (big == null && unscaled != ADecimal.INFLATED && productScale == (int) productScale) {
+	    try {
+		return compact(Math.multiplyExact(this.unscaled, unscaled), (int) productScale);
+	    } catch (ArithmeticException e) {
+		// overflow, use BigDecimal
+	    }
+	}
+	return big(bigDecimalValue().multiply(BigDecimal.valueOf(unscaled, scale)));
+    }
+
+    /**
+     * Add a * b to this, without creating the product
+     * 
+     * @param a
+     * @param b
+     * @return this
+     */
+    public AMutableDecimal fma(ADecimal a, ADecimal b) {
+	long x = a.unscaledValue(), y = b.unscaledValue();
+	long productScale = (long) a.scale() + b.scale();
+	if (x != ADecimal.INFLATED && y != ADecimal.INFLATED && productScale == (int) productScale) {
+	    try {
+		return addTo(Math.multiplyExact(x, y), (int) productScale);
+	    } catch (ArithmeticException e) {
+		// overflow, use BigDecimal
+	    }
+	}
+	return addBig(a.bigDecimalValue().multiply(b.bigDecimalValue()));
+    }
+
+    /**
+     * Negate this
+     * 
+     * @return this
+     */
+    public AMutableDecimal negate() {
+	if (big == null) {
+	    unscaled = -unscaled;
+	    return this;
+	}
+	return big(bigDecimalValue().negate());
+    }
+
+    public boolean isZero() {
+	return big == null ? unscaled == 0 : big.signum() == 0;
+    }
+
+    public BigDecimal bigDecimalValue() {
+	return big == null ? BigDecimal.valueOf(unscaled, scale) : big;
+    }
+
+    /**
+     * Return the current value as ADecimal
+     * 
+     * @return
+     */
+    public ADecimal toImmutable() {
+	return big == null ? ANumberCache.decimal(unscaled, scale) : ANumberCache.decimal(big);
+    }
+
+    private AMutableDecimal compact(long unscaled, int scale) {
+	if (unscaled == ADecimal.INFLATED) {
+	    return big(BigDecimal.valueOf(unscaled, scale));
+	}
+	this.unscaled = unscaled;
+	this.scale = scale;
+	return this;
+    }
+
+    private AMutableDecimal addBig(BigDecimal value) {
+	return big(bigDecimalValue().add(value));
+    }
+
+    /**
+     * Set the value, going back to unscaled and scale if it fits
+     */
+    private AMutableDecimal big(BigDecimal value) {
+	if (value.unscaledValue().bitLength() < 63) {
+	    unscaled = value.unscaledValue().longValue();
+	    scale = value.scale();
+	    big = null;
+	} else {
+	    big = value;
+	}
+	return this;
+    }
+
+    @Override
+    public String toString() {
+	return bigDecimalValue().toPlainString();
+    }
+
+}
@@ -0,0 +1,355 @@
+package athensclub.anumber;
+
+import java.math.BigInteger;
+
+/**
+ * A fraction accumulator that changes its own value instead of creating a new
+ * number for every operation.
+ * 
+ * <p>
+ * The value is kept in lowest terms with positive denominator. While the
+ * numerator and denominator fit in a long, operations do not allocate anything.
+ * Additions divide by the gcd of the denominators before multiplying, so the
+ * intermediate values stay as small as possible. Decimals are accepted as
+ * fractions with a power of ten denominator. Use {@link #toImmutable()} to get
+ * the value as a normal number.This class is not thread-safe.
+ * </p>
+ * 
+ * @author Athensclub
+ *
+ */
+public final class AMutableFraction {
+
+    private long numerator;
+
+    private long denominator = 1;
+
+    /**
+     * The value when it does not fit in longs, both null otherwise
+     */
+    private BigInteger bigNumerator, bigDenominator;
+
+    /**
+     * Create accumulator with value zero
+     */
+    public AMutableFraction() {
+    }
+
+    public AMutableFraction(ANumber value) {
+	set(value);
+    }
+
+    /**
+     * Set the value of this to the given decimal or fraction
+     * 
+     * @param value
+     * @return this
+     */
+    public AMutableFraction set(ANumber value) {
+	if (value instanceof ADecimal) {
+	    ADecimal d = (ADecimal) value;
+	    long u = d.unscaledValue();
+	    if (u != ADecimal.INFLATED && d.scale() >= 0 && d.scale() < ADecimal.LONG_TEN_POWERS.length) {
+		return set(u, ADecimal.LONG_TEN_POWERS[d.scale()]);
+	    }
+	}
+	BigInteger[] ratio = AFraction.integerRatio(real(value));
+	return set(ratio[0], ratio[1]);
+    }
+
+    /**
+     * Set the value of this to numerator/denominator
+     * 
+     * @param numerator
+     * @param denominator
+     * @return this
+     */
+    public AMutableFraction set(long numerator, long denominator) {
+	if (denominator == 0) {
+	    throw new ArithmeticException("Division by zero");
+	}
+	if (numerator == Long.MIN_VALUE || denominator == Long.MIN_VALUE) {
+	    return set(BigInteger.valueOf(numerator), BigInteger.valueOf(denominator));
+	}
+	if (denominator < 0) {
+	    numerator = -numerator;
+	    denominator = -denominator;
+	}
+	long gcd = AFraction.gcd(numerator, denominator);
+	this.numerator = numerator / gcd;
+	this.denominator = denominator / gcd;
+	bigNumerator = bigDenominator = null;
+	return this;
+    }
+
+    public AMutableFraction set(AMutableFraction value) {
+	numerator = value.numerator;
+	denominator = value.denominator;
+	bigNumerator = value.bigNumerator;
+	bigDenominator = value.bigDenominator;
+	return this;
+    }
+
+    private AMutableFraction set(BigInteger numerator, BigInteger denominator) {
+	if (denominator.signum() == 0) {
+	    throw new ArithmeticException("Division by zero");
+	}
+	if (denominator.signum() < 0) {
+	    numerator = numerator.negate();
+	    denominator = denominator.negate();
+	}
+	BigInteger gcd = AFraction.gcd(numerator, denominator);
+	if (!gcd.equals(BigInteger.ONE)) {
+	    numerator = numerator.divide(gcd);
+	    denominator = denominator.divide(gcd);
+	}
+	return reduced(numerator, denominator);
+    }
+
+    /**
+     * Set the value to the fraction already in lowest terms, using longs if it
+     * fits
+     */
+    private AMutableFraction reduced(BigInteger numerator, BigInteger denominator) {
+	if (numerator.bitLength() < 63 && denominator.bitLength() < 63) {
+	    this.numerator = numerator.longValue();
+	    this.denominator = denominator.longValue();
+	    bigNumerator = bigDenominator = null;
+	} else {
+	    bigNumerator = numerator;
+	    bigDenominator = denominator;
+	}
+	return this;
+    }
+
+    /**
+     * Add the given decimal or fraction to this
+     * 
+     * @param value
+     * @return this
+     */
+    public AMutableFraction addTo(ANumber value) {
+	if (value instanceof AFraction) {
+	    AFraction f = (AFraction) value;
+	    BigInteger n = f.numeratorValue(), d = f.denominatorValue();
+	    if (n.bitLength() < 63 && d.bitLength() < 63) {
+		return addTo(n.longValue(), d.longValue());
+	    }
+	    return addBig(n, d);
+	}
+	if (value instanceof ADecimal) {
+	    ADecimal d = (ADecimal) value;
+	    long u = d.unscaledValue();
+	    if (u != ADecimal.INFLATED && d.scale() >= 0 && d.scale() < ADecimal.LONG_TEN_POWERS.length) {
+		return addTo(u, ADecimal.LONG_TEN_POWERS[d.scale()]);
+	    }
+	}
+	BigInteger[] ratio = AFraction.integerRatio(real(value));
+	return addBig(ratio[0], ratio[1]);
+    }
+
+    public AMutableFraction addTo(AMutableFraction value) {
+	if (value.bigNumerator == null) {
+	    return addTo(value.numerator, value.denominator);
+	}
+	return addBig(value.bigNumerator, value.bigDenominator);
+    }
+
+    /**
+     * Add numerator/denominator, which must have positive denominator, to this
+     * 
+     * @param numerator
+     * @param denominator
+     * @return this
+     */
+    public AMutableFraction addTo(long numerator, long denominator) {
+	if (bigNumerator == null && denominator > 0 && numerator != Long.MIN_VALUE) {
+	    long r = AFraction.gcd(numerator, denominator);
+	    numerator /= r;
+	    denominator /= r;
+	    try {
+		// a/b + c/d = (a(d/g) + c(b/g)) / (b(d/g)) where g = gcd(b, d), then
+		// only g can have common factor with the numerator
+		long g = AFraction.gcd(this.denominator, denominator);
+		long n = Math.addExact(Math.multiplyExact(this.numerator, denominator / g),
+			Math.multiplyExact(numerator, this.denominator / g));
+		long d = Math.multiplyExact(this.denominator, denominator / g);
+		if (n != Long.MIN_VALUE) {
+		    long h = AFraction.gcd(n, g);
+		    this.numerator = n / h;
+		    this.denominator = d / h;
+		    return this;
+		}
+	    } catch (ArithmeticException e) {
+		// overflow, use BigInteger
+	    }
+	}
+	return addBig(BigInteger.valueOf(numerator), BigInteger.valueOf(denominator));
+    }
+
+    private AMutableFraction addBig(BigInteger n, BigInteger d) {
+	BigInteger b = denominatorValue();
+	return set(numeratorValue().multiply(d).add(n.multiply(b)), b.multiply(d));
+    }
+
+    /**
+     * Multiply this by the given decimal or fraction
+     * 
+     * @param value
+     * @return this
+     */
+    public AMutableFraction multiplyBy(ANumber value) {
+	if (value instanceof AFraction) {
+	    AFraction f = (AFraction) value;
+	    BigInteger n = f.numeratorValue(), d = f.denominatorValue();
+	    if (n.bitLength() < 63 && d.bitLength() < 63) {
+		return multiplyBy(n.longValue(), d.longValue());
+	    }
+	    return multiplyBig(n, d);
+	}
+	if (value instanceof ADecimal) {
+	    ADecimal d = (ADecimal) value;
+	    long u = d.unscaledValue();
+	    if (u != ADecimal.INFLATED && d.scale() >= 0 && d.scale() < ADecimal.LONG_TEN_POWERS.length) {
+		return multiplyBy(u, ADecimal.LONG_TEN_POWERS[d.scale()]);
+	    }
+	}
+	BigInteger[] ratio = AFraction.integerRatio(real(value));
+	return multiplyBig(ratio[0], ratio[1]);
+    }
+
+    public AMutableFraction multiplyBy(AMutableFraction value) {
+	if (value.bigNumerator == null) {
+	    return multiplyBy(value.numerator, value.denominator);
+	}
+	return multiplyBig(value.bigNumerator, value.bigDenominator);
+    }
+
+    /**
+     * Multiply this by numerator/denominator, which must have positive
+     * denominator
+     * 
+     * @param numerator
+     * @param denominator
+     * @return this
+     */
+    public AMutableFraction multiplyBy(long numerator, long denominator) {
+	if (bigNumerator == null && denominator > 0 && numerator != Long.MIN_VALUE) {
+	    long r = AFraction.gcd(numerator, denominator);
+	    numerator /= r;
+	    denominator /= r;
+	    try {
+		// cancel common factors across before multiplying, so the result is
+		// already in lowest terms
+		long g1 = AFraction.gcd(this.numerator, denominator);
+		long g2 = AFraction.gcd(numerator, this.denominator);
+		long n = Math.multiplyExact(this.numerator / g1, numerator / g2);
+		long d = Math.multiplyExact(this.denominator / g2, denominator / g1);
+		if (n != Long.MIN_VALUE) {
+		    this.numerator = n;
+		    this.denominator = n == 0 ? 1 : d;
+		    return this;
+		}
+	    } catch (ArithmeticException e) {
+		// overflow, use BigInteger
+	    }
+	}
+	return multiplyBig(BigInteger.valueOf(numerator), BigInteger.valueOf(denominator));
+    }
+
+    private AMutableFraction multiplyBig(BigInteger n, BigInteger d) {
+	return set(numeratorValue().multiply(n), denominatorValue().multiply(d));
+    }
+
+    /**
+     * Add a * b to this
+     * 
+     * @param a
+     * @param b
+     * @return this
+     */
+    public AMutableFraction fma(AMutableFraction a, AMutableFraction b) {
+	if (a.bigNumerator == null && b.bigNumerator == null) {
+	    long g1 = AFraction.gcd(a.numerator, b.denominator);
+	    long g2 = AFraction.gcd(b.numerator, a.denominator);
+	    try {
+		return addTo(Math.multiplyExact(a.numerator / g1, b.numerator / g2),
+			Math.multiplyExact(a.denominator / g2, b.denominator / g1));
+	    } catch (ArithmeticException e) {
+		// overflow, use BigInteger
+	    }
+	}
+	BigInteger n = a.numeratorValue().multiply(b.numeratorValue());
+	BigInteger d = a.denominatorValue().multiply(b.denominatorValue());
+	BigInteger gcd = AFraction.gcd(n, d);
+	if (gcd.signum() != 0 && !gcd.equals(BigInteger.ONE)) {
+	    n = n.divide(gcd);
+	    d = d.divide(gcd);
+	}
+	if (n.bitLength() < 63 && d.bitLength() < 63) {
+	    return addTo(n.longValue(), d.longValue());
+	}
+	return addBig(n, d);
+    }
+
+    /**
+     * Negate this
+     * 
+     * @return this
+     */
+    public AMutableFraction negate() {
+	if (bigNumerator == null) {
+	    numerator = -numerator;
+	} else {
+	    bigNumerator = bigNumerator.negate();
+	}
+	return this;
+    }
+
+    public boolean isZero() {
+	return bigNumerator == null ? numerator == 0 : bigNumerator.signum() == 0;
+    }
+
+    public BigInteger numeratorValue() {
+	return bigNumerator == null ? BigInteger.valueOf(numerator) : bigNumerator;
+    }
+
+    public BigInteger denominatorValue() {
+	return bigDenominator == null ? BigInteger.valueOf(denominator) : bigDenominator;
+    }
+
+    /**
+     * Return the current value as ADecimal if it is an integer, or AFraction
+     * otherwise.
+     * 
+     * @return
+     */
+    public ANumber toImmutable() {
+	if (bigNumerator == null) {
+	    return denominator == 1 ? ANumberCache.decimal(numerator)
+		    : ANumberCache.fraction(numerator, denominator);
+	}
+	return bigDenominator.equals(BigInteger.ONE) ? ANumberCache.decimal(bigNumerator)
+		: AFraction.fromLowestTerms(bigNumerator, bigDenominator);
+    }
+
+    /**
+     * Return the real part of complex number with no imaginary part
+     */
+    private static ANumber real(ANumber value) {
+	if (value instanceof AComplex) {
+	    AComplex c = (AComplex) value;
+	    if (!c.getImaginary().isZero()) {
+		throw new IllegalArgumentException("Complex number: " + value);
+	    }
+	    return c.getReal();
+	}
+	return value;
+    }
+
+    @Override
+    public String toString() {
+	return toImmutable().toString();
+    }
+
+}
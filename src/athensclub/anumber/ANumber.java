@@ -1,15 +1,23 @@
 package athensclub.anumber;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.math.MathContext;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import a10lib.compiler.provider.ComplexableNumberProvider;
 import a10lib.compiler.provider.DecimalNumberProvider;
 import a10lib.compiler.provider.FractionableNumberProvider;
-import a10lib.compiler.token.StringTokenizer;
-import a10lib.compiler.token.Token;
 import a10lib.math.Maths;
-import ch.obermuhlner.math.big.BigDecimalMath;
+import athensclub.anumber.AFunctionCache.Function;
 
 /**
  * A base class of all number in anumber package
@@ -28,41 +36,204 @@ public abstract class ANumber extends Number implements Comparable<ANumber> {
      */
     private static final long serialVersionUID = 4078167201408747426L;
 
-    private static final StringTokenizer tokenizer = new StringTokenizer("");
+    /**
+     * Integer exponents up to this in magnitude are calculated exactly by
+     * pow(ANumber), larger ones use the precision of {@link AMathContext}.
+     */
+    static final long MAX_EXACT_EXPONENT = 1 << 16;
 
-    static {
-	tokenizer.addProvider(ComplexableNumberProvider.INSTANCE);
-    }
+    /**
+     * Powers whose exact value is estimated to have more digits than this are
+     * calculated by pow(ANumber) with the precision of {@link AMathContext}, even
+     * if the exponent is small enough.
+     */
+    static final long MAX_EXACT_POWER_DIGITS = 100000;
+
+    private static final double LOG10_2 = Math.log10(2);
 
-    private BigDecimal value;
+    /**
+     * Extra digits of inexact function arguments, see
+     * {@link #argumentValue(MathContext)}
+     */
+    static final int GUARD_DIGITS = 4;
 
-    private boolean even;
+    private volatile BigDecimal value;
 
-    private boolean initEven;
+    /**
+     * 0 if parity is not calculated yet, otherwise 1 for even and 2 for odd. A
+     * single field, so another thread never sees a half written cache.
+     */
+    private byte parity;
 
     /**
      * Create racket number according to its string(any CharSequence)
-     * representation.Number string rules can be found at
-     * {@link a10lib.compiler.Regex} for pattern of numbers.This support all number
-     * in that class.
+     * representation.Number string rules can be found at {@link ANumberScanner}.
+     * This method is safe to be called from multiple threads.
      * 
      * @param str
      * @return
      */
     public static ANumber valueOf(String str) {
-	tokenizer.reset(str);
+	return ANumberScanner.parse(str);
+    }
+
+    /**
+     * Return integer with the given value. Small integers are cached, so this
+     * method may return the same instance for the same value.
+     * 
+     * @param value
+     * @return
+     */
+    public static ADecimal valueOf(long value) {
+	return ANumberCache.decimal(value);
+    }
+
+    /**
+     * Return fraction numerator/denominator in lowest terms, or an integer if the
+     * denominator divides the numerator. Common fractions (between -1 and 1 with
+     * small denominator) and small integers are cached, so this method may return
+     * the same instance for the same value.
+     * 
+     * @param numerator
+     * @param denominator
+     * @return
+     */
+    public static ANumber valueOf(long numerator, long denominator) {
+	if (denominator == 0) {
+	    throw new ArithmeticException("Division by zero: " + numerator + "/" + denominator);
+	}
+	if (numerator == Long.MIN_VALUE || denominator == Long.MIN_VALUE) {
+	    AFraction fraction = new AFraction(BigInteger.valueOf(numerator), BigInteger.valueOf(denominator));
+	    return fraction.getDenominator().equals(ADecimal.ONE) ? fraction.getNumerator() : fraction;
+	}
+	long gcd = AFraction.gcd(numerator, denominator);
+	numerator /= gcd;
+	denominator /= gcd;
+	if (denominator < 0) {
+	    numerator = -numerator;
+	    denominator = -denominator;
+	}
+	if (denominator == 1) {
+	    return ANumberCache.decimal(numerator);
+	}
+	return ANumberCache.fraction(numerator, denominator);
+    }
+
+    /**
+     * Parse all number literals of the given file. The file is memory mapped and
+     * the returned stream can be made parallel, in which case the file is split
+     * at separators between literals.Rules of literals and separators can be found
+     * at {@link ANumberScanner}.
+     * 
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static Stream<ANumber> parseAll(Path file) throws IOException {
+	FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+	long size = channel.size();
+	if (size > Integer.MAX_VALUE) {
+	    // too large for a single mapping, read it by chunks instead
+	    return parseAll(channel).onClose(() -> {
+		try {
+		    channel.close();
+		} catch (IOException e) {
+		    throw new UncheckedIOException(e);
+		}
+	    });
+	}
 	try {
-	    Token token = tokenizer.nextToken();
-	    if (tokenizer.nextToken() != null) {
-		throw new NumberFormatException(str);
-	    }
-	    if (token instanceof ComplexableNumberProvider.Token) {
-		return valueOf((ComplexableNumberProvider.Token) token);
-	    }
-	} catch (Exception e) {
-	    e.printStackTrace();
+	    // the mapping stays valid after the channel is closed
+	    return parseAll(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+	} finally {
+	    channel.close();
+	}
+    }
+
+    /**
+     * Parse all number literals read from the given channel. The channel is read
+     * by chunks as the stream is consumed, and it is not closed by the stream.
+     * 
+     * @param channel
+     * @return
+     */
+    public static Stream<ANumber> parseAll(ReadableByteChannel channel) {
+	return StreamSupport.stream(new ChannelNumberSpliterator(channel), false);
+    }
+
+    /**
+     * Parse all number literals between the position and the limit of the given
+     * buffer, without changing the buffer position. The returned stream can be
+     * made parallel, in which case the buffer is split at separators between
+     * literals.
+     * 
+     * @param buffer
+     * @return
+     */
+    public static Stream<ANumber> parseAll(ByteBuffer buffer) {
+	return StreamSupport.stream(new BufferNumberSpliterator(buffer, buffer.position(), buffer.limit()), false);
+    }
+
+    /**
+     * Read a number written by {@link #writeTo(ByteBuffer)} from the position of
+     * the buffer, and move the position after it.
+     * 
+     * @param buffer
+     * @return
+     * @throws IllegalArgumentException         if the data is not a valid number
+     * @throws java.nio.BufferUnderflowException if the data ends before the number
+     */
+    public static ANumber readFrom(ByteBuffer buffer) {
+	return ANumberCodec.read(buffer);
+    }
+
+    /**
+     * Write the count of the numbers, followed by the numbers, in the format of
+     * {@link #writeTo(ByteBuffer)}.
+     * 
+     * @param numbers
+     * @param buffer
+     * @throws java.nio.BufferOverflowException if there is not enough space
+     */
+    public static void writeAll(ANumber[] numbers, ByteBuffer buffer) {
+	ANumberCodec.writeVarint(numbers.length, buffer);
+	for (ANumber number : numbers) {
+	    ANumberCodec.write(number, buffer);
+	}
+    }
+
+    /**
+     * Return the number of bytes {@link #writeAll(ANumber[], ByteBuffer)} writes
+     * for the numbers
+     * 
+     * @param numbers
+     * @return
+     */
+    public static int encodedSize(ANumber[] numbers) {
+	int result = ANumberCodec.varintSize(numbers.length);
+	for (ANumber number : numbers) {
+	    result += ANumberCodec.size(number);
+	}
+	return result;
+    }
+
+    /**
+     * Read numbers written by {@link #writeAll(ANumber[], ByteBuffer)}
+     * 
+     * @param buffer
+     * @return
+     */
+    public static ANumber[] readAll(ByteBuffer buffer) {
+	long count = ANumberCodec.readVarint(buffer);
+	// every number takes at least 2 bytes
+	if (count < 0 || count > buffer.remaining() / 2) {
+	    throw new IllegalArgumentException("Invalid count: " + count);
+	}
+	ANumber[] result = new ANumber[(int) count];
+	for (int i = 0; i < result.length; i++) {
+	    result[i] = ANumberCodec.read(buffer);
 	}
-	throw new NumberFormatException(str);
+	return result;
     }
 
     /**
@@ -98,7 +269,39 @@ public abstract class ANumber extends Number implements Comparable<ANumber> {
      * @return
      */
     public static ADecimal valueOf(DecimalNumberProvider.Token token) {
-	return new ADecimal(token.getString());
+	return ANumberCache.decimal(new BigDecimal(token.getString()));
+    }
+
+    /**
+     * Write this number at the position of the buffer in compact binary format,
+     * which is tagged by type and stores integers as variable length. The format
+     * is described in {@link ANumberCodec}.
+     * 
+     * @param buffer
+     * @throws java.nio.BufferOverflowException if there is not enough space
+     */
+    public void writeTo(ByteBuffer buffer) {
+	ANumberCodec.write(this, buffer);
+    }
+
+    /**
+     * Return the number of bytes {@link #writeTo(ByteBuffer)} writes for this
+     * number
+     * 
+     * @return
+     */
+    public int encodedSize() {
+	return ANumberCodec.size(this);
+    }
+
+    /**
+     * Serialize numbers in the format of {@link #writeTo(ByteBuffer)} instead of
+     * their fields
+     * 
+     * @return
+     */
+    protected Object writeReplace() {
+	return new ANumberCodec.SerializationProxy(this);
     }
 
     /**
@@ -108,10 +311,10 @@ public abstract class ANumber extends Number implements Comparable<ANumber> {
      * @return
      */
     public boolean isEven() {
-	if (!initEven) {
-	    even = remainder(ADecimal.TWO).equals(ADecimal.ZERO);
+	if (parity == 0) {
+	    parity = remainder(ADecimal.TWO).isZero() ? (byte) 1 : (byte) 2;
 	}
-	return even;
+	return parity == 1;
     }
 
     /**
@@ -133,32 +336,24 @@ public abstract class ANumber extends Number implements Comparable<ANumber> {
      */
     public ADecimal remainder(ANumber other) {
 	if (isInteger() && other.isInteger()) {
-	    ANumber fraction = divide(other);
-	    if (fraction instanceof AFraction) {
-		return ((AFraction) fraction).remainder();
-	    } else if (fraction instanceof AComplex) {
-		AComplex com = (AComplex) fraction;
-		if (com.getImaginary().isZero()) {
-		    fraction = com.getReal();
-		    if (fraction instanceof AFraction) {
-			return ((AFraction) fraction).remainder();
-		    } else if (fraction.isInteger()) {
-			return ADecimal.ZERO;
-		    } else {
-			throw new IllegalArgumentException("Unable to find remainder of complex number: " + com);
-		    }
-		} else {
-		    throw new IllegalArgumentException(
-			    "Calculate remainder from dividing complex number: " + this + "/" + other);
-		}
-	    } else if (fraction.isInteger()) {
-		return ADecimal.ZERO;
-	    }
+	    // taken directly rather than from divide(other), since the quotient
+	    // fraction is reduced to lowest terms (6/4 becomes 3/2)
+	    return ANumberCache.decimal(bigDecimalValue().remainder(other.bigDecimalValue()).abs());
 	}
 	throw new IllegalArgumentException(
 		"Calculate remainder from division of non integer value: " + this + "/" + other);
     }
 
+    /**
+     * Return lazy version of this number, whose operations build an expression
+     * that is evaluated only when its value is needed.
+     * 
+     * @return
+     */
+    public ALazyNumber lazy() {
+	return new ALazyNumber(AExpression.constant(this));
+    }
+
     /**
      * Return natural log of this number
      * 
@@ -167,7 +362,8 @@ public abstract class ANumber extends Number implements Comparable<ANumber> {
     public abstract ANumber ln();
     
     public ANumber tanh() {
-	return new ADecimal(BigDecimalMath.tanh(bigDecimalValue(), MathContext.DECIMAL128));
+	MathContext mc = AMathContext.get();
+	return new ADecimal(AFunctionCache.apply(Function.TANH, argumentValue(mc), mc));
     }
     
     /**
@@ -175,7 +371,8 @@ public abstract class ANumber extends Number implements Comparable<ANumber> {
      * @return
      */
     public ANumber cosh() {
-	return new ADecimal(BigDecimalMath.cosh(bigDecimalValue(), MathContext.DECIMAL128));
+	MathContext mc = AMathContext.get();
+	return new ADecimal(AFunctionCache.apply(Function.COSH, argumentValue(mc), mc));
     }
 
     /**
@@ -183,7 +380,8 @@ public abstract class ANumber extends Number implements Comparable<ANumber> {
      * @return
      */
     public ANumber sinh() {
-	return new ADecimal(BigDecimalMath.sinh(bigDecimalValue(), MathContext.DECIMAL128));
+	MathContext mc = AMathContext.get();
+	return new ADecimal(AFunctionCache.apply(Function.SINH, argumentValue(mc), mc));
     }
 
     /**
@@ -192,7 +390,8 @@ public abstract class ANumber extends Number implements Comparable<ANumber> {
      * @return
      */
     public ANumber cos() {
-	return new ADecimal(BigDecimalMath.cos(bigDecimalValue(), MathContext.DECIMAL128));
+	MathContext mc = AMathContext.get();
+	return new ADecimal(AFunctionCache.apply(Function.COS, argumentValue(mc), mc));
     }
     
     /**
@@ -201,7 +400,8 @@ public abstract class ANumber extends Number implements Comparable<ANumber> {
      * @return
      */
     public ANumber sin() {
-	return new ADecimal(BigDecimalMath.sin(bigDecimalValue(), MathContext.DECIMAL128));
+	MathContext mc = AMathContext.get();
+	return new ADecimal(AFunctionCache.apply(Function.SIN, argumentValue(mc), mc));
     }
 
     /**
@@ -210,7 +410,32 @@ public abstract class ANumber extends Number implements Comparable<ANumber> {
      * @return
      */
     public ANumber tan() {
-	return new ADecimal(BigDecimalMath.tan(bigDecimalValue(), MathContext.DECIMAL128));
+	MathContext mc = AMathContext.get();
+	return new ADecimal(AFunctionCache.apply(Function.TAN, argumentValue(mc), mc));
+    }
+
+    /**
+     * Return {sin, cos} of this number in radians. Both are calculated together,
+     * which is faster than calling sin() and cos() separately.
+     * 
+     * @return
+     */
+    public ANumber[] sinCos() {
+	MathContext mc = AMathContext.get();
+	BigDecimal[] result = AFunctionCache.applyPair(Function.SIN_COS, argumentValue(mc), mc);
+	return new ANumber[] { new ADecimal(result[0]), new ADecimal(result[1]) };
+    }
+
+    /**
+     * Return {sinh, cosh} of this number. Both are calculated together from a
+     * single exp, which is faster than calling sinh() and cosh() separately.
+     * 
+     * @return
+     */
+    public ANumber[] sinhCosh() {
+	MathContext mc = AMathContext.get();
+	BigDecimal[] result = AFunctionCache.applyPair(Function.SINH_COSH, argumentValue(mc), mc);
+	return new ANumber[] { new ADecimal(result[0]), new ADecimal(result[1]) };
     }
 
     /**
@@ -311,6 +536,82 @@ public abstract class ANumber extends Number implements Comparable<ANumber> {
      */
     public abstract ANumber pow(ANumber other);
 
+    /**
+     * Raise this number by the integer exponent exactly, using repeated squaring.
+     * 
+     * @param exponent
+     * @return
+     */
+    public ANumber pow(long exponent) {
+	if (exponent < 0) {
+	    // x^-n = 1/(x^(n-1) * x), which also works for Long.MIN_VALUE
+	    return pow(-(exponent + 1)).multiply(this).reciprocal();
+	}
+	ANumber result = null;
+	ANumber base = this;
+	while (true) {
+	    if ((exponent & 1) != 0) {
+		result = result == null ? base : result.multiply(base);
+	    }
+	    exponent >>>= 1;
+	    if (exponent == 0) {
+		break;
+	    }
+	    base = base.multiply(base);
+	}
+	return result == null ? ADecimal.ONE : result;
+    }
+
+    /**
+     * Return whether pow(ANumber) should use the exact {@link #pow(long)} for the
+     * given exponent, which is when it is a real integer not larger than
+     * {@link #MAX_EXACT_EXPONENT} in magnitude, and the exact power of this is
+     * estimated to have at most {@link #MAX_EXACT_POWER_DIGITS} digits.
+     * 
+     * @param exponent
+     * @return
+     */
+    boolean isExactExponent(ANumber exponent) {
+	if (exponent instanceof AComplex) {
+	    AComplex e = (AComplex) exponent;
+	    if (!e.getImaginary().isZero()) {
+		return false;
+	    }
+	    exponent = e.getReal();
+	}
+	if (!(exponent instanceof ADecimal || exponent instanceof AFraction) || !exponent.isInteger()) {
+	    return false;
+	}
+	BigDecimal value = exponent.bigDecimalValue().abs();
+	return value.compareTo(BigDecimal.valueOf(MAX_EXACT_EXPONENT)) <= 0
+		&& powerDigits(value.longValue()) <= MAX_EXACT_POWER_DIGITS;
+    }
+
+    /**
+     * Estimate the number of digits of the numerator and denominator of the exact
+     * value of this^exponent, from the bit lengths of the numerator and
+     * denominator of a fraction, or from the unscaled value and the scale of a
+     * decimal (eg. 1.0000001 has 8 digits and scale 7), without calculating the
+     * decimal as a ratio of integers.
+     * 
+     * @param exponent
+     * @return
+     */
+    private long powerDigits(long exponent) {
+	double digits;
+	if (this instanceof AComplex) {
+	    AComplex c = (AComplex) this;
+	    return Math.max(c.getReal().powerDigits(exponent), c.getImaginary().powerDigits(exponent));
+	} else if (this instanceof AFraction) {
+	    AFraction f = (AFraction) this;
+	    digits = (f.numeratorValue().bitLength() + f.denominatorValue().bitLength()) * LOG10_2;
+	} else {
+	    BigDecimal value = bigDecimalValue().stripTrailingZeros();
+	    digits = value.unscaledValue().bitLength() * LOG10_2 + Math.abs((long) value.scale());
+	}
+	return (long) Math.ceil(digits * exponent);
+    }
+
     /**
      * Return the square root of this number
      * 
@@ -330,33 +631,77 @@ public abstract class ANumber extends Number implements Comparable<ANumber> {
     }
 
     public boolean isInteger() {
-	bigDecimalValue();
+	BigDecimal value = bigDecimalValue();
 	return value.signum() == 0 || value.scale() <= 0 || value.stripTrailingZeros().scale() <= 0;
     }
 
     /**
-     * Calculate the approximate big decimal value of this number.the value will
-     * then be cached by ANumber for later bigDecimalValue() uses.
+     * Calculate the approximate big decimal value of this number, using the
+     * precision of {@link AMathContext} if it can not be calculated exactly.the
+     * value will then be cached by ANumber for later bigDecimalValue() uses, if
+     * {@link #isBigDecimalValueExact()} is true.
      * 
      * @return
      */
     protected abstract BigDecimal calculateBigDecimalValue();
 
+    /**
+     * Return whether {@link #calculateBigDecimalValue()} returns the exact value
+     * of this number.Only exact values are cached, since an inexact one depends on
+     * the {@link AMathContext} of the caller, and numbers such as the shared
+     * instances of {@link ANumberCache} are used by every thread and scope.
+     * 
+     * @return
+     */
+    protected boolean isBigDecimalValueExact() {
+	return true;
+    }
+
     /**
      * Return BigDecimal value that is or approximately equal to this number.
      * 
      * <p>
-     * This method will store the cache of BIgDecimal value of this number.Users
-     * should be able to use method multiple times without performance drops.
+     * This method will store the cache of BIgDecimal value of this number if it
+     * is exact.Users should be able to use method multiple times without
+     * performance drops.
      * </p>
      * 
      * @return
      */
     public BigDecimal bigDecimalValue() {
-	if (value == null) {
-	    value = calculateBigDecimalValue();
+	BigDecimal v = value;
+	if (v == null) {
+	    v = calculateBigDecimalValue();
+	    if (isBigDecimalValueExact()) {
+		value = v;
+	    }
+	}
+	return v;
+    }
+
+    /**
+     * Return BigDecimal value of this number rounded by the given context.
+     * 
+     * @param mc
+     * @return
+     */
+    public BigDecimal bigDecimalValue(MathContext mc) {
+	return bigDecimalValue().round(mc);
+    }
+
+    /**
+     * Return the value of this number as argument of a function calculated with
+     * the given context: the exact value if there is one, otherwise the value with
+     * {@value #GUARD_DIGITS} more digits than the context.
+     * 
+     * @param mc
+     * @return
+     */
+    BigDecimal argumentValue(MathContext mc) {
+	if (isBigDecimalValueExact() || mc.getPrecision() == 0) {
+	    return bigDecimalValue();
 	}
-	return value;
+	return bigDecimalValue(new MathContext(mc.getPrecision() + GUARD_DIGITS, mc.getRoundingMode()));
     }
 
     @Override
@@ -386,7 +731,11 @@ public abstract class ANumber extends Number implements Comparable<ANumber> {
 
     @Override
     public boolean equals(Object obj) {
-	if (obj instanceof ANumber) {
+	if (obj instanceof AComplex || obj instanceof ALazyNumber) {
+	    // complex number can not be ordered, it compares its parts instead.Lazy
+	    // number is only equal to lazy number of the same expression
+	    return obj.equals(this);
+	} else if (obj instanceof ANumber) {
 	    return compareTo((ANumber) obj) == 0;
 	} else if (obj instanceof Number) {
 	    return doubleValue() == ((Number) obj).doubleValue();
@@ -394,6 +743,86 @@ public abstract class ANumber extends Number implements Comparable<ANumber> {
 	return false;
     }
 
+    /**
+     * Return hash code of the value of this number, so numbers that are equal have
+     * the same hash code regardless of their type or scale (eg. 0.5, 1/2 and
+     * 0.50+0i).
+     */
+    @Override
+    public int hashCode() {
+	return hashCode(bigDecimalValue());
+    }
+
+    /**
+     * Hash code of the exact value of the decimal.The value u * 10^-s, where u has
+     * no trailing zeros, is hashed as the fraction n / (2^twos * 5^fives) in lowest
+     * terms, which only needs the powers of 2 and 5 that divide u, so 10^s is never
+     * calculated (eg. for 1E-100000000).Agrees with
+     * {@link #hashCode(long, int, int)} for numerators that fit in a long.
+     * 
+     * @param value
+     * @return
+     */
+    static int hashCode(BigDecimal value) {
+	if (value.signum() == 0) {
+	    return hashCode(0, 0, 0);
+	}
+	value = value.stripTrailingZeros();
+	BigInteger n = value.unscaledValue();
+	int s = value.scale();
+	if (s <= 0) {
+	    return hashCode(n, s, s);
+	}
+	int twos = Math.min(n.getLowestSetBit(), s), fives = 0;
+	n = n.shiftRight(twos);
+	if (twos == 0) {
+	    // n has no trailing zeros, so only one of 2 and 5 can divide it
+	    BigInteger five = BigInteger.valueOf(5);
+	    while (fives < s) {
+		BigInteger[] qr = n.divideAndRemainder(five);
+		if (qr[1].signum() != 0) {
+		    break;
+		}
+		n = qr[0];
+		fives++;
+	    }
+	}
+	return hashCode(n, s - twos, s - fives);
+    }
+
+    /**
+     * Hash code of numerator / (2^twos * 5^fives) in lowest terms, where negative
+     * powers multiply the numerator.
+     * 
+     * @param numerator
+     * @param twos
+     * @param fives
+     * @return
+     */
+    static int hashCode(long numerator, int twos, int fives) {
+	return 31 * (31 * Long.hashCode(numerator) + twos) + fives;
+    }
+
+    private static int hashCode(BigInteger numerator, int twos, int fives) {
+	return 31 * (31 * hashCode(numerator) + twos) + fives;
+    }
+
+    /**
+     * Hash code of the fraction numerator/denominator in lowest terms with positive
+     * denominator, whose decimal expansion does not terminate.
+     * 
+     * @param numerator
+     * @param denominator
+     * @return
+     */
+    static int hashCode(BigInteger numerator, BigInteger denominator) {
+	return 31 * hashCode(numerator) + hashCode(denominator);
+    }
+
+    private static int hashCode(BigInteger value) {
+	return value.bitLength() < 64 ? Long.hashCode(value.longValue()) : value.hashCode();
+    }
+
     @Override
     public int compareTo(ANumber o) {
 	ANumber sub = subtract(o);
@@ -0,0 +1,154 @@
+package athensclub.anumber;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Preallocated instances of small integers and common fractions, shared the
+ * same way as Integer.valueOf shares small Integer.Every decimal with scale 0
+ * returned by this class is an {@link AInteger}.
+ * 
+ * <p>
+ * The instances are created on first use, not in static initializer of
+ * ADecimal or AFraction, so their constants (such as ADecimal.ZERO) are the
+ * same instances as the cached ones.
+ * </p>
+ * 
+ * @author Athensclub
+ *
+ */
+final class ANumberCache {
+
+    /**
+     * Smallest cached integer
+     */
+    static final int LOW = -128;
+
+    /**
+     * Largest cached integer
+     */
+    static final int HIGH = 1024;
+
+    /**
+     * Largest denominator of cached fractions. Every fraction in lowest terms
+     * between -1 and 1 with denominator up to this is cached.
+     */
+    static final int MAX_DENOMINATOR = 16;
+
+    private ANumberCache() {
+    }
+
+    /**
+     * Return integer with the given value
+     * 
+     * @param value
+     * @return
+     */
+    static ADecimal decimal(long value) {
+	if (value >= LOW && value <= HIGH) {
+	    return Decimals.VALUES[(int) value - LOW];
+	}
+	return new AInteger(value);
+    }
+
+    /**
+     * Return decimal with value unscaled * 10^-scale, sharing instances of small
+     * integers with scale 0.
+     * 
+     * @param unscaled
+     * @param scale
+     * @return
+     */
+    static ADecimal decimal(long unscaled, int scale) {
+	if (scale == 0 && unscaled >= LOW && unscaled <= HIGH) {
+	    return Decimals.VALUES[(int) unscaled - LOW];
+	}
+	return scale == 0 ? new AInteger(unscaled) : new ADecimal(unscaled, scale);
+    }
+
+    /**
+     * Return integer with the given value
+     * 
+     * @param value
+     * @return
+     */
+    static ADecimal decimal(BigInteger value) {
+	if (value.bitLength() < 64) {
+	    return decimal(value.longValue());
+	}
+	return new AInteger(value);
+    }
+
+    /**
+     * Return decimal with the given value, sharing instances of small integers
+     * with scale 0.
+     * 
+     * @param value
+     * @return
+     */
+    static ADecimal decimal(BigDecimal value) {
+	if (value.scale() == 0 && value.compareTo(Decimals.LOW_VALUE) >= 0
+		&& value.compareTo(Decimals.HIGH_VALUE) <= 0) {
+	    return Decimals.VALUES[value.intValue() - LOW];
+	}
+	return value.scale() == 0 ? decimal(value.unscaledValue()) : new ADecimal(value);
+    }
+
+    /**
+     * Return fraction numerator/denominator, which must be in lowest terms with
+     * positive denominator.
+     * 
+     * @param numerator
+     * @param denominator
+     * @return
+     */
+    static AFraction fraction(long numerator, long denominator) {
+	if (denominator > 1 && denominator <= MAX_DENOMINATOR && numerator > -denominator
+		&& numerator < denominator) {
+	    return Fractions.VALUES[(int) denominator][(int) (numerator + denominator)];
+	}
+	return new AFraction(BigInteger.valueOf(numerator), BigInteger.valueOf(denominator));
+    }
+
+    private static final class Decimals {
+
+	private static final BigDecimal LOW_VALUE = BigDecimal.valueOf(LOW);
+
+	private static final BigDecimal HIGH_VALUE = BigDecimal.valueOf(HIGH);
+
+	private static final ADecimal[] VALUES = new ADecimal[HIGH - LOW + 1];
+
+	static {
+	    for (int i = LOW; i <= HIGH; i++) {
+		VALUES[i - LOW] = new AInteger(i);
+	    }
+	    VALUES[-1 - LOW] = ADecimal.NEGATIVE_ONE;
+	    VALUES[-LOW] = ADecimal.ZERO;
+	    VALUES[1 - LOW] = ADecimal.ONE;
+	    VALUES[2 - LOW] = ADecimal.TWO;
+	}
+
+    }
+
+    private static final class Fractions {
+
+	/**
+	 * VALUES[d][n + d] = n/d
+	 */
+	private static final AFraction[][] VALUES = new AFraction[MAX_DENOMINATOR + 1][];
+
+	static {
+	    for (int d = 2; d <= MAX_DENOMINATOR; d++) {
+		VALUES[d] = new AFraction[2 * d];
+		for (int n = 1 - d; n < d; n++) {
+		    if (AFraction.gcd(n, d) == 1) {
+			VALUES[d][n + d] = new AFraction(BigInteger.valueOf(n), BigInteger.valueOf(d));
+		    }
+		}
+	    }
+	    VALUES[2][1 + 2] = AFraction.ONE_HALF;
+	}
+
+    }
+
+}
@@ -0,0 +1,275 @@
+package athensclub.anumber;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary format of numbers.
+ * 
+ * <p>
+ * Each number starts with a tag byte, followed by:
+ * </p>
+ * <ul>
+ * <li>{@link #DECIMAL}: unscaled value and scale as zigzag varints</li>
+ * <li>{@link #BIG_DECIMAL}: scale as zigzag varint, then the unscaled value as
+ * varint length and two's complement bytes</li>
+ * <li>{@link #FRACTION}: numerator as zigzag varint and denominator as
+ * varint</li>
+ * <li>{@link #BIG_FRACTION}: numerator and denominator each as varint length
+ * and two's complement bytes</li>
+ * <li>{@link #COMPLEX}: the real part and the imaginary part, each encoded as a
+ * number</li>
+ * </ul>
+ * <p>
+ * Varints are written 7 bits per byte, least significant first, with the high
+ * bit set on every byte but the last. Fractions are in lowest terms with
+ * positive denominator. Lazy numbers are written as their value.
+ * </p>
+ * 
+ * @author Athensclub
+ *
+ */
+final class ANumberCodec {
+
+    static final byte DECIMAL = 0;
+
+    static final byte BIG_DECIMAL = 1;
+
+    static final byte FRACTION = 2;
+
+    static final byte BIG_FRACTION = 3;
+
+    static final byte COMPLEX = 4;
+
+    private ANumberCodec() {
+    }
+
+    /**
+     * Write the number at the position of the buffer
+     * 
+     * @param number
+     * @param buffer
+     * @throws java.nio.BufferOverflowException if there is not enough space
+     */
+    static void write(ANumber number, ByteBuffer buffer) {
+	if (number instanceof ALazyNumber) {
+	    number = ((ALazyNumber) number).evaluate();
+	}
+	if (number instanceof ADecimal) {
+	    ADecimal d = (ADecimal) number;
+	    if (d.unscaledValue() != ADecimal.INFLATED) {
+		buffer.put(DECIMAL);
+		writeLong(d.unscaledValue(), buffer);
+		writeLong(d.scale(), buffer);
+	    } else {
+		buffer.put(BIG_DECIMAL);
+		writeLong(d.scale(), buffer);
+		writeBytes(d.bigDecimalValue().unscaledValue().toByteArray(), buffer);
+	    }
+	} else if (number instanceof AFraction) {
+	    AFraction f = (AFraction) number;
+	    BigInteger n = f.numeratorValue(), d = f.denominatorValue();
+	    // Long.MIN_VALUE fits in a long but can not be negated, so it takes the big
+	    // form
+	    if (n.bitLength() < 63 && d.bitLength() < 63) {
+		buffer.put(FRACTION);
+		writeLong(n.longValue(), buffer);
+		writeVarint(d.longValue(), buffer);
+	    } else {
+		buffer.put(BIG_FRACTION);
+		writeBytes(n.toByteArray(), buffer);
+		writeBytes(d.toByteArray(), buffer);
+	    }
+	} else if (number instanceof AComplex) {
+	    AComplex c = (AComplex) number;
+	    buffer.put(COMPLEX);
+	    write(c.getReal(), buffer);
+	    write(c.getImaginary(), buffer);
+	} else {
+	    throw new IllegalArgumentException("Can not encode " + number.getClass().getName());
+	}
+    }
+
+    /**
+     * Return the number of bytes {@link #write(ANumber, ByteBuffer)} writes for the
+     * number
+     * 
+     * @param number
+     * @return
+     */
+    static int size(ANumber number) {
+	if (number instanceof ALazyNumber) {
+	    number = ((ALazyNumber) number).evaluate();
+	}
+	if (number instanceof ADecimal) {
+	    ADecimal d = (ADecimal) number;
+	    if (d.unscaledValue() != ADecimal.INFLATED) {
+		return 1 + longSize(d.unscaledValue()) + longSize(d.scale());
+	    }
+	    return 1 + longSize(d.scale()) + bytesSize(d.bigDecimalValue().unscaledValue());
+	} else if (number instanceof AFraction) {
+	    AFraction f = (AFraction) number;
+	    BigInteger n = f.numeratorValue(), d = f.denominatorValue();
+	    // Long.MIN_VALUE fits in a long but can not be negated, so it takes the big
+	    // form
+	    if (n.bitLength() < 63 && d.bitLength() < 63) {
+		return 1 + longSize(n.longValue()) + varintSize(d.longValue());
+	    }
+	    return 1 + bytesSize(n) + bytesSize(d);
+	} else if (number instanceof AComplex) {
+	    AComplex c = (AComplex) number;
+	    return 1 + size(c.getReal()) + size(c.getImaginary());
+	}
+	throw new IllegalArgumentException("Can not encode " + number.getClass().getName());
+    }
+
+    /**
+     * Read a number from the position of the buffer
+     * 
+     * @param buffer
+     * @return
+     * @throws IllegalArgumentException         if the data is not a valid number
+     * @throws java.nio.BufferUnderflowException if the data ends before the number
+     */
+    static ANumber read(ByteBuffer buffer) {
+	byte tag = buffer.get();
+	switch (tag) {
+	case DECIMAL: {
+	    long unscaled = readLong(buffer);
+	    return ANumberCache.decimal(unscaled, readInt(buffer));
+	}
+	case BIG_DECIMAL: {
+	    int scale = readInt(buffer);
+	    return ANumberCache.decimal(new BigDecimal(readBigInteger(buffer), scale));
+	}
+	case FRACTION: {
+	    long numerator = readLong(buffer);
+	    long denominator = readVarint(buffer);
+	    if (numerator == Long.MIN_VALUE || denominator <= 0 || AFraction.gcd(numerator, denominator) != 1) {
+		throw new IllegalArgumentException("Fraction not in lowest terms: " + numerator + "/" + denominator);
+	    }
+	    return ANumberCache.fraction(numerator, denominator);
+	}
+	case BIG_FRACTION: {
+	    BigInteger numerator = readBigInteger(buffer);
+	    BigInteger denominator = readBigInteger(buffer);
+	    if (denominator.signum() <= 0 || !AFraction.gcd(numerator, denominator).equals(BigInteger.ONE)) {
+		throw new IllegalArgumentException("Fraction not in lowest terms: " + numerator + "/" + denominator);
+	    }
+	    return AFraction.fromLowestTerms(numerator, denominator);
+	}
+	case COMPLEX:
+	    ANumber real = readPart(buffer);
+	    return new AComplex(real, readPart(buffer));
+	default:
+	    throw new IllegalArgumentException("Unknown number tag: " + tag);
+	}
+    }
+
+    /**
+     * Read a part of complex number, which must not be complex itself
+     */
+    private static ANumber readPart(ByteBuffer buffer) {
+	if (buffer.hasRemaining() && buffer.get(buffer.position()) == COMPLEX) {
+	    throw new IllegalArgumentException("Complex number as part of complex number");
+	}
+	return read(buffer);
+    }
+
+    static void writeVarint(long value, ByteBuffer buffer) {
+	while ((value & ~0x7FL) != 0) {
+	    buffer.put((byte) ((value & 0x7F) | 0x80));
+	    value >>>= 7;
+	}
+	buffer.put((byte) value);
+    }
+
+    static long readVarint(ByteBuffer buffer) {
+	long result = 0;
+	for (int shift = 0; shift < 64; shift += 7) {
+	    byte b = buffer.get();
+	    result |= (long) (b & 0x7F) << shift;
+	    if (b >= 0) {
+		return result;
+	    }
+	}
+	throw new IllegalArgumentException("Varint too long");
+    }
+
+    static int varintSize(long value) {
+	// 1 byte for every 7 bits, at least 1
+	return Math.max(1, (64 - Long.numberOfLeadingZeros(value) + 6) / 7);
+    }
+
+    private static void writeLong(long value, ByteBuffer buffer) {
+	// zigzag, so small negative numbers are small too
+	writeVarint((value << 1) ^ (value >> 63), buffer);
+    }
+
+    private static long readLong(ByteBuffer buffer) {
+	long value = readVarint(buffer);
+	return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int readInt(ByteBuffer buffer) {
+	long value = readLong(buffer);
+	if (value != (int) value) {
+	    throw new IllegalArgumentException("Scale out of range: " + value);
+	}
+	return (int) value;
+    }
+
+    private static int longSize(long value) {
+	return varintSize((value << 1) ^ (value >> 63));
+    }
+
+    private static void writeBytes(byte[] bytes, ByteBuffer buffer) {
+	writeVarint(bytes.length, buffer);
+	buffer.put(bytes);
+    }
+
+    private static BigInteger readBigInteger(ByteBuffer buffer) {
+	long length = readVarint(buffer);
+	if (length <= 0 || length > buffer.remaining()) {
+	    throw new IllegalArgumentException("Invalid integer length: " + length);
+	}
+	byte[] bytes = new byte[(int) length];
+	buffer.get(bytes);
+	return new BigInteger(bytes);
+    }
+
+    private static int bytesSize(BigInteger value) {
+	int length = value.bitLength() / 8 + 1;
+	return varintSize(length) + length;
+    }
+
+    /**
+     * Serialized form of every number, holding its binary format
+     * 
+     * @author Athensclub
+     *
+     */
+    static final class SerializationProxy implements Serializable {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1986442036180823075L;
+
+	private final byte[] data;
+
+	SerializationProxy(ANumber number) {
+	    ByteBuffer buffer = ByteBuffer.allocate(size(number));
+	    write(number, buffer);
+	    data = buffer.array();
+	}
+
+	private Object readResolve() {
+	    return read(ByteBuffer.wrap(data));
+	}
+
+    }
+
+}
@@ -0,0 +1,325 @@
+package athensclub.anumber;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+/**
+ * Collectors for exact aggregation of streams of numbers.
+ * 
+ * <p>
+ * Each collector accumulates into its own mutable container and combines
+ * containers of different threads, so parallel streams split the work across
+ * cores. Decimals are summed as one BigDecimal, and fractions are grouped by
+ * their denominator so that adding a fraction costs one BigInteger addition
+ * instead of a cross multiplication and a gcd. The groups are put over a common
+ * denominator only when there are too many of them and when the result is
+ * requested.
+ * </p>
+ * 
+ * @author Athensclub
+ *
+ */
+public final class ANumberCollectors {
+
+    /**
+     * Maximum number of distinct denominators kept by a sum before they are put
+     * over a common denominator
+     */
+    private static final int MAX_DENOMINATORS = 64;
+
+    private ANumberCollectors() {
+    }
+
+    /**
+     * Collector that returns the exact sum of the numbers, or zero if there is no
+     * number.
+     * 
+     * @return
+     */
+    public static Collector<ANumber, ?, ANumber> sum() {
+	return Collector.of(Sum::new, Sum::add, Sum::combine, Sum::result, Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Collector that returns the exact product of the numbers, or one if there is
+     * no number.
+     * 
+     * @return
+     */
+    public static Collector<ANumber, ?, ANumber> product() {
+	return Collector.of(Product::new, Product::multiply, Product::combine, Product::result,
+		Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Collector that returns the exact arithmetic mean of the numbers, or zero if
+     * there is no number.
+     * 
+     * @return
+     */
+    public static Collector<ANumber, ?, ANumber> mean() {
+	return Collector.of(Sum::new, Sum::add, Sum::combine, s -> {
+	    if (s.count == 0) {
+		return ADecimal.ZERO;
+	    }
+	    return s.result().divide(ANumber.valueOf(s.count));
+	}, Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Collector that returns the exact population variance of the numbers, or zero
+     * if there is no number.
+     * 
+     * @return
+     * @throws IllegalArgumentException if one of the numbers is not real
+     */
+    public static Collector<ANumber, ?, ANumber> variance() {
+	return Collector.of(Variance::new, Variance::add, Variance::combine, Variance::result,
+		Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Collector that returns the smallest number, or empty if there is no number.
+     * 
+     * @return
+     */
+    public static <T extends ANumber> Collector<T, ?, Optional<T>> min() {
+	return Collectors.minBy(Comparator.naturalOrder());
+    }
+
+    /**
+     * Collector that returns the largest number, or empty if there is no number.
+     * 
+     * @return
+     */
+    public static <T extends ANumber> Collector<T, ?, Optional<T>> max() {
+	return Collectors.maxBy(Comparator.naturalOrder());
+    }
+
+    /**
+     * Mutable exact sum
+     * 
+     * @author Athensclub
+     *
+     */
+    private static final class Sum {
+
+	private long count;
+
+	private BigDecimal decimal = BigDecimal.ZERO;
+
+	/**
+	 * Sum of numerators of fractions, by denominator
+	 */
+	private Map<BigInteger, BigInteger> fractions;
+
+	/**
+	 * Sum of numbers that are neither decimal, fraction nor complex
+	 */
+	private ANumber other;
+
+	/**
+	 * Sum of imaginary parts, null if all of them were zero
+	 */
+	private Sum imaginary;
+
+	private void add(ANumber number) {
+	    count++;
+	    addPart(number);
+	}
+
+	private void addPart(ANumber number) {
+	    if (number instanceof ADecimal) {
+		decimal = decimal.add(number.bigDecimalValue());
+	    } else if (number instanceof AFraction) {
+		AFraction f = (AFraction) number;
+		addFraction(f.numeratorValue(), f.denominatorValue());
+	    } else if (number instanceof AComplex) {
+		AComplex c = (AComplex) number;
+		addPart(c.getReal());
+		if (!c.getImaginary().isZero()) {
+		    if (imaginary == null) {
+			imaginary = new Sum();
+		    }
+		    imaginary.addPart(c.getImaginary());
+		}
+	    } else {
+		other = other == null ? number : other.add(number);
+	    }
+	}
+
+	private void addFraction(BigInteger numerator, BigInteger denominator) {
+	    if (fractions == null) {
+		fractions = new HashMap<>();
+	    }
+	    fractions.merge(denominator, numerator, BigInteger::add);
+	    if (fractions.size() > MAX_DENOMINATORS) {
+		BigInteger[] ratio = fractionRatio();
+		fractions.clear();
+		fractions.put(ratio[1], ratio[0]);
+	    }
+	}
+
+	/**
+	 * Put all fractions over their least common denominator
+	 * 
+	 * @return the numerator and denominator of the sum of fractions, in lowest
+	 *         terms
+	 */
+	private BigInteger[] fractionRatio() {
+	    BigInteger denominator = BigInteger.ONE;
+	    for (BigInteger d : fractions.keySet()) {
+		denominator = denominator.divide(AFraction.gcd(denominator, d)).multiply(d);
+	    }
+	    BigInteger numerator = BigInteger.ZERO;
+	    for (Map.Entry<BigInteger, BigInteger> e : fractions.entrySet()) {
+		numerator = numerator.add(e.getValue().multiply(denominator.divide(e.getKey())));
+	    }
+	    BigInteger gcd = AFraction.gcd(numerator, denominator);
+	    if (!gcd.equals(BigInteger.ONE) && gcd.signum() != 0) {
+		numerator = numerator.divide(gcd);
+		denominator = denominator.divide(gcd);
+	    }
+	    return new BigInteger[] { numerator, denominator };
+	}
+
+	private Sum combine(Sum s) {
+	    count += s.count;
+	    decimal = decimal.add(s.decimal);
+	    if (s.fractions != null) {
+		for (Map.Entry<BigInteger, BigInteger> e : s.fractions.entrySet()) {
+		    addFraction(e.getValue(), e.getKey());
+		}
+	    }
+	    if (s.other != null) {
+		other = other == null ? s.other : other.add(s.other);
+	    }
+	    if (s.imaginary != null) {
+		imaginary = imaginary == null ? s.imaginary : imaginary.combine(s.imaginary);
+	    }
+	    return this;
+	}
+
+	private ANumber result() {
+	    ANumber result = ANumberCache.decimal(decimal);
+	    if (fractions != null && !fractions.isEmpty()) {
+		BigInteger[] ratio = fractionRatio();
+		ANumber fraction = ratio[1].equals(BigInteger.ONE) ? ANumberCache.decimal(ratio[0])
+			: AFraction.fromLowestTerms(ratio[0], ratio[1]);
+		result = decimal.signum() == 0 ? fraction : fraction.add(result);
+	    }
+	    if (other != null) {
+		result = other.add(result);
+	    }
+	    if (imaginary != null) {
+		result = new AComplex(result, imaginary.result());
+	    }
+	    return result;
+	}
+
+    }
+
+    /**
+     * Mutable exact product
+     * 
+     * @author Athensclub
+     *
+     */
+    private static final class Product {
+
+	private BigDecimal decimal = BigDecimal.ONE;
+
+	/**
+	 * Product of fractions, not reduced until the result is requested
+	 */
+	private BigInteger numerator = BigInteger.ONE, denominator = BigInteger.ONE;
+
+	/**
+	 * Product of numbers that are neither decimal nor fraction
+	 */
+	private ANumber other;
+
+	private void multiply(ANumber number) {
+	    if (number instanceof ADecimal) {
+		decimal = decimal.multiply(number.bigDecimalValue());
+	    } else if (number instanceof AFraction) {
+		AFraction f = (AFraction) number;
+		numerator = numerator.multiply(f.numeratorValue());
+		denominator = denominator.multiply(f.denominatorValue());
+	    } else {
+		other = other == null ? number : other.multiply(number);
+	    }
+	}
+
+	private Product combine(Product p) {
+	    decimal = decimal.multiply(p.decimal);
+	    numerator = numerator.multiply(p.numerator);
+	    denominator = denominator.multiply(p.denominator);
+	    if (p.other != null) {
+		other = other == null ? p.other : other.multiply(p.other);
+	    }
+	    return this;
+	}
+
+	private ANumber result() {
+	    ANumber result = ANumberCache.decimal(decimal);
+	    if (!denominator.equals(BigInteger.ONE) || !numerator.equals(BigInteger.ONE)) {
+		result = new AFraction(numerator, denominator).multiply(result);
+	    }
+	    if (other != null) {
+		result = other.multiply(result);
+	    }
+	    return result;
+	}
+
+    }
+
+    /**
+     * Mutable exact sum of numbers and of their squares
+     * 
+     * @author Athensclub
+     *
+     */
+    private static final class Variance {
+
+	private final Sum sum = new Sum();
+
+	private final Sum squares = new Sum();
+
+	private void add(ANumber number) {
+	    if (number instanceof AComplex) {
+		AComplex c = (AComplex) number;
+		if (!c.getImaginary().isZero()) {
+		    throw new IllegalArgumentException("Variance of complex number: " + number);
+		}
+		number = c.getReal();
+	    }
+	    sum.add(number);
+	    squares.add(number.multiply(number));
+	}
+
+	private Variance combine(Variance v) {
+	    sum.combine(v.sum);
+	    squares.combine(v.squares);
+	    return this;
+	}
+
+	private ANumber result() {
+	    if (sum.count == 0) {
+		return ADecimal.ZERO;
+	    }
+	    // E[x^2] - E[x]^2, exact so there is no cancellation error
+	    ADecimal n = ANumber.valueOf(sum.count);
+	    ANumber mean = sum.result().divide(n);
+	    return squares.result().divide(n).subtract(mean.multiply(mean));
+	}
+
+    }
+
+}
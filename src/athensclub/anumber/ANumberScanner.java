@@ -0,0 +1,443 @@
+package athensclub.anumber;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+/**
+ * A scanner that reads number literals directly from characters, without
+ * creating intermediate strings.
+ * 
+ * <p>
+ * A literal is a decimal number (eg. -12, 1.5, .5, 2.5e-3), a fraction of two
+ * decimal numbers (eg. 3/4, -1.5/2) or a complex number with fractionable
+ * parts (eg. 1+2i, 3/4-1/2i, 2i, -i). Literals are separated by whitespaces,
+ * commas or semicolons.
+ * </p>
+ * 
+ * <p>
+ * Each scanner keeps its own position, so scanners are cheap to create and
+ * should be created per input (or per thread) instead of being shared. The
+ * static parse methods create their own scanner, so they are safe to be called
+ * from any number of threads.
+ * </p>
+ * 
+ * @author Athensclub
+ * 
+ */
+public final class ANumberScanner {
+
+    private final CharSequence source;
+
+    private final int end;
+
+    private int position;
+
+    public ANumberScanner(CharSequence source) {
+	this(source, 0, source.length());
+    }
+
+    public ANumberScanner(CharSequence source, int offset, int length) {
+	if (offset < 0 || length < 0 || offset > source.length() - length) {
+	    throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length);
+	}
+	this.source = source;
+	this.position = offset;
+	this.end = offset + length;
+    }
+
+    public ANumberScanner(char[] source, int offset, int length) {
+	this(CharBuffer.wrap(source), offset, length);
+    }
+
+    /**
+     * Create scanner that reads the given bytes as ASCII characters
+     * 
+     * @param source
+     * @param offset
+     * @param length
+     */
+    public ANumberScanner(byte[] source, int offset, int length) {
+	this(new ByteSequence(source), offset, length);
+    }
+
+    /**
+     * Create scanner that reads the bytes between the position and the limit of
+     * given buffer as ASCII characters.The buffer position is not changed.
+     * 
+     * @param source
+     */
+    public ANumberScanner(ByteBuffer source) {
+	this(source, source.position(), source.remaining());
+    }
+
+    /**
+     * Create scanner that reads the bytes of given buffer, from the absolute index
+     * offset, as ASCII characters.The buffer position is not changed.
+     * 
+     * @param source
+     * @param offset
+     * @param length
+     */
+    public ANumberScanner(ByteBuffer source, int offset, int length) {
+	this(new ByteBufferSequence(source), offset, length);
+    }
+
+    /**
+     * Parse the whole sequence as a single number literal.
+     * 
+     * @param str
+     * @return
+     * @throws NumberFormatException if str is not exactly one number literal
+     */
+    public static ANumber parse(CharSequence str) {
+	return parse(new ANumberScanner(str));
+    }
+
+    /**
+     * Parse the given range of the sequence as a single number literal.
+     * 
+     * @param str
+     * @param offset
+     * @param length
+     * @return
+     * @throws NumberFormatException if the range is not exactly one number literal
+     */
+    public static ANumber parse(CharSequence str, int offset, int length) {
+	return parse(new ANumberScanner(str, offset, length));
+    }
+
+    /**
+     * Parse the given range of the array as a single number literal.
+     * 
+     * @param chars
+     * @param offset
+     * @param length
+     * @return
+     * @throws NumberFormatException if the range is not exactly one number literal
+     */
+    public static ANumber parse(char[] chars, int offset, int length) {
+	return parse(new ANumberScanner(chars, offset, length));
+    }
+
+    /**
+     * Parse the given range of the array, read as ASCII characters, as a single
+     * number literal.
+     * 
+     * @param bytes
+     * @param offset
+     * @param length
+     * @return
+     * @throws NumberFormatException if the range is not exactly one number literal
+     */
+    public static ANumber parse(byte[] bytes, int offset, int length) {
+	return parse(new ANumberScanner(bytes, offset, length));
+    }
+
+    /**
+     * Parse the only literal of the scanner.
+     * 
+     * @param scanner
+     * @return
+     */
+    private static ANumber parse(ANumberScanner scanner) {
+	int start = scanner.position;
+	if (scanner.hasNext()) {
+	    ANumber result = scanner.next();
+	    if (!scanner.hasNext()) {
+		return result;
+	    }
+	}
+	throw new NumberFormatException(scanner.text(start, scanner.end));
+    }
+
+    /**
+     * Skip separators and return whether there is another literal to read.
+     * 
+     * @return
+     */
+    public boolean hasNext() {
+	while (position < end && isSeparator(source.charAt(position))) {
+	    position++;
+	}
+	return position < end;
+    }
+
+    /**
+     * Read the next number literal.
+     * 
+     * @return
+     * @throws NoSuchElementException if there is no literal left
+     * @throws NumberFormatException  if the next literal is not a valid number
+     */
+    public ANumber next() {
+	if (!hasNext()) {
+	    throw new NoSuchElementException();
+	}
+	int start = position;
+	ANumber result = literal(start);
+	if (position < end && !isSeparator(source.charAt(position))) {
+	    throw error(start);
+	}
+	return result;
+    }
+
+    /**
+     * The index of the next character this scanner will read
+     * 
+     * @return
+     */
+    public int position() {
+	return position;
+    }
+
+    /**
+     * Return whether the character separates two literals
+     * 
+     * @param c
+     * @return
+     */
+    static boolean isSeparator(char c) {
+	return c == ',' || c == ';' || Character.isWhitespace(c);
+    }
+
+    private ANumber literal(int start) {
+	ANumber real = fractionable();
+	if (real == null) {
+	    // bare imaginary unit, eg. i or -i
+	    ANumber unit = unit();
+	    if (unit == null) {
+		throw error(start);
+	    }
+	    return new AComplex(ADecimal.ZERO, unit);
+	}
+	if (position < end && source.charAt(position) == 'i') {
+	    position++;
+	    return new AComplex(ADecimal.ZERO, real);
+	}
+	if (position < end && (source.charAt(position) == '+' || source.charAt(position) == '-')) {
+	    ANumber imaginary = fractionable();
+	    if (imaginary == null) {
+		imaginary = unit();
+		if (imaginary == null) {
+		    throw error(start);
+		}
+	    } else if (position < end && source.charAt(position) == 'i') {
+		position++;
+	    } else {
+		throw error(start);
+	    }
+	    return new AComplex(real, imaginary);
+	}
+	return real;
+    }
+
+    /**
+     * Read optionally signed imaginary unit(i, +i or -i) and return its
+     * coefficient, or null without moving if there is none.
+     * 
+     * @return
+     */
+    private ANumber unit() {
+	int i = position;
+	ANumber result = ADecimal.ONE;
+	if (i < end && (source.charAt(i) == '+' || source.charAt(i) == '-')) {
+	    if (source.charAt(i) == '-') {
+		result = ADecimal.NEGATIVE_ONE;
+	    }
+	    i++;
+	}
+	if (i < end && source.charAt(i) == 'i') {
+	    position = i + 1;
+	    return result;
+	}
+	return null;
+    }
+
+    /**
+     * Read decimal or fraction of two decimals, or return null without moving if
+     * there is none.
+     * 
+     * @return
+     */
+    private ANumber fractionable() {
+	int start = position;
+	ADecimal numerator = decimal();
+	if (numerator == null) {
+	    return null;
+	}
+	if (position < end && source.charAt(position) == '/') {
+	    position++;
+	    ADecimal denominator = decimal();
+	    if (denominator == null) {
+		throw error(start);
+	    }
+	    return new AFraction(numerator, denominator);
+	}
+	return numerator;
+    }
+
+    /**
+     * Read optionally signed decimal number, or return null without moving if
+     * there is none. Numbers whose unscaled value fits in a long are built without
+     * creating a BigDecimal.
+     * 
+     * @return
+     */
+    ADecimal decimal() {
+	int start = position;
+	int i = position;
+	boolean negative = false;
+	if (i < end && (source.charAt(i) == '+' || source.charAt(i) == '-')) {
+	    negative = source.charAt(i) == '-';
+	    i++;
+	}
+	long unscaled = 0;
+	long scale = 0;
+	int digits = 0;
+	boolean overflow = false;
+	boolean point = false;
+	for (; i < end; i++) {
+	    char c = source.charAt(i);
+	    if (c >= '0' && c <= '9') {
+		int d = c - '0';
+		if (unscaled > (Long.MAX_VALUE - d) / 10) {
+		    overflow = true;
+		} else {
+		    unscaled = unscaled * 10 + d;
+		}
+		digits++;
+		if (point) {
+		    scale++;
+		}
+	    } else if (c == '.' && !point) {
+		point = true;
+	    } else {
+		break;
+	    }
+	}
+	if (digits == 0) {
+	    return null;
+	}
+	if (i < end && (source.charAt(i) == 'e' || source.charAt(i) == 'E')) {
+	    i++;
+	    boolean negativeExponent = false;
+	    if (i < end && (source.charAt(i) == '+' || source.charAt(i) == '-')) {
+		negativeExponent = source.charAt(i) == '-';
+		i++;
+	    }
+	    long exponent = 0;
+	    int exponentDigits = 0;
+	    for (; i < end && source.charAt(i) >= '0' && source.charAt(i) <= '9'; i++) {
+		if (exponent < Integer.MAX_VALUE) {
+		    exponent = exponent * 10 + (source.charAt(i) - '0');
+		}
+		exponentDigits++;
+	    }
+	    if (exponentDigits == 0) {
+		throw error(start);
+	    }
+	    scale -= negativeExponent ? -exponent : exponent;
+	}
+	position = i;
+	if (overflow || scale < Integer.MIN_VALUE || scale > Integer.MAX_VALUE) {
+	    char[] chars = new char[i - start];
+	    for (int j = 0; j < chars.length; j++) {
+		chars[j] = source.charAt(start + j);
+	    }
+	    try {
+		return ANumberCache.decimal(new BigDecimal(chars));
+	    } catch (NumberFormatException e) {
+		throw error(start);
+	    }
+	}
+	return ANumberCache.decimal(negative ? -unscaled : unscaled, (int) scale);
+    }
+
+    /**
+     * Create exception for invalid literal starting at given index
+     * 
+     * @param start
+     * @return
+     */
+    private NumberFormatException error(int start) {
+	int i = start;
+	while (i < end && !isSeparator(source.charAt(i))) {
+	    i++;
+	}
+	return new NumberFormatException(text(start, i));
+    }
+
+    private String text(int from, int to) {
+	return source.subSequence(from, to).toString();
+    }
+
+    /**
+     * View of byte array as ASCII characters
+     * 
+     * @author Athensclub
+     * 
+     */
+    private static final class ByteSequence implements CharSequence {
+
+	private final byte[] bytes;
+
+	private ByteSequence(byte[] bytes) {
+	    this.bytes = bytes;
+	}
+
+	@Override
+	public int length() {
+	    return bytes.length;
+	}
+
+	@Override
+	public char charAt(int index) {
+	    return (char) (bytes[index] & 0xFF);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+	    return new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+	}
+
+    }
+
+    /**
+     * View of byte buffer as ASCII characters, using absolute indexes
+     * 
+     * @author Athensclub
+     *
+     */
+    private static final class ByteBufferSequence implements CharSequence {
+
+	private final ByteBuffer buffer;
+
+	private ByteBufferSequence(ByteBuffer buffer) {
+	    this.buffer = buffer;
+	}
+
+	@Override
+	public int length() {
+	    return buffer.limit();
+	}
+
+	@Override
+	public char charAt(int index) {
+	    return (char) (buffer.get(index) & 0xFF);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+	    byte[] bytes = new byte[end - start];
+	    for (int i = 0; i < bytes.length; i++) {
+		bytes[i] = buffer.get(start + i);
+	    }
+	    return new String(bytes, StandardCharsets.ISO_8859_1);
+	}
+
+    }
+
+}
@@ -0,0 +1,442 @@
+package athensclub.anumber;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable polynomial in one variable with exact number coefficients.
+ *
+ * <p>
+ * Evaluation uses Horner's rule. When the coefficients and the point are all
+ * decimals, or all decimals, fractions and complex numbers of them, the value is
+ * accumulated in a single {@link AMutableDecimal} or {@link AMutableComplex}, so
+ * evaluating a polynomial of degree n creates one result number instead of 2n
+ * intermediate ones. Other numbers(eg. {@link ALazyNumber}) are evaluated with
+ * normal number operations. {@link #evaluate(ANumber[])} evaluates many points
+ * in parallel, with one accumulator reused for every point of each chunk.
+ * </p>
+ *
+ * <p>
+ * Multiplication is exact and uses Karatsuba's algorithm when both polynomials
+ * have at least {@value #KARATSUBA_THRESHOLD} coefficients.The longer one is
+ * multiplied in chunks of the length of the shorter one, so products of
+ * polynomials of very different degrees are not padded to the larger degree.
+ * </p>
+ *
+ * @author Athensclub
+ *
+ */
+public final class APolynomial {
+
+    /**
+     * Number of coefficients of both operands from which multiplication switches
+     * from schoolbook to Karatsuba
+     */
+    static final int KARATSUBA_THRESHOLD = 32;
+
+    /**
+     * Number of points each task of {@link #evaluate(ANumber[])} evaluates
+     */
+    private static final int CHUNK_SIZE = 256;
+
+    private static final ANumber[] NONE = new ANumber[0];
+
+    public static final APolynomial ZERO = new APolynomial(NONE);
+
+    public static final APolynomial ONE = new APolynomial(new ANumber[] { ADecimal.ONE });
+
+    /**
+     * Polynomial x
+     */
+    public static final APolynomial X = new APolynomial(new ANumber[] { ADecimal.ZERO, ADecimal.ONE });
+
+    private static final int DECIMAL = 0, COMPLEX = 1, OTHER = 2;
+
+    /**
+     * Coefficients from the constant term up, with no trailing zero
+     */
+    private final ANumber[] coefficients;
+
+    /**
+     * The accumulator kind that can hold all coefficients
+     */
+    private final int kind;
+
+    private APolynomial(ANumber[] coefficients) {
+	this.coefficients = coefficients;
+	int k = DECIMAL;
+	for (ANumber c : coefficients) {
+	    k = Math.max(k, kind(c));
+	}
+	kind = k;
+    }
+
+    /**
+     * Create polynomial with the given coefficients, from the constant term up (eg.
+     * valueOf(1, 0, 3) is 3x^2 + 1).
+     *
+     * @param coefficients
+     * @return
+     */
+    public static APolynomial valueOf(ANumber... coefficients) {
+	for (ANumber c : coefficients) {
+	    if (c == null) {
+		throw new NullPointerException("coefficient");
+	    }
+	}
+	return trimmed(coefficients.clone());
+    }
+
+    /**
+     * Create polynomial from coefficients owned by the caller, removing trailing
+     * zeros
+     */
+    private static APolynomial trimmed(ANumber[] coefficients) {
+	int length = coefficients.length;
+	while (length > 0 && coefficients[length - 1].isZero()) {
+	    length--;
+	}
+	if (length == 0) {
+	    return ZERO;
+	}
+	return new APolynomial(length == coefficients.length ? coefficients : Arrays.copyOf(coefficients, length));
+    }
+
+    /**
+     * The accumulator kind that can hold the given number
+     */
+    private static int kind(ANumber value) {
+	if (value instanceof ADecimal) {
+	    return DECIMAL;
+	}
+	return AMutableComplex.accepts(value) ? COMPLEX : OTHER;
+    }
+
+    /**
+     * The degree of this polynomial, or -1 if this is zero
+     *
+     * @return
+     */
+    public int degree() {
+	return coefficients.length - 1;
+    }
+
+    /**
+     * The coefficient of x^power, which is zero if power is greater than the
+     * degree
+     *
+     * @param power
+     * @return
+     */
+    public ANumber getCoefficient(int power) {
+	if (power < 0) {
+	    throw new IndexOutOfBoundsException("power: " + power);
+	}
+	return power < coefficients.length ? coefficients[power] : ADecimal.ZERO;
+    }
+
+    /**
+     * Return copy of the coefficients, from the constant term up
+     *
+     * @return
+     */
+    public ANumber[] getCoefficients() {
+	return coefficients.clone();
+    }
+
+    public boolean isZero() {
+	return coefficients.length == 0;
+    }
+
+    /**
+     * Evaluate this polynomial at x using Horner's rule
+     *
+     * @param x
+     * @return
+     */
+    public ANumber evaluate(ANumber x) {
+	int k = Math.max(kind, kind(x));
+	if (k == DECIMAL) {
+	    return evaluate((ADecimal) x, new AMutableDecimal());
+	} else if (k == COMPLEX) {
+	    return evaluate(x, new AMutableComplex(), new AMutableComplex());
+	}
+	return evaluateSlow(x);
+    }
+
+    /**
+     * Evaluate this polynomial at every point, splitting the points across the
+     * common fork join pool.Each task reuses its accumulators for all of its
+     * points.
+     *
+     * @param xs
+     * @return array of values in the same order as xs
+     */
+    public ANumber[] evaluate(ANumber[] xs) {
+	ANumber[] result = new ANumber[xs.length];
+	int chunks = (xs.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+	IntStream.range(0, chunks).parallel().forEach(chunk -> {
+	    AMutableDecimal decimal = null;
+	    AMutableComplex complex = null, point = null;
+	    int end = Math.min(xs.length, (chunk + 1) * CHUNK_SIZE);
+	    for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+		ANumber x = xs[i];
+		int k = Math.max(kind, kind(x));
+		if (k == DECIMAL) {
+		    if (decimal == null) {
+			decimal = new AMutableDecimal();
+		    }
+		    result[i] = evaluate((ADecimal) x, decimal);
+		} else if (k == COMPLEX) {
+		    if (complex == null) {
+			complex = new AMutableComplex();
+			point = new AMutableComplex();
+		    }
+		    result[i] = evaluate(x, complex, point);
+		} else {
+		    result[i] = evaluateSlow(x);
+		}
+	    }
+	});
+	return result;
+    }
+
+    private ANumber evaluate(ADecimal x, AMutableDecimal acc) {
+	acc.set(ADecimal.ZERO);
+	for (int i = coefficients.length - 1; i >= 0; i--) {
+	    acc.multiplyBy(x).addTo((ADecimal) coefficients[i]);
+	}
+	return acc.toImmutable();
+    }
+
+    private ANumber evaluate(ANumber x, AMutableComplex acc, AMutableComplex point) {
+	acc.set(ADecimal.ZERO);
+	point.set(x);
+	for (int i = coefficients.length - 1; i >= 0; i--) {
+	    acc.multiplyBy(point).addTo(coefficients[i]);
+	}
+	return acc.toImmutable();
+    }
+
+    private ANumber evaluateSlow(ANumber x) {
+	ANumber result = ADecimal.ZERO;
+	for (int i = coefficients.length - 1; i >= 0; i--) {
+	    result = result.multiply(x).add(coefficients[i]);
+	}
+	return result;
+    }
+
+    public APolynomial add(APolynomial other) {
+	ANumber[] result = Arrays.copyOf(coefficients, Math.max(coefficients.length, other.coefficients.length));
+	for (int i = 0; i < other.coefficients.length; i++) {
+	    result[i] = i < coefficients.length ? coefficients[i].add(other.coefficients[i]) : other.coefficients[i];
+	}
+	return trimmed(result);
+    }
+
+    public APolynomial subtract(APolynomial other) {
+	return add(other.negate());
+    }
+
+    public APolynomial negate() {
+	ANumber[] result = new ANumber[coefficients.length];
+	for (int i = 0; i < result.length; i++) {
+	    result[i] = coefficients[i].negate();
+	}
+	return new APolynomial(result);
+    }
+
+    /**
+     * Multiply every coefficient by the given number
+     *
+     * @param factor
+     * @return
+     */
+    public APolynomial multiply(ANumber factor) {
+	ANumber[] result = new ANumber[coefficients.length];
+	for (int i = 0; i < result.length; i++) {
+	    result[i] = coefficients[i].multiply(factor);
+	}
+	return trimmed(result);
+    }
+
+    /**
+     * Multiply this by the other polynomial exactly
+     *
+     * @param other
+     * @return
+     */
+    public APolynomial multiply(APolynomial other) {
+	if (isZero() || other.isZero()) {
+	    return ZERO;
+	}
+	int k = Math.max(kind, other.kind);
+	if (coefficients.length < KARATSUBA_THRESHOLD || other.coefficients.length < KARATSUBA_THRESHOLD) {
+	    return trimmed(schoolbook(coefficients, 0, coefficients.length, other.coefficients, 0,
+		    other.coefficients.length, k));
+	}
+	ANumber[] longer = coefficients, shorter = other.coefficients;
+	if (longer.length < shorter.length) {
+	    longer = other.coefficients;
+	    shorter = coefficients;
+	}
+	// split the longer operand into chunks of the length of the shorter one, so
+	// each Karatsuba product has balanced operands and the cost grows linearly
+	// with the longer length
+	int m = shorter.length;
+	ANumber[] result = new ANumber[longer.length + m - 1];
+	Arrays.fill(result, ADecimal.ZERO);
+	for (int from = 0; from < longer.length; from += m) {
+	    ANumber[] chunk = padded(Arrays.copyOfRange(longer, from, Math.min(from + m, longer.length)), m);
+	    ANumber[] product = karatsuba(chunk, shorter, k);
+	    for (int i = 0; i < product.length && from + i < result.length; i++) {
+		result[from + i] = result[from + i].add(product[i]);
+	    }
+	}
+	return trimmed(result);
+    }
+
+    private static ANumber[] padded(ANumber[] values, int length) {
+	ANumber[] result = Arrays.copyOf(values, length);
+	Arrays.fill(result, values.length, length, ADecimal.ZERO);
+	return result;
+    }
+
+    /**
+     * Product of a[aFrom, aTo) and b[bFrom, bTo) as coefficient arrays, with each
+     * result coefficient accumulated by fused multiply add when the kind allows
+     */
+    private static ANumber[] schoolbook(ANumber[] a, int aFrom, int aTo, ANumber[] b, int bFrom, int bTo,
+	    int kind) {
+	int n = aTo - aFrom, m = bTo - bFrom;
+	ANumber[] result = new ANumber[n + m - 1];
+	AMutableDecimal decimal = kind == DECIMAL ? new AMutableDecimal() : null;
+	AMutableComplex complex = kind == COMPLEX ? new AMutableComplex() : null;
+	for (int k = 0; k < result.length; k++) {
+	    int from = Math.max(0, k - m + 1), to = Math.min(n - 1, k);
+	    if (decimal != null) {
+		decimal.set(ADecimal.ZERO);
+		for (int i = from; i <= to; i++) {
+		    decimal.fma((ADecimal) a[aFrom + i], (ADecimal) b[bFrom + k - i]);
+		}
+		result[k] = decimal.toImmutable();
+	    } else if (complex != null) {
+		complex.set(ADecimal.ZERO);
+		for (int i = from; i <= to; i++) {
+		    complex.fma(a[aFrom + i], b[bFrom + k - i]);
+		}
+		result[k] = complex.toImmutable();
+	    } else {
+		ANumber sum = ADecimal.ZERO;
+		for (int i = from; i <= to; i++) {
+		    sum = sum.add(a[aFrom + i].multiply(b[bFrom + k - i]));
+		}
+		result[k] = sum;
+	    }
+	}
+	return result;
+    }
+
+    /**
+     * Product of two coefficient arrays of the same length, of length 2n - 1
+     */
+    private static ANumber[] karatsuba(ANumber[] a, ANumber[] b, int kind) {
+	int n = a.length;
+	if (n < KARATSUBA_THRESHOLD) {
+	    return schoolbook(a, 0, n, b, 0, n, kind);
+	}
+	// a = a0 + a1 x^h, b = b0 + b1 x^h where a1 and b1 have n - h >= h
+	// coefficients
+	int h = n / 2, high = n - h;
+	ANumber[] a0 = padded(Arrays.copyOfRange(a, 0, h), high), b0 = padded(Arrays.copyOfRange(b, 0, h), high);
+	ANumber[] a1 = Arrays.copyOfRange(a, h, n), b1 = Arrays.copyOfRange(b, h, n);
+	ANumber[] low = karatsuba(a0, b0, kind);
+	ANumber[] top = karatsuba(a1, b1, kind);
+	ANumber[] middle = karatsuba(sum(a0, a1), sum(b0, b1), kind);
+	// (a0 + a1)(b0 + b1) - a0b0 - a1b1 = a0b1 + a1b0
+	ANumber[] result = new ANumber[2 * n - 1];
+	Arrays.fill(result, ADecimal.ZERO);
+	for (int i = 0; i < middle.length; i++) {
+	    ANumber m = middle[i].subtract(low[i]).subtract(top[i]);
+	    result[i] = result[i].add(low[i]);
+	    result[i + h] = result[i + h].add(m);
+	    result[i + 2 * h] = result[i + 2 * h].add(top[i]);
+	}
+	return result;
+    }
+
+    private static ANumber[] sum(ANumber[] a, ANumber[] b) {
+	ANumber[] result = new ANumber[a.length];
+	for (int i = 0; i < result.length; i++) {
+	    result[i] = a[i].add(b[i]);
+	}
+	return result;
+    }
+
+    /**
+     * Return the derivative of this polynomial
+     *
+     * @return
+     */
+    public APolynomial derivative() {
+	if (coefficients.length <= 1) {
+	    return ZERO;
+	}
+	ANumber[] result = new ANumber[coefficients.length - 1];
+	for (int i = 0; i < result.length; i++) {
+	    result[i] = coefficients[i + 1].multiply(ANumberCache.decimal(i + 1));
+	}
+	return trimmed(result);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+	if (obj == this) {
+	    return true;
+	} else if (!(obj instanceof APolynomial)) {
+	    return false;
+	}
+	return Arrays.equals(coefficients, ((APolynomial) obj).coefficients);
+    }
+
+    @Override
+    public int hashCode() {
+	return Arrays.hashCode(coefficients);
+    }
+
+    /**
+     * Return this polynomial from the highest power down, eg. 3x^2 - 1/2x + 1
+     */
+    @Override
+    public String toString() {
+	if (coefficients.length == 0) {
+	    return "0";
+	}
+	StringBuilder builder = new StringBuilder();
+	for (int i = coefficients.length - 1; i >= 0; i--) {
+	    ANumber c = coefficients[i];
+	    if (c.isZero()) {
+		continue;
+	    }
+	    String text = c instanceof AComplex ? "(" + c + ")" : c.toString();
+	    if (builder.length() > 0) {
+		if (text.startsWith("-")) {
+		    builder.append(" - ");
+		    text = text.substring(1);
+		} else {
+		    builder.append(" + ");
+		}
+	    }
+	    if (i == 0 || !(text.equals("1") || text.equals("-1"))) {
+		builder.append(text);
+	    } else if (text.equals("-1")) {
+		builder.append('-');
+	    }
+	    if (i > 0) {
+		builder.append(i == 1 ? "x" : "x^" + i);
+	    }
+	}
+	return builder.toString();
+    }
+
+}
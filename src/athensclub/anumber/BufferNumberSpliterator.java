@@ -0,0 +1,79 @@
+package athensclub.anumber;
+
+import java.nio.ByteBuffer;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator of number literals in a byte buffer. The buffer is split at
+ * separators, so each part can be parsed by different thread.
+ * 
+ * @author Athensclub
+ *
+ */
+final class BufferNumberSpliterator implements Spliterator<ANumber> {
+
+    /**
+     * Ranges of bytes smaller than this are not split
+     */
+    private static final int MINIMUM_SPLIT_SIZE = 1 << 16;
+
+    private final ByteBuffer buffer;
+
+    private final int end;
+
+    private ANumberScanner scanner;
+
+    BufferNumberSpliterator(ByteBuffer buffer, int from, int to) {
+	this.buffer = buffer;
+	this.end = to;
+	this.scanner = new ANumberScanner(buffer, from, to - from);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super ANumber> action) {
+	if (!scanner.hasNext()) {
+	    return false;
+	}
+	action.accept(scanner.next());
+	return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super ANumber> action) {
+	ANumberScanner scanner = this.scanner;
+	while (scanner.hasNext()) {
+	    action.accept(scanner.next());
+	}
+    }
+
+    @Override
+    public Spliterator<ANumber> trySplit() {
+	int from = scanner.position();
+	if (end - from < MINIMUM_SPLIT_SIZE) {
+	    return null;
+	}
+	int middle = from + (end - from) / 2;
+	while (middle < end && !ANumberScanner.isSeparator((char) (buffer.get(middle) & 0xFF))) {
+	    middle++;
+	}
+	if (middle >= end) {
+	    return null;
+	}
+	Spliterator<ANumber> prefix = new BufferNumberSpliterator(buffer, from, middle);
+	scanner = new ANumberScanner(buffer, middle, end - middle);
+	return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+	// every literal takes at least one byte and one separator
+	return (end - scanner.position() + 1) / 2;
+    }
+
+    @Override
+    public int characteristics() {
+	return ORDERED | NONNULL | IMMUTABLE;
+    }
+
+}
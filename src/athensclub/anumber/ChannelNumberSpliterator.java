@@ -0,0 +1,110 @@
+package athensclub.anumber;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Sequential spliterator of number literals read from a channel by chunks. Only
+ * the bytes up to the last separator of the chunk are parsed, the rest are
+ * kept for the next chunk so literals are never cut in half.
+ * 
+ * @author Athensclub
+ *
+ */
+final class ChannelNumberSpliterator implements Spliterator<ANumber> {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+
+    private byte[] bytes = new byte[BUFFER_SIZE];
+
+    /**
+     * Number of bytes read into bytes
+     */
+    private int length;
+
+    /**
+     * Number of bytes given to the current scanner
+     */
+    private int parsed;
+
+    private boolean endOfInput;
+
+    private ANumberScanner scanner;
+
+    ChannelNumberSpliterator(ReadableByteChannel channel) {
+	this.channel = channel;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super ANumber> action) {
+	while (scanner == null || !scanner.hasNext()) {
+	    if (!fill()) {
+		return false;
+	    }
+	}
+	action.accept(scanner.next());
+	return true;
+    }
+
+    /**
+     * Read the next chunk of complete literals, return false if there is nothing
+     * left to read.
+     * 
+     * @return
+     */
+    private boolean fill() {
+	if (endOfInput && parsed == length) {
+	    return false;
+	}
+	System.arraycopy(bytes, parsed, bytes, 0, length - parsed);
+	length -= parsed;
+	int boundary = -1;
+	try {
+	    while (boundary < 0 && !endOfInput) {
+		if (length == bytes.length) {
+		    bytes = Arrays.copyOf(bytes, bytes.length * 2);
+		}
+		int read = channel.read(ByteBuffer.wrap(bytes, length, bytes.length - length));
+		if (read < 0) {
+		    endOfInput = true;
+		    break;
+		}
+		for (int i = length + read - 1; i >= length; i--) {
+		    if (ANumberScanner.isSeparator((char) (bytes[i] & 0xFF))) {
+			boundary = i;
+			break;
+		    }
+		}
+		length += read;
+	    }
+	} catch (IOException e) {
+	    throw new UncheckedIOException(e);
+	}
+	parsed = endOfInput ? length : boundary + 1;
+	scanner = new ANumberScanner(bytes, 0, parsed);
+	return true;
+    }
+
+    @Override
+    public Spliterator<ANumber> trySplit() {
+	return null;
+    }
+
+    @Override
+    public long estimateSize() {
+	return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+	return ORDERED | NONNULL;
+    }
+
+}
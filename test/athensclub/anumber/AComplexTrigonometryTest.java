@@ -0,0 +1,133 @@
+package athensclub.anumber;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.function.UnaryOperator;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares complex trigonometric and hyperbolic functions with double precision
+ * values calculated from their exponential definitions.
+ * 
+ * @author Athensclub
+ *
+ */
+public class AComplexTrigonometryTest {
+
+    private static final double TOLERANCE = 1e-9;
+
+    /**
+     * Arguments in all four quadrants, on the axes, and with large real parts that
+     * need range reduction.Hyperbolic functions are checked at i times these, so
+     * the large parts are imaginary and the results stay finite.
+     */
+    private static final double[][] ARGUMENTS = { { 0.5, 1.25 }, { -0.5, 1.25 }, { -0.5, -1.25 }, { 0.5, -1.25 },
+	    { 2, 0.3 }, { -2, 0.3 }, { -2, -0.3 }, { 2, -0.3 }, { 3.5, 2.75 }, { -3.5, -2.75 }, { 0, 1.5 },
+	    { 1.5, 0 }, { 1000.5, 0.7 }, { -12345.678, -1.5 }, { 98765.4321, 3.25 }, { 0.25, -7.5 } };
+
+    @Test
+    public void sin() {
+	check("sin", ANumber::sin, AComplexTrigonometryTest::sin, false);
+    }
+
+    @Test
+    public void cos() {
+	check("cos", ANumber::cos, AComplexTrigonometryTest::cos, false);
+    }
+
+    @Test
+    public void tan() {
+	check("tan", ANumber::tan, z -> divide(sin(z), cos(z)), false);
+    }
+
+    @Test
+    public void sinh() {
+	check("sinh", ANumber::sinh, AComplexTrigonometryTest::sinh, true);
+    }
+
+    @Test
+    public void cosh() {
+	check("cosh", ANumber::cosh, AComplexTrigonometryTest::cosh, true);
+    }
+
+    @Test
+    public void tanh() {
+	check("tanh", ANumber::tanh, z -> divide(sinh(z), cosh(z)), true);
+    }
+
+    @Test
+    public void sinCos() {
+	check("sinCos[0]", x -> x.sinCos()[0], AComplexTrigonometryTest::sin, false);
+	check("sinCos[1]", x -> x.sinCos()[1], AComplexTrigonometryTest::cos, false);
+    }
+
+    @Test
+    public void sinhCosh() {
+	check("sinhCosh[0]", x -> x.sinhCosh()[0], AComplexTrigonometryTest::sinh, true);
+	check("sinhCosh[1]", x -> x.sinhCosh()[1], AComplexTrigonometryTest::cosh, true);
+    }
+
+    private static void check(String name, UnaryOperator<ANumber> function, UnaryOperator<double[]> reference,
+	    boolean hyperbolic) {
+	for (double[] argument : ARGUMENTS) {
+	    double[] z = hyperbolic ? new double[] { -argument[1], argument[0] } : argument;
+	    ANumber x = new AComplex(ANumber.valueOf(Double.toString(z[0])), ANumber.valueOf(Double.toString(z[1])));
+	    double[] expected = reference.apply(z);
+	    ANumber actual = function.apply(x);
+	    double scale = Math.max(1, Math.hypot(expected[0], expected[1]));
+	    String message = name + "(" + z[0] + "+" + z[1] + "i) = " + actual;
+	    assertEquals(expected[0], real(actual), TOLERANCE * scale, message);
+	    assertEquals(expected[1], imaginary(actual), TOLERANCE * scale, message);
+	}
+    }
+
+    private static double real(ANumber x) {
+	return x instanceof AComplex ? ((AComplex) x).getReal().doubleValue() : x.doubleValue();
+    }
+
+    private static double imaginary(ANumber x) {
+	return x instanceof AComplex ? ((AComplex) x).getImaginary().doubleValue() : 0;
+    }
+
+    private static double[] exp(double[] z) {
+	double r = Math.exp(z[0]);
+	return new double[] { r * Math.cos(z[1]), r * Math.sin(z[1]) };
+    }
+
+    private static double[] subtract(double[] a, double[] b) {
+	return new double[] { a[0] - b[0], a[1] - b[1] };
+    }
+
+    private static double[] add(double[] a, double[] b) {
+	return new double[] { a[0] + b[0], a[1] + b[1] };
+    }
+
+    private static double[] divide(double[] a, double[] b) {
+	double d = b[0] * b[0] + b[1] * b[1];
+	return new double[] { (a[0] * b[0] + a[1] * b[1]) / d, (a[1] * b[0] - a[0] * b[1]) / d };
+    }
+
+    private static double[] sin(double[] z) {
+	// (e^(iz) - e^(-iz)) / 2i
+	double[] d = subtract(exp(new double[] { -z[1], z[0] }), exp(new double[] { z[1], -z[0] }));
+	return new double[] { d[1] / 2, -d[0] / 2 };
+    }
+
+    private static double[] cos(double[] z) {
+	// (e^(iz) + e^(-iz)) / 2
+	double[] s = add(exp(new double[] { -z[1], z[0] }), exp(new double[] { z[1], -z[0] }));
+	return new double[] { s[0] / 2, s[1] / 2 };
+    }
+
+    private static double[] sinh(double[] z) {
+	double[] d = subtract(exp(z), exp(new double[] { -z[0], -z[1] }));
+	return new double[] { d[0] / 2, d[1] / 2 };
+    }
+
+    private static double[] cosh(double[] z) {
+	double[] s = add(exp(z), exp(new double[] { -z[0], -z[1] }));
+	return new double[] { s[0] / 2, s[1] / 2 };
+    }
+
+}
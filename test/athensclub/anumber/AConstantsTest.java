@@ -0,0 +1,59 @@
+package athensclub.anumber;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import ch.obermuhlner.math.big.BigDecimalMath;
+
+/**
+ * Cached constants at increasing and decreasing precisions, from several
+ * threads.
+ * 
+ * @author Athensclub
+ *
+ */
+public class AConstantsTest {
+
+    @Test
+    public void roundsCachedValue() {
+	for (int precision : new int[] { 10, 200, 34, 500, 1, 120 }) {
+	    MathContext mc = new MathContext(precision);
+	    assertEquals(BigDecimalMath.pi(mc), AConstants.pi(mc), "pi " + precision);
+	    assertEquals(BigDecimalMath.e(mc), AConstants.e(mc), "e " + precision);
+	    assertEquals(BigDecimalMath.log(BigDecimal.valueOf(2), mc), AConstants.ln2(mc), "ln2 " + precision);
+	}
+    }
+
+    @Test
+    public void threadsSeeCompleteValues() throws Exception {
+	ExecutorService executor = Executors.newFixedThreadPool(4);
+	try {
+	    List<Future<?>> results = new ArrayList<>();
+	    for (int t = 0; t < 4; t++) {
+		int offset = t;
+		results.add(executor.submit(() -> {
+		    for (int precision = 1 + offset; precision < 400; precision += 17) {
+			MathContext mc = new MathContext(precision);
+			BigDecimal twoPi = BigDecimalMath.pi(new MathContext(precision + 10)).multiply(BigDecimal.valueOf(2));
+			assertEquals(twoPi.round(mc), AConstants.twoPi(mc));
+		    }
+		}));
+	    }
+	    for (Future<?> result : results) {
+		result.get();
+	    }
+	} finally {
+	    executor.shutdown();
+	}
+    }
+
+}
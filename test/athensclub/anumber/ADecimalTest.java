@@ -0,0 +1,153 @@
+package athensclub.anumber;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Value-based comparison and hash codes of decimals.
+ * 
+ * @author Athensclub
+ *
+ */
+public class ADecimalTest {
+
+    @Test
+    public void equalValuesHaveEqualHashCodes() {
+	assertSameValue(new ADecimal("0.5"), ANumber.valueOf(1, 2), new ADecimal("0.500"), new AComplex(
+		new ADecimal("0.50"), ADecimal.ZERO));
+	assertSameValue(ANumber.valueOf(40), new ADecimal("4E+1"), new ADecimal("40.000"), new ADecimal(
+		new BigDecimal(BigInteger.valueOf(40).shiftLeft(80)).divide(new BigDecimal(BigInteger.ONE
+			.shiftLeft(80)))));
+	assertSameValue(ANumber.valueOf(-1, 8), new ADecimal("-0.125"), new ADecimal("-125E-3"));
+	assertSameValue(ANumber.valueOf(3, 1L << 40), new ADecimal(BigDecimal.valueOf(3).divide(BigDecimal.valueOf(
+		1L << 40))));
+	assertSameValue(ANumber.valueOf(7, 625), new ADecimal("0.0112"));
+	assertSameValue(ADecimal.ZERO, new ADecimal("0.000"), new ADecimal("0E+5"), ANumber.valueOf(0, 3));
+	// beyond long range
+	BigDecimal big = new BigDecimal("123456789012345678901234567890.0625");
+	AFraction fraction = new AFraction(ANumberCache.decimal(big.unscaledValue()), ANumberCache.decimal(
+		BigInteger.TEN.pow(4)));
+	assertSameValue(new ADecimal(big), fraction, new ADecimal(big.setScale(40)));
+    }
+
+    @Test
+    public void differentValuesAreNotEqual() {
+	assertNotEquals(new ADecimal("0.5"), new ADecimal("0.05"));
+	assertNotEquals(ANumber.valueOf(1, 3), new ADecimal("0.3333333333333333333333333333333333"));
+	assertNotEquals(new ADecimal("5").hashCode(), new ADecimal("0.5").hashCode());
+	assertNotEquals(new ADecimal("2").hashCode(), new ADecimal("0.2").hashCode());
+    }
+
+    @Test
+    @Timeout(5)
+    public void hashCodeOfExtremeScale() {
+	assertSameValue(new ADecimal("1E-100000000"), new ADecimal("10E-100000001"));
+	assertSameValue(new ADecimal("1E+100000000"), new ADecimal("1000E+99999997"));
+	assertNotEquals(new ADecimal("1E-100000000").hashCode(), new ADecimal("1E+100000000").hashCode());
+	new ADecimal("-3.5E-2147483000").hashCode();
+	new ADecimal(new BigDecimal(BigInteger.ONE.shiftLeft(100), -999999999)).hashCode();
+    }
+
+    /**
+     * Unscaled values at and near the limits of the compact form
+     */
+    private static final long[] UNSCALED = { 0, 1, -1, 7, 3037000499L, -3037000500L, 922337203685477580L,
+	    1000000000000000000L, -1000000000000000000L, Long.MAX_VALUE - 1, Long.MAX_VALUE,
+	    Long.MIN_VALUE + 1, Long.MIN_VALUE };
+
+    /**
+     * Scales with differences of 18 and 19 between them, where rescaling to the
+     * larger scale may or may not fit in a long
+     */
+    private static final int[] SCALES = { 0, 1, -1, 18, 19, 20, -18 };
+
+    @Test
+    public void compactArithmeticMatchesBigDecimal() {
+	for (long u1 : UNSCALED) {
+	    for (int s1 : SCALES) {
+		BigDecimal b1 = BigDecimal.valueOf(u1, s1);
+		ADecimal d1 = new ADecimal(b1);
+		ADecimal c1 = u1 == ADecimal.INFLATED ? d1 : new ADecimal(u1, s1);
+		assertExact(b1.negate(), c1.negate(), () -> "-" + b1);
+		assertExact(b1.negate().negate(), c1.negate().negate(), () -> "--" + b1);
+		assertEquals(b1.stripTrailingZeros().scale() <= 0, c1.isInteger(), () -> b1 + " is integer");
+		for (long u2 : UNSCALED) {
+		    for (int s2 : SCALES) {
+			BigDecimal b2 = BigDecimal.valueOf(u2, s2);
+			ADecimal d2 = new ADecimal(b2);
+			ADecimal c2 = u2 == ADecimal.INFLATED ? d2 : new ADecimal(u2, s2);
+			assertExact(b1.add(b2), c1.add(c2), () -> b1 + " + " + b2);
+			assertExact(b1.add(b2), d1.add(d2), () -> b1 + " + " + b2);
+			assertExact(b1.subtract(b2), c1.subtract(c2), () -> b1 + " - " + b2);
+			assertExact(b1.multiply(b2), c1.multiply(c2), () -> b1 + " * " + b2);
+			assertEquals(b1.compareTo(b2), c1.compareTo(c2), () -> b1 + " compareTo " + b2);
+			assertEquals(b1.compareTo(b2), d1.compareTo(d2), () -> b1 + " compareTo " + b2);
+		    }
+		}
+	    }
+	}
+    }
+
+    @Test
+    public void negateAroundInflated() {
+	// Long.MIN_VALUE is the INFLATED marker, so it is kept as BigDecimal
+	ADecimal min = (ADecimal) new ADecimal(Long.MIN_VALUE + 1, 3).add(new ADecimal(-1, 3));
+	assertExact(BigDecimal.valueOf(Long.MIN_VALUE, 3), min, () -> "MIN_VALUE");
+	assertExact(BigDecimal.valueOf(Long.MIN_VALUE, 3).negate(), min.negate(), () -> "-MIN_VALUE");
+	assertExact(BigDecimal.valueOf(Long.MIN_VALUE, 3), min.negate().negate(), () -> "--MIN_VALUE");
+	assertExact(BigDecimal.valueOf(Long.MAX_VALUE), new ADecimal(Long.MIN_VALUE + 1, 0).negate(),
+		() -> "-(MIN_VALUE + 1)");
+	assertExact(BigDecimal.valueOf(Long.MIN_VALUE + 1), new ADecimal(Long.MAX_VALUE, 0).negate(),
+		() -> "-MAX_VALUE");
+    }
+
+    @Test
+    public void overflowFallsBackToBigDecimal() {
+	AMetrics.enable();
+	AMetrics.getInstance().reset();
+	try {
+	    assertExact(BigDecimal.valueOf(Long.MAX_VALUE).add(BigDecimal.ONE), new ADecimal(Long.MAX_VALUE, 0)
+		    .add(ANumber.valueOf(1)), () -> "MAX_VALUE + 1");
+	    assertExact(BigDecimal.valueOf(Long.MAX_VALUE).multiply(BigDecimal.valueOf(2)), new ADecimal(
+		    Long.MAX_VALUE, 0).multiply(ANumber.valueOf(2)), () -> "MAX_VALUE * 2");
+	    // 1 rescaled to scale 19 does not fit in a long
+	    assertExact(new BigDecimal("1.0000000000000000001"), new ADecimal(1, 0).add(new ADecimal(1, 19)),
+		    () -> "1 + 1E-19");
+	    assertEquals(1, new ADecimal(1, 0).compareTo(new ADecimal(1, 19)));
+	    assertEquals(4, (long) AMetrics.getInstance().getFallbackCounts().get(
+		    AMetrics.Fallback.DECIMAL_OVERFLOW.name()));
+	    // 1 rescaled to scale 18 still fits
+	    assertExact(new BigDecimal("1.000000000000000001"), new ADecimal(1, 0).add(new ADecimal(1, 18)),
+		    () -> "1 + 1E-18");
+	    assertEquals(4, (long) AMetrics.getInstance().getFallbackCounts().get(
+		    AMetrics.Fallback.DECIMAL_OVERFLOW.name()));
+	} finally {
+	    AMetrics.disable();
+	    AMetrics.getInstance().reset();
+	}
+    }
+
+    /**
+     * Assert that actual has the same value and scale as expected
+     */
+    private static void assertExact(BigDecimal expected, ANumber actual, Supplier<String> message) {
+	assertEquals(expected, actual.bigDecimalValue(), message);
+	assertEquals(new ADecimal(expected), actual, message);
+	assertEquals(new ADecimal(expected).hashCode(), actual.hashCode(), message);
+    }
+
+    private static void assertSameValue(ANumber... values) {
+	for (ANumber value : values) {
+	    assertEquals(values[0], value, () -> value.getClass().getName());
+	    assertEquals(values[0].hashCode(), value.hashCode(), () -> value.getClass().getName());
+	}
+    }
+
+}
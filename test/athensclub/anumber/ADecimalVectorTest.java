@@ -0,0 +1,58 @@
+package athensclub.anumber;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Sums and dot products of decimal vectors.
+ * 
+ * @author Athensclub
+ *
+ */
+public class ADecimalVectorTest {
+
+    @Test
+    public void integralSumsAreIntegers() {
+	ADecimal sum = ADecimalVector.valueOf(ANumber.valueOf(2), ANumber.valueOf(3)).sum();
+	assertTrue(sum instanceof AInteger);
+	assertSame(ANumber.valueOf(5), sum);
+	assertSame(ADecimal.ZERO, new ADecimalVector(0).sum());
+	ADecimal big = ADecimalVector.valueOf(ANumber.valueOf(Long.MAX_VALUE), ANumber.valueOf(Long.MAX_VALUE))
+		.sum();
+	assertTrue(big instanceof AInteger);
+	assertEquals(BigDecimal.valueOf(Long.MAX_VALUE).multiply(BigDecimal.valueOf(2)), big.bigDecimalValue());
+    }
+
+    @Test
+    public void sumsMatchBigDecimal() {
+	String[][] cases = { { "0.5", "0.25", "-1" }, { "9223372036854775807", "1", "0.001" },
+		{ "-9223372036854775807", "-9223372036854775807", "12.5" },
+		{ "1E+30", "-1E+30", "7" }, { "1.5", "2.5" } };
+	for (String[] values : cases) {
+	    ADecimal[] decimals = new ADecimal[values.length];
+	    BigDecimal expected = BigDecimal.ZERO;
+	    for (int i = 0; i < values.length; i++) {
+		decimals[i] = new ADecimal(values[i]);
+		expected = expected.add(new BigDecimal(values[i]));
+	    }
+	    ADecimal sum = ADecimalVector.valueOf(decimals).sum();
+	    assertEquals(0, expected.compareTo(sum.bigDecimalValue()), String.join(" + ", values));
+	}
+    }
+
+    @Test
+    public void dotProductMatchesBigDecimal() {
+	ADecimalVector a = ADecimalVector.valueOf(new ADecimal("1.5"), ANumber.valueOf(Long.MAX_VALUE),
+		new ADecimal("-2"));
+	ADecimalVector b = ADecimalVector.valueOf(new ADecimal("2"), ANumber.valueOf(3), new ADecimal("0.25"));
+	BigDecimal expected = new BigDecimal("3").add(BigDecimal.valueOf(Long.MAX_VALUE).multiply(BigDecimal
+		.valueOf(3))).subtract(new BigDecimal("0.5"));
+	assertEquals(0, expected.compareTo(a.dot(b).bigDecimalValue()));
+    }
+
+}
@@ -0,0 +1,101 @@
+package athensclub.anumber;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Element-wise operations of double complex arrays, checked against
+ * {@link ADoubleComplex}.
+ * 
+ * @author Athensclub
+ *
+ */
+public class ADoubleComplexArrayTest {
+
+    private static final double TOLERANCE = 1e-12;
+
+    private static ADoubleComplexArray array() {
+	return new ADoubleComplexArray(new double[] { 1, -3, 0.5, 0 }, new double[] { 2, 4, -1.5, -2 });
+    }
+
+    private static ADoubleComplexArray other() {
+	return new ADoubleComplexArray(new double[] { 2, 0.25, -1, 7 }, new double[] { -1, 3, 0, 0.5 });
+    }
+
+    @Test
+    public void multiply() {
+	ADoubleComplexArray a = array(), b = other();
+	a.multiply(b);
+	for (int i = 0; i < a.length(); i++) {
+	    assertClose(array().get(i).multiply(other().get(i)), a.get(i));
+	}
+    }
+
+    @Test
+    public void multiplyBySelf() {
+	ADoubleComplexArray a = new ADoubleComplexArray(new double[] { 1 }, new double[] { 2 });
+	a.multiply(a);
+	assertArrayEquals(new double[] { -3 }, a.getReal());
+	assertArrayEquals(new double[] { 4 }, a.getImaginary());
+	ADoubleComplexArray b = array();
+	b.multiply(b);
+	for (int i = 0; i < b.length(); i++) {
+	    assertClose(array().get(i).multiply(array().get(i)), b.get(i));
+	}
+    }
+
+    @Test
+    public void addAndSubtractSelf() {
+	ADoubleComplexArray a = array();
+	a.add(a);
+	ADoubleComplexArray doubled = array().scale(2);
+	assertArrayEquals(doubled.getReal(), a.getReal());
+	assertArrayEquals(doubled.getImaginary(), a.getImaginary());
+	a.subtract(a);
+	assertArrayEquals(new double[4], a.getReal());
+	assertArrayEquals(new double[4], a.getImaginary());
+    }
+
+    @Test
+    public void multiplyByFactorAndExp() {
+	ADoubleComplex factor = new ADoubleComplex(0.5, -2);
+	ADoubleComplexArray a = array().multiply(factor);
+	ADoubleComplexArray e = array().exp();
+	for (int i = 0; i < a.length(); i++) {
+	    assertClose(array().get(i).multiply(factor), a.get(i));
+	    assertClose(array().get(i).exp(), e.get(i));
+	}
+    }
+
+    @Test
+    public void sumAndDot() {
+	ADoubleComplex sum = ADoubleComplex.ZERO, dot = ADoubleComplex.ZERO;
+	for (int i = 0; i < 4; i++) {
+	    sum = sum.add(array().get(i));
+	    dot = dot.add(array().get(i).multiply(other().get(i)));
+	}
+	assertClose(sum, array().sum());
+	assertClose(dot, array().dot(other()));
+	ADoubleComplex square = ADoubleComplex.ZERO;
+	for (int i = 0; i < 4; i++) {
+	    square = square.add(array().get(i).multiply(array().get(i)));
+	}
+	ADoubleComplexArray a = array();
+	assertClose(square, a.dot(a));
+    }
+
+    @Test
+    public void lengthMismatchThrows() {
+	assertThrows(IllegalArgumentException.class, () -> array().multiply(new ADoubleComplexArray(3)));
+	assertThrows(IllegalArgumentException.class, () -> new ADoubleComplexArray(new double[2], new double[3]));
+    }
+
+    private static void assertClose(ADoubleComplex expected, ADoubleComplex actual) {
+	assertEquals(expected.getReal(), actual.getReal(), TOLERANCE, actual.toString());
+	assertEquals(expected.getImaginary(), actual.getImaginary(), TOLERANCE, actual.toString());
+    }
+
+}
@@ -0,0 +1,59 @@
+package athensclub.anumber;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Interning of expressions built by several threads.
+ * 
+ * @author Athensclub
+ *
+ */
+public class AExpressionTest {
+
+    private static final int EXPRESSIONS = 2000;
+
+    @Test
+    public void equalExpressionsAreSameInstance() {
+	AExpression x = AExpression.variable("x");
+	assertSame(x, AExpression.variable("x"));
+	assertSame(x.add(AExpression.constant(ADecimal.ONE)), AExpression.variable("x").add(AExpression.constant(
+		ANumber.valueOf(1))));
+    }
+
+    @Test
+    public void threadsShareInstances() throws Exception {
+	ExecutorService executor = Executors.newFixedThreadPool(4);
+	try {
+	    List<Future<AExpression[]>> results = new ArrayList<>();
+	    for (int t = 0; t < 4; t++) {
+		results.add(executor.submit(AExpressionTest::build));
+	    }
+	    AExpression[] first = results.get(0).get();
+	    for (Future<AExpression[]> result : results) {
+		AExpression[] expressions = result.get();
+		for (int i = 0; i < EXPRESSIONS; i++) {
+		    assertSame(first[i], expressions[i]);
+		}
+	    }
+	} finally {
+	    executor.shutdown();
+	}
+    }
+
+    private static AExpression[] build() {
+	AExpression[] expressions = new AExpression[EXPRESSIONS];
+	for (int i = 0; i < EXPRESSIONS; i++) {
+	    expressions[i] = AExpression.variable("x" + i % 7).multiply(AExpression.constant(ANumber.valueOf(i)));
+	}
+	return expressions;
+    }
+
+}
@@ -0,0 +1,64 @@
+package athensclub.anumber;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.MathContext;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Parsing of formulas and the cache of compiled formulas.
+ * 
+ * @author Athensclub
+ *
+ */
+public class AFormulaTest {
+
+    @Test
+    public void evaluatesFormula() {
+	Map<String, ANumber> variables = new HashMap<>();
+	variables.put("x", ANumber.valueOf(3));
+	variables.put("y", ANumber.valueOf(1, 2));
+	assertEquals(ANumber.valueOf(-9), AFormula.evaluate("-x^2", variables));
+	assertEquals(ANumber.valueOf(512), AFormula.evaluate("2^3^2", variables));
+	assertEquals(ANumber.valueOf(39, 4), AFormula.evaluate("(x + y) * (x - y) + 1", variables));
+	assertEquals(new AComplex(ANumber.valueOf(3), ANumber.valueOf(2)), AFormula.evaluate("x + 2i", variables));
+	assertEquals(new AComplex(ANumber.valueOf(1), ANumber.valueOf(6)), AFormula.evaluate("1+2i*x", variables));
+	assertEquals(new ADecimal("-0.9975"), AFormula.evaluate("2.5e-3-1", variables));
+	assertEquals(ANumber.valueOf(1, 4), AFormula.evaluate("3/4-y", variables));
+	assertThrows(IllegalArgumentException.class, () -> AFormula.evaluate("x + ", variables));
+	assertThrows(IllegalArgumentException.class, () -> AFormula.evaluate("foo(x)", variables));
+    }
+
+    @Test
+    public void cacheReturnsSameCompiledFormula() {
+	ACompiledExpression compiled = AFormula.compile("x * x + 1");
+	assertSame(compiled, AFormula.compile("x * x + 1"));
+	assertNotSame(compiled, AMathContext.compute(new MathContext(50), () -> AFormula.compile("x * x + 1")));
+	AFormula.clearCache();
+	assertNotSame(compiled, AFormula.compile("x * x + 1"));
+    }
+
+    @Test
+    public void cacheEvictsUnusedFormulas() {
+	AFormula.clearCache();
+	ACompiledExpression used = AFormula.compile("x + 0");
+	for (int i = 1; i <= 3 * AFormula.CACHE_SIZE; i++) {
+	    AFormula.compile("x + " + i);
+	    // keep one formula in use while the others are added
+	    assertSame(used, AFormula.compile("x + 0"));
+	}
+	// the cache is full, so adding a formula evicts, but not the new one
+	ACompiledExpression added = AFormula.compile("x - 1");
+	assertSame(added, AFormula.compile("x - 1"));
+	assertEquals(ANumber.valueOf(5), AFormula.evaluate("x + 2", Collections.singletonMap("x", ANumber
+		.valueOf(3))));
+    }
+
+}
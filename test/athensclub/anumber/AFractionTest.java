@@ -0,0 +1,99 @@
+package athensclub.anumber;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Reduction of fractions to lowest terms and the gcd used for it.
+ * 
+ * @author Athensclub
+ *
+ */
+public class AFractionTest {
+
+    @Test
+    public void reducesToLowestTerms() {
+	assertFraction(ANumber.valueOf(6, 8), 3, 4);
+	assertFraction(ANumber.valueOf(-6, 8), -3, 4);
+	assertFraction(ANumber.valueOf(6, -8), -3, 4);
+	assertFraction(ANumber.valueOf(-6, -8), 3, 4);
+	assertFraction(ANumber.valueOf(1, Long.MAX_VALUE), 1, Long.MAX_VALUE);
+	assertFraction(ANumber.valueOf(Long.MAX_VALUE - 1, Long.MAX_VALUE - 1), 1, 1);
+    }
+
+    @Test
+    public void wholeFractionsBecomeIntegers() {
+	assertEquals(ANumber.valueOf(3), ANumber.valueOf(12, 4));
+	assertEquals(ANumber.valueOf(-2), ANumber.valueOf(4, -2));
+	assertEquals(ADecimal.ZERO, ANumber.valueOf(0, 7));
+    }
+
+    @Test
+    public void reducesBeyondLongRange() {
+	BigInteger big = BigInteger.ONE.shiftLeft(100);
+	AFraction f = new AFraction(ANumberCache.decimal(big.multiply(BigInteger.valueOf(3))),
+		ANumberCache.decimal(big.multiply(BigInteger.valueOf(-9))));
+	assertEquals(BigInteger.valueOf(-1), f.numeratorValue());
+	assertEquals(BigInteger.valueOf(3), f.denominatorValue());
+    }
+
+    @Test
+    public void reducesMinValue() {
+	AFraction f = new AFraction(ANumber.valueOf(Long.MIN_VALUE), ANumber.valueOf(6));
+	assertEquals(BigInteger.valueOf(Long.MIN_VALUE / 2), f.numeratorValue());
+	assertEquals(BigInteger.valueOf(3), f.denominatorValue());
+    }
+
+    @Test
+    public void divisionByZeroThrows() {
+	assertThrows(ArithmeticException.class, () -> ANumber.valueOf(1, 0));
+    }
+
+    @Test
+    public void gcdMatchesBigInteger() {
+	Random random = new Random(42);
+	for (int i = 0; i < 10000; i++) {
+	    long a = random.nextLong() >> random.nextInt(63), b = random.nextLong() >> random.nextInt(63);
+	    if (a == Long.MIN_VALUE || b == Long.MIN_VALUE) {
+		continue;
+	    }
+	    BigInteger x = BigInteger.valueOf(a), y = BigInteger.valueOf(b);
+	    assertEquals(x.gcd(y).longValue(), AFraction.gcd(a, b), a + ", " + b);
+	    assertEquals(x.gcd(y), AFraction.gcd(x, y));
+	}
+	assertEquals(0, AFraction.gcd(0, 0));
+	assertEquals(5, AFraction.gcd(0, -5));
+	assertEquals(Long.MAX_VALUE, AFraction.gcd(Long.MAX_VALUE, 0));
+	BigInteger min = BigInteger.valueOf(Long.MIN_VALUE);
+	assertEquals(min.abs(), AFraction.gcd(min, BigInteger.ZERO));
+    }
+
+    @Test
+    public void arithmeticStaysReduced() {
+	ANumber sum = ADecimal.ZERO;
+	for (int i = 1; i <= 20; i++) {
+	    sum = sum.add(ANumber.valueOf(1, (long) i * (i + 1)));
+	}
+	// telescoping sum 1 - 1/21
+	assertFraction(sum, 20, 21);
+	assertFraction(ANumber.valueOf(2, 3).multiply(ANumber.valueOf(9, 4)), 3, 2);
+    }
+
+    private static void assertFraction(ANumber value, long numerator, long denominator) {
+	if (denominator == 1) {
+	    assertEquals(ANumber.valueOf(numerator), value);
+	    return;
+	}
+	assertTrue(value instanceof AFraction, value.getClass().getName());
+	AFraction f = (AFraction) value;
+	assertEquals(BigInteger.valueOf(numerator), f.numeratorValue());
+	assertEquals(BigInteger.valueOf(denominator), f.denominatorValue());
+    }
+
+}
@@ -0,0 +1,68 @@
+package athensclub.anumber;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Hits, misses and eviction of the function cache with one and with many
+ * segments.
+ * 
+ * @author Athensclub
+ *
+ */
+public class AFunctionCacheTest {
+
+    @AfterEach
+    public void disable() {
+	AFunctionCache.disable();
+    }
+
+    @Test
+    public void singleSegment() {
+	AFunctionCache cache = AFunctionCache.enable(1);
+	BigDecimal first = sin(1);
+	assertEquals(first, sin(1));
+	sin(2);
+	assertEquals(1, cache.size());
+	assertEquals(1, cache.hitCount());
+	assertEquals(2, cache.missCount());
+	assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    public void manySegments() {
+	AFunctionCache cache = AFunctionCache.enable(4096);
+	for (int i = 0; i < 1000; i++) {
+	    sin(i);
+	}
+	for (int i = 0; i < 1000; i++) {
+	    assertEquals(AMath.sin(BigDecimal.valueOf(i), MathContext.DECIMAL64), sin(i));
+	}
+	// 256 results per segment, so only a very uneven spread evicts anything
+	assertEquals(1000, cache.missCount());
+	assertEquals(1000, cache.hitCount());
+	assertEquals(0, cache.evictionCount());
+	assertEquals(1000, cache.size());
+    }
+
+    @Test
+    public void sizeIsBounded() {
+	AFunctionCache cache = AFunctionCache.enable(100);
+	for (int i = 0; i < 1000; i++) {
+	    sin(i);
+	}
+	assertTrue(cache.size() <= 100, cache.toString());
+	assertEquals(1000 - cache.size(), cache.evictionCount());
+    }
+
+    private static BigDecimal sin(int x) {
+	return AFunctionCache.apply(AFunctionCache.Function.SIN, BigDecimal.valueOf(x), MathContext.DECIMAL64);
+    }
+
+}
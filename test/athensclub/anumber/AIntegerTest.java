@@ -0,0 +1,101 @@
+package athensclub.anumber;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Integer operations of AInteger and normalization of integer results to it.
+ * 
+ * @author Athensclub
+ *
+ */
+public class AIntegerTest {
+
+    /**
+     * Values at the limits of long and beyond them
+     */
+    private static final BigInteger[] VALUES = { BigInteger.ZERO, BigInteger.ONE, BigInteger.valueOf(-1),
+	    BigInteger.valueOf(7), BigInteger.valueOf(-12), BigInteger.valueOf(Long.MAX_VALUE),
+	    BigInteger.valueOf(Long.MIN_VALUE + 1), BigInteger.valueOf(Long.MIN_VALUE),
+	    BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE), BigInteger.TEN.pow(30).negate(),
+	    BigInteger.TEN.pow(30).add(BigInteger.valueOf(3)) };
+
+    @Test
+    public void operationsMatchBigInteger() {
+	for (BigInteger x : VALUES) {
+	    AInteger a = AInteger.valueOf(x);
+	    assertEquals(x, a.bigIntegerValue());
+	    assertEquals(!x.testBit(0), a.isEven(), () -> x + " is even");
+	    for (BigInteger y : VALUES) {
+		AInteger b = AInteger.valueOf(y);
+		String message = x + ", " + y;
+		assertInteger(x.gcd(y), a.gcd(b), message);
+		assertInteger(x.add(y), a.add(b), message);
+		assertInteger(x.multiply(y), a.multiply(b), message);
+		if (y.signum() == 0) {
+		    assertThrows(ArithmeticException.class, () -> a.divideAndRemainder(b), message);
+		    continue;
+		}
+		BigInteger[] qr = x.divideAndRemainder(y);
+		AInteger[] result = a.divideAndRemainder(b);
+		assertInteger(qr[0], result[0], message);
+		assertInteger(qr[1], result[1], message);
+		BigInteger floor = qr[1].signum() != 0 && qr[1].signum() != y.signum() ? qr[0].subtract(
+			BigInteger.ONE) : qr[0];
+		assertInteger(floor, a.floorDiv(b), message);
+		assertInteger(x.subtract(floor.multiply(y)), a.floorMod(b), message);
+		assertInteger(qr[1].abs(), a.remainder(b), message);
+	    }
+	}
+    }
+
+    @Test
+    public void integerResultsAreIntegers() {
+	assertTrue(ADecimal.ZERO instanceof AInteger);
+	assertTrue(ADecimal.NEGATIVE_ONE instanceof AInteger);
+	assertSame(AInteger.valueOf(5), ANumber.valueOf(5));
+	assertTrue(new ADecimal("1.5").add(new ADecimal("0.5")) instanceof ADecimal);
+	assertFalse(new ADecimal("1.5").add(new ADecimal("0.5")) instanceof AInteger);
+	assertTrue(new ADecimal(Long.MAX_VALUE, 0).add(ANumber.valueOf(1)) instanceof AInteger);
+	assertTrue(ANumber.valueOf(3, 4).multiply(ANumber.valueOf(4)).isInteger());
+	assertTrue(ANumber.valueOf("123456789012345678901234567890") instanceof AInteger);
+	assertTrue(((AFraction) ANumber.valueOf(3, 4)).getDenominator() instanceof AInteger);
+	assertTrue(new AMutableDecimal(new ADecimal(Long.MAX_VALUE, 0)).addTo(ANumber.valueOf(1)).toImmutable()
+		instanceof AInteger);
+	assertTrue(new AMutableFraction(ANumber.valueOf(1, 2)).addTo(ANumber.valueOf(1, 2)).toImmutable()
+		instanceof AInteger);
+	// the public constructor keeps creating ADecimal
+	assertFalse(new ADecimal("2") instanceof AInteger);
+	assertEquals(new ADecimal("2"), ANumber.valueOf(2));
+	assertEquals(new ADecimal("2").hashCode(), ANumber.valueOf(2).hashCode());
+    }
+
+    @Test
+    public void codecReadsIntegers() {
+	ANumber[] numbers = { ANumber.valueOf(42), AInteger.valueOf(BigInteger.TEN.pow(40)), new ADecimal(
+		"1.0") };
+	ByteBuffer buffer = ByteBuffer.allocate(ANumber.encodedSize(numbers));
+	ANumber.writeAll(numbers, buffer);
+	buffer.flip();
+	ANumber[] read = ANumber.readAll(buffer);
+	assertTrue(read[0] instanceof AInteger);
+	assertTrue(read[1] instanceof AInteger);
+	assertFalse(read[2] instanceof AInteger);
+	assertEquals(new BigDecimal("1.0"), read[2].bigDecimalValue());
+    }
+
+    private static void assertInteger(BigInteger expected, ANumber actual, String message) {
+	assertTrue(actual instanceof AInteger, () -> message + ": " + actual.getClass().getName());
+	assertEquals(expected, ((AInteger) actual).bigIntegerValue(), message);
+    }
+
+}
@@ -0,0 +1,71 @@
+package athensclub.anumber;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Adaptive comparisons of lazy numbers, and their equality.
+ * 
+ * @author Athensclub
+ *
+ */
+public class ALazyNumberTest {
+
+    private static final ANumber TWO = ANumber.valueOf(2);
+
+    @Test
+    public void comparesEqualValuesAsEqual() {
+	ANumber x = TWO.lazy().sqrt().multiply(TWO.lazy().sqrt());
+	assertEquals(0, x.compareTo(TWO));
+	assertTrue(x.subtract(TWO).isZero());
+    }
+
+    @Test
+    public void decidesDifferencesBelowDefaultPrecision() {
+	// 1 + 10^-50 differs from 1 after more digits than the initial interval
+	ANumber tiny = ANumber.valueOf("1e-50");
+	ANumber x = ADecimal.ONE.lazy().add(tiny);
+	assertEquals(1, x.compareTo(ADecimal.ONE));
+	assertEquals(-1, ADecimal.ONE.lazy().subtract(tiny).compareTo(ADecimal.ONE));
+	assertTrue(x.subtract(ADecimal.ONE).isPositive());
+	assertFalse(x.subtract(ADecimal.ONE).isZero());
+    }
+
+    @Test
+    public void comparesTranscendentalValues() {
+	ANumber x = ANumber.valueOf(1).lazy();
+	// sin(1)^2 + cos(1)^2 = 1
+	ANumber one = x.sin().multiply(x.sin()).add(x.cos().multiply(x.cos()));
+	assertEquals(0, one.compareTo(ADecimal.ONE));
+	assertEquals(1, x.exp().compareTo(ANumber.valueOf("2.718281828459045")));
+	assertEquals(-1, x.exp().compareTo(ANumber.valueOf("2.718281828459046")));
+    }
+
+    @Test
+    public void equalsOnlySameExpression() {
+	ANumber x = TWO.lazy().sqrt().multiply(TWO.lazy().sqrt());
+	ANumber y = TWO.lazy().sqrt().multiply(TWO.lazy().sqrt());
+	assertEquals(x, y);
+	assertEquals(x.hashCode(), y.hashCode());
+	assertFalse(x.equals(TWO));
+	assertFalse(TWO.equals(x));
+	assertFalse(new AComplex(TWO, ADecimal.ZERO).equals(x));
+    }
+
+    @Test
+    public void hashSetAgreesWithEquals() {
+	ANumber x = TWO.lazy().sqrt().multiply(TWO.lazy().sqrt());
+	Set<ANumber> set = new HashSet<>(Arrays.asList(TWO, x));
+	assertEquals(2, set.size());
+	assertTrue(set.contains(TWO));
+	assertTrue(set.contains(TWO.lazy().sqrt().multiply(TWO.lazy().sqrt())));
+    }
+
+}
@@ -0,0 +1,63 @@
+package athensclub.anumber;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import org.junit.jupiter.api.Test;
+
+import ch.obermuhlner.math.big.BigDecimalMath;
+
+/**
+ * Trigonometric functions after reduction modulo pi/2, for ordinary, large and
+ * nearly multiple of pi/2 arguments.
+ * 
+ * @author Athensclub
+ *
+ */
+public class AMathTest {
+
+    private static final MathContext MC = new MathContext(50);
+
+    private static final MathContext REFERENCE = new MathContext(300);
+
+    @Test
+    public void ordinaryAndLargeArguments() {
+	for (String x : new String[] { "0", "0.5", "-0.7", "1.5", "2", "-3.25", "10", "123.456", "-98765.4321",
+		"1E+20", "3.14159" }) {
+	    check(new BigDecimal(x));
+	}
+    }
+
+    @Test
+    public void nearMultiplesOfHalfPi() {
+	BigDecimal halfPi = BigDecimalMath.pi(REFERENCE).divide(BigDecimal.valueOf(2), REFERENCE);
+	for (int k : new int[] { 1, 2, 3, 4, 7, 1000 }) {
+	    BigDecimal multiple = halfPi.multiply(BigDecimal.valueOf(k));
+	    // agrees with k * pi/2 to 40 and to 80 digits
+	    check(multiple.round(new MathContext(40 + multiple.precision() - multiple.scale())));
+	    check(multiple.round(new MathContext(80)));
+	}
+    }
+
+    private static void check(BigDecimal x) {
+	assertClose(BigDecimalMath.sin(x, REFERENCE), AMath.sin(x, MC), "sin " + x);
+	assertClose(BigDecimalMath.cos(x, REFERENCE), AMath.cos(x, MC), "cos " + x);
+	BigDecimal[] sinCos = AMath.sinCos(x, MC);
+	assertClose(BigDecimalMath.sin(x, REFERENCE), sinCos[0], "sinCos " + x);
+	assertClose(BigDecimalMath.cos(x, REFERENCE), sinCos[1], "sinCos " + x);
+    }
+
+    private static void assertClose(BigDecimal expected, BigDecimal actual, String message) {
+	if (expected.round(MC).signum() == 0) {
+	    assertEquals(0, actual.signum(), message);
+	    return;
+	}
+	// within two units in the last place of 50 digits
+	BigDecimal error = expected.subtract(actual).abs();
+	assertEquals(-1, error.compareTo(expected.round(MC).ulp().multiply(BigDecimal.valueOf(2))), message + ": "
+		+ actual);
+    }
+
+}
@@ -0,0 +1,156 @@
+package athensclub.anumber;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Exact Bareiss elimination, checked against cofactor expansion and matrix
+ * products.
+ * 
+ * @author Athensclub
+ *
+ */
+public class AMatrixTest {
+
+    private static final Random RANDOM = new Random(7);
+
+    @Test
+    public void determinantMatchesLaplaceExpansion() {
+	for (int n = 1; n <= 6; n++) {
+	    for (int trial = 0; trial < 5; trial++) {
+		AMatrix m = random(n, n, trial % 2 == 1);
+		assertEquals(laplace(m.toArray()), m.determinant(), m.toString());
+	    }
+	}
+	assertEquals(ADecimal.ONE, AMatrix.identity(0).determinant());
+    }
+
+    @Test
+    public void determinantCountsRowSwaps() {
+	AMatrix m = matrix(new long[][] { { 0, 1 }, { 1, 0 } });
+	assertEquals(ANumber.valueOf(-1), m.determinant());
+	AMatrix p = matrix(new long[][] { { 0, 0, 2 }, { 0, 3, 0 }, { 5, 0, 0 } });
+	assertEquals(ANumber.valueOf(-30), p.determinant());
+    }
+
+    @Test
+    public void singularMatrices() {
+	AMatrix m = matrix(new long[][] { { 1, 2, 3 }, { 4, 5, 6 }, { 7, 8, 9 } });
+	assertEquals(ADecimal.ZERO, m.determinant());
+	assertEquals(2, m.rank());
+	assertThrows(ArithmeticException.class, m::inverse);
+	assertThrows(ArithmeticException.class, () -> m.solve(ADecimal.ONE, ADecimal.ONE, ADecimal.ONE));
+    }
+
+    @Test
+    public void rankOfRectangularMatrices() {
+	assertEquals(1, matrix(new long[][] { { 1, 2, 3 }, { 2, 4, 6 } }).rank());
+	assertEquals(2, matrix(new long[][] { { 0, 1, 2 }, { 0, 2, 5 }, { 0, 3, 7 } }).rank());
+	assertEquals(2, matrix(new long[][] { { 1, 0 }, { 0, 1 }, { 1, 1 } }).rank());
+	assertEquals(0, matrix(new long[][] { { 0, 0 }, { 0, 0 } }).rank());
+    }
+
+    @Test
+    public void inverseIsExact() {
+	for (int n = 1; n <= 6; n++) {
+	    AMatrix m = random(n, n, n % 2 == 0);
+	    if (m.determinant().isZero()) {
+		continue;
+	    }
+	    assertEquals(AMatrix.identity(n), m.multiply(m.inverse()));
+	    assertEquals(AMatrix.identity(n), m.inverse().multiply(m));
+	}
+	AMatrix hilbert = hilbert(5);
+	assertEquals(AMatrix.identity(5), hilbert.multiply(hilbert.inverse()));
+	assertEquals(ANumber.valueOf(44100), hilbert.inverse().get(4, 4));
+    }
+
+    @Test
+    public void solveIsExact() {
+	AMatrix m = matrix(new long[][] { { 2, 1, -1 }, { -3, -1, 2 }, { -2, 1, 2 } });
+	ANumber[] x = m.solve(ANumber.valueOf(8), ANumber.valueOf(-11), ANumber.valueOf(-3));
+	assertArrayEquals(new ANumber[] { ANumber.valueOf(2), ANumber.valueOf(3), ANumber.valueOf(-1) }, x);
+	AMatrix right = random(4, 3, true);
+	AMatrix a = random(4, 4, true);
+	if (!a.determinant().isZero()) {
+	    assertEquals(right, a.multiply(a.solve(right)));
+	}
+    }
+
+    @Test
+    public void blockedMultiplyMatchesNaive() {
+	AMatrix a = random(70, 45, false), b = random(45, 38, true);
+	ANumber[][] x = a.toArray(), y = b.toArray();
+	ANumber[][] expected = new ANumber[70][38];
+	for (int i = 0; i < 70; i++) {
+	    for (int j = 0; j < 38; j++) {
+		ANumber sum = ADecimal.ZERO;
+		for (int k = 0; k < 45; k++) {
+		    sum = sum.add(x[i][k].multiply(y[k][j]));
+		}
+		expected[i][j] = sum;
+	    }
+	}
+	assertEquals(AMatrix.valueOf(expected), a.multiply(b));
+    }
+
+    private static ANumber laplace(ANumber[][] m) {
+	int n = m.length;
+	if (n == 1) {
+	    return m[0][0];
+	}
+	ANumber result = ADecimal.ZERO;
+	for (int c = 0; c < n; c++) {
+	    ANumber[][] minor = new ANumber[n - 1][n - 1];
+	    for (int i = 1; i < n; i++) {
+		for (int j = 0, k = 0; j < n; j++) {
+		    if (j != c) {
+			minor[i - 1][k++] = m[i][j];
+		    }
+		}
+	    }
+	    ANumber term = m[0][c].multiply(laplace(minor));
+	    result = (c & 1) == 0 ? result.add(term) : result.subtract(term);
+	}
+	return result;
+    }
+
+    private static AMatrix random(int rows, int columns, boolean fractions) {
+	ANumber[][] entries = new ANumber[rows][columns];
+	for (int i = 0; i < rows; i++) {
+	    for (int j = 0; j < columns; j++) {
+		long numerator = RANDOM.nextInt(19) - 9;
+		entries[i][j] = fractions ? ANumber.valueOf(numerator, RANDOM.nextInt(5) + 1)
+			: ANumber.valueOf(numerator);
+	    }
+	}
+	return AMatrix.valueOf(entries);
+    }
+
+    private static AMatrix matrix(long[][] values) {
+	ANumber[][] entries = new ANumber[values.length][];
+	for (int i = 0; i < values.length; i++) {
+	    entries[i] = new ANumber[values[i].length];
+	    for (int j = 0; j < values[i].length; j++) {
+		entries[i][j] = ANumber.valueOf(values[i][j]);
+	    }
+	}
+	return AMatrix.valueOf(entries);
+    }
+
+    private static AMatrix hilbert(int n) {
+	ANumber[][] entries = new ANumber[n][n];
+	for (int i = 0; i < n; i++) {
+	    for (int j = 0; j < n; j++) {
+		entries[i][j] = ANumber.valueOf(1, i + j + 1);
+	    }
+	}
+	return AMatrix.valueOf(entries);
+    }
+
+}
@@ -0,0 +1,49 @@
+package athensclub.anumber;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Counters recorded by AMetrics.
+ * 
+ * @author Athensclub
+ *
+ */
+public class AMetricsTest {
+
+    private final AMetrics metrics = AMetrics.getInstance();
+
+    @BeforeEach
+    public void enable() {
+	AMetrics.enable();
+	metrics.reset();
+    }
+
+    @AfterEach
+    public void disable() {
+	AMetrics.disable();
+	metrics.reset();
+    }
+
+    @Test
+    public void fractionsInLowestTermsAreCounted() {
+	AFraction.fromLowestTerms(BigInteger.valueOf(3), BigInteger.TEN.pow(40));
+	assertEquals(1, metrics.getFractionsCreated());
+	assertEquals(41, metrics.getMaxDenominatorDigits());
+	new AFraction(ANumber.valueOf(2), ANumber.valueOf(4));
+	assertEquals(2, metrics.getFractionsCreated());
+    }
+
+    @Test
+    public void nothingIsCountedWhenDisabled() {
+	AMetrics.disable();
+	AFraction.fromLowestTerms(BigInteger.ONE, BigInteger.valueOf(7));
+	assertEquals(0, metrics.getFractionsCreated());
+    }
+
+}
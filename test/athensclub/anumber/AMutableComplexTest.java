@@ -0,0 +1,49 @@
+package athensclub.anumber;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * In place complex arithmetic, including operands that are the accumulator
+ * itself.
+ * 
+ * @author Athensclub
+ *
+ */
+public class AMutableComplexTest {
+
+    private static final ANumber X = new AComplex(ANumber.valueOf(1, 2), ANumber.valueOf(3));
+
+    private static final ANumber Y = new AComplex(ANumber.valueOf(-2), ANumber.valueOf(5, 7));
+
+    @Test
+    public void fma() {
+	AMutableComplex acc = new AMutableComplex(Y);
+	acc.fma(new AMutableComplex(X), new AMutableComplex(Y));
+	assertEquals(Y.add(X.multiply(Y)), acc.toImmutable());
+	acc.set(Y).fma(X, Y);
+	assertEquals(Y.add(X.multiply(Y)), acc.toImmutable());
+    }
+
+    @Test
+    public void fmaWithSelf() {
+	AMutableComplex acc = new AMutableComplex(X);
+	acc.fma(acc, new AMutableComplex(Y));
+	assertEquals(X.add(X.multiply(Y)), acc.toImmutable());
+	acc.set(X).fma(new AMutableComplex(Y), acc);
+	assertEquals(X.add(Y.multiply(X)), acc.toImmutable());
+	acc.set(X).fma(acc, acc);
+	assertEquals(X.add(X.multiply(X)), acc.toImmutable());
+    }
+
+    @Test
+    public void multiplyByWithSelf() {
+	AMutableComplex acc = new AMutableComplex(X);
+	acc.multiplyBy(acc);
+	assertEquals(X.multiply(X), acc.toImmutable());
+	acc.set(X).addTo(acc);
+	assertEquals(X.add(X), acc.toImmutable());
+    }
+
+}
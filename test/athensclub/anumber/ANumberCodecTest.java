@@ -0,0 +1,120 @@
+package athensclub.anumber;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Round trips of the binary format and rejection of invalid data.
+ * 
+ * @author Athensclub
+ *
+ */
+@Timeout(10)
+public class ANumberCodecTest {
+
+    private static final ANumber[] NUMBERS = { ADecimal.ZERO, ANumber.valueOf(-1), ANumber.valueOf("12.345"),
+	    ANumber.valueOf(Long.MIN_VALUE), ANumber.valueOf(Long.MAX_VALUE),
+	    ANumber.valueOf("-123456789012345678901234567890.5"), ANumber.valueOf(1, 3), ANumber.valueOf(-7, 12),
+	    ANumber.valueOf(Long.MIN_VALUE, 3), ANumber.valueOf(Long.MAX_VALUE, 3), ANumber.valueOf(3, Long.MAX_VALUE),
+	    ANumber.valueOf(1, Long.MIN_VALUE), ANumber.valueOf(Long.MIN_VALUE, Long.MAX_VALUE),
+	    ANumber.valueOf(Long.MAX_VALUE, Long.MAX_VALUE - 1), new AComplex(ANumber.valueOf(1, 2), ANumber.valueOf(-3)),
+	    new AComplex(ANumber.valueOf(Long.MIN_VALUE, 3), ANumber.valueOf(Long.MAX_VALUE, 7)) };
+
+    @Test
+    public void roundTrip() {
+	for (ANumber number : NUMBERS) {
+	    ByteBuffer buffer = ByteBuffer.allocate(number.encodedSize());
+	    number.writeTo(buffer);
+	    assertFalse(buffer.hasRemaining(), "encodedSize of " + number);
+	    buffer.flip();
+	    ANumber read = ANumber.readFrom(buffer);
+	    assertEquals(number, read);
+	    assertEquals(number.getClass(), read.getClass());
+	    assertFalse(buffer.hasRemaining());
+	}
+    }
+
+    @Test
+    public void roundTripAll() {
+	ByteBuffer buffer = ByteBuffer.allocate(ANumber.encodedSize(NUMBERS));
+	ANumber.writeAll(NUMBERS, buffer);
+	buffer.flip();
+	ANumber[] read = ANumber.readAll(buffer);
+	assertEquals(NUMBERS.length, read.length);
+	for (int i = 0; i < read.length; i++) {
+	    assertEquals(NUMBERS[i], read[i]);
+	}
+    }
+
+    @Test
+    public void serialization() throws IOException, ClassNotFoundException {
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+	    out.writeObject(NUMBERS);
+	}
+	try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+	    ANumber[] read = (ANumber[]) in.readObject();
+	    for (int i = 0; i < read.length; i++) {
+		assertEquals(NUMBERS[i], read[i]);
+	    }
+	}
+    }
+
+    @Test
+    public void decimalScaleIsKept() {
+	ANumber number = ANumber.valueOf("1.500");
+	ByteBuffer buffer = ByteBuffer.allocate(number.encodedSize());
+	number.writeTo(buffer);
+	buffer.flip();
+	assertEquals(new BigDecimal("1.500"), ANumber.readFrom(buffer).bigDecimalValue());
+    }
+
+    @Test
+    public void rejectsCompactMinValueNumerator() {
+	ByteBuffer buffer = ByteBuffer.allocate(32);
+	buffer.put(ANumberCodec.FRACTION);
+	// zigzag of Long.MIN_VALUE
+	ANumberCodec.writeVarint(-1, buffer);
+	ANumberCodec.writeVarint(3, buffer);
+	buffer.flip();
+	assertThrows(IllegalArgumentException.class, () -> ANumber.readFrom(buffer));
+    }
+
+    @Test
+    public void rejectsFractionNotInLowestTerms() {
+	ByteBuffer buffer = ByteBuffer.allocate(32);
+	buffer.put(ANumberCodec.FRACTION);
+	ANumberCodec.writeVarint(4, buffer);
+	ANumberCodec.writeVarint(4, buffer);
+	buffer.flip();
+	assertThrows(IllegalArgumentException.class, () -> ANumber.readFrom(buffer));
+    }
+
+    @Test
+    public void rejectsNestedComplex() {
+	ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+	for (int i = 0; i < buffer.capacity(); i++) {
+	    buffer.put(ANumberCodec.COMPLEX);
+	}
+	buffer.flip();
+	assertThrows(IllegalArgumentException.class, () -> ANumber.readFrom(buffer));
+    }
+
+    @Test
+    public void rejectsUnknownTag() {
+	assertThrows(IllegalArgumentException.class, () -> ANumber.readFrom(ByteBuffer.wrap(new byte[] { 42 })));
+    }
+
+}
@@ -0,0 +1,129 @@
+package athensclub.anumber;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Exact aggregation of sequential and parallel streams with ANumberCollectors.
+ * 
+ * @author Athensclub
+ *
+ */
+public class ANumberCollectorsTest {
+
+    @Test
+    public void sumMatchesAdd() {
+	List<ANumber> numbers = mixed(5000);
+	ANumber expected = ADecimal.ZERO;
+	for (ANumber number : numbers) {
+	    expected = expected.add(number);
+	}
+	assertEquals(expected, numbers.stream().collect(ANumberCollectors.sum()));
+	assertEquals(expected, numbers.parallelStream().collect(ANumberCollectors.sum()));
+    }
+
+    @Test
+    public void sumOfManyDenominators() {
+	// more distinct denominators than are kept before combining them
+	List<ANumber> numbers = new ArrayList<>();
+	for (int i = 1; i <= 300; i++) {
+	    numbers.add(ANumber.valueOf(1, i));
+	    numbers.add(ANumber.valueOf(-1, i));
+	}
+	numbers.add(ANumber.valueOf(1, 3));
+	Collections.shuffle(numbers);
+	assertEquals(ANumber.valueOf(1, 3), numbers.parallelStream().collect(ANumberCollectors.sum()));
+	// fractions that add up to an integer
+	ANumber integer = Stream.of(ANumber.valueOf(1, 2), ANumber.valueOf(1, 3), ANumber.valueOf(1, 6),
+		ANumber.valueOf(1)).collect(ANumberCollectors.sum());
+	assertTrue(integer instanceof AInteger);
+	assertEquals(ANumber.valueOf(2), integer);
+    }
+
+    @Test
+    public void productMatchesMultiply() {
+	List<ANumber> numbers = mixed(300);
+	numbers.removeIf(ANumber::isZero);
+	ANumber expected = ADecimal.ONE;
+	for (ANumber number : numbers) {
+	    expected = expected.multiply(number);
+	}
+	assertEquals(expected, numbers.stream().collect(ANumberCollectors.product()));
+	assertEquals(expected, numbers.parallelStream().collect(ANumberCollectors.product()));
+	assertEquals(ANumber.valueOf(1), Stream.of(ANumber.valueOf(2, 3), ANumber.valueOf(3, 2)).collect(
+		ANumberCollectors.product()));
+    }
+
+    @Test
+    public void meanAndVariance() {
+	List<ANumber> numbers = new ArrayList<>();
+	for (String literal : new String[] { "2", "4", "4", "4", "5", "5", "7", "9" }) {
+	    numbers.add(ANumber.valueOf(literal));
+	}
+	assertEquals(ANumber.valueOf(5), numbers.parallelStream().collect(ANumberCollectors.mean()));
+	assertEquals(ANumber.valueOf(4), numbers.parallelStream().collect(ANumberCollectors.variance()));
+	List<ANumber> fractions = new ArrayList<>();
+	fractions.add(ANumber.valueOf(1, 3));
+	fractions.add(new ADecimal("0.5"));
+	fractions.add(new AComplex(ANumber.valueOf(1), ADecimal.ZERO));
+	// mean 11/18, squares 1/9 + 1/4 + 1 = 49/36
+	assertEquals(ANumber.valueOf(11, 18), fractions.stream().collect(ANumberCollectors.mean()));
+	assertEquals(ANumber.valueOf(49, 108).subtract(ANumber.valueOf(121, 324)), fractions.stream().collect(
+		ANumberCollectors.variance()));
+	assertThrows(IllegalArgumentException.class, () -> Stream.<ANumber>of(ANumber.valueOf("1+2i")).collect(
+		ANumberCollectors.variance()));
+    }
+
+    @Test
+    public void emptyStreams() {
+	assertEquals(ADecimal.ZERO, Stream.<ANumber>empty().collect(ANumberCollectors.sum()));
+	assertEquals(ADecimal.ONE, Stream.<ANumber>empty().collect(ANumberCollectors.product()));
+	assertEquals(ADecimal.ZERO, Stream.<ANumber>empty().collect(ANumberCollectors.mean()));
+	assertEquals(ADecimal.ZERO, Stream.<ANumber>empty().collect(ANumberCollectors.variance()));
+	assertFalse(Stream.<ANumber>empty().collect(ANumberCollectors.min()).isPresent());
+    }
+
+    @Test
+    public void minAndMax() {
+	List<ANumber> numbers = new ArrayList<>();
+	for (String literal : new String[] { "0.5", "-1/3", "7", "-0.34", "13/2" }) {
+	    numbers.add(ANumber.valueOf(literal));
+	}
+	assertEquals(new ADecimal("-0.34"), numbers.parallelStream().collect(ANumberCollectors.min()).get());
+	assertEquals(ANumber.valueOf(7), numbers.parallelStream().collect(ANumberCollectors.max()).get());
+    }
+
+    /**
+     * Decimals, fractions and complex numbers
+     */
+    private static List<ANumber> mixed(int count) {
+	List<ANumber> result = new ArrayList<>();
+	for (int i = 0; i < count; i++) {
+	    switch (i % 4) {
+	    case 0:
+		result.add(ANumber.valueOf(i - count / 2));
+		break;
+	    case 1:
+		result.add(new ADecimal(i + ".0" + i % 7));
+		break;
+	    case 2:
+		result.add(ANumber.valueOf(i % 11 - 5, i % 13 + 1));
+		break;
+	    default:
+		result.add(new AComplex(ANumber.valueOf(i % 5, 3), new ADecimal("-0." + i % 9)));
+		break;
+	    }
+	}
+	return result;
+    }
+
+}
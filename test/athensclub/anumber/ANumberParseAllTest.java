@@ -0,0 +1,185 @@
+package athensclub.anumber;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Bulk parsing of files, channels and buffers, sequentially and in parallel.
+ * 
+ * @author Athensclub
+ *
+ */
+public class ANumberParseAllTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void parseBuffer() {
+	ByteBuffer buffer = ByteBuffer.wrap("x 1 2.5, 3/4;1+2i x".getBytes(StandardCharsets.US_ASCII));
+	buffer.position(2).limit(17);
+	List<ANumber> numbers = ANumber.parseAll(buffer).collect(Collectors.toList());
+	assertEquals(4, numbers.size());
+	assertEquals(new ADecimal("2.5"), numbers.get(1));
+	assertEquals(new AComplex(ANumber.valueOf(1), ANumber.valueOf(2)), numbers.get(3));
+	assertEquals(2, buffer.position());
+    }
+
+    @Test
+    public void parallelBufferKeepsOrder() {
+	String text = literals(200000);
+	List<ANumber> expected = sequential(text);
+	ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+	assertEquals(expected, ANumber.parseAll(buffer).parallel().collect(Collectors.toList()));
+	ByteBuffer direct = ByteBuffer.allocateDirect(buffer.capacity());
+	direct.put(buffer.duplicate()).flip();
+	assertEquals(expected, ANumber.parseAll(direct).parallel().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void splitsAtSeparators() {
+	String text = literals(100000);
+	Spliterator<ANumber> suffix = ANumber.parseAll(ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII)))
+		.spliterator();
+	Spliterator<ANumber> prefix = suffix.trySplit();
+	assertNotNull(prefix);
+	List<ANumber> numbers = new ArrayList<>();
+	prefix.forEachRemaining(numbers::add);
+	suffix.forEachRemaining(numbers::add);
+	assertEquals(sequential(text), numbers);
+	// too small to split
+	assertNull(ANumber.parseAll(ByteBuffer.wrap("1 2 3".getBytes(StandardCharsets.US_ASCII))).spliterator()
+		.trySplit());
+    }
+
+    @Test
+    public void parseChannelByChunks() {
+	String text = literals(30000);
+	List<ANumber> expected = sequential(text);
+	byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+	assertEquals(expected, ANumber.parseAll(Channels.newChannel(new ByteArrayInputStream(bytes))).collect(
+		Collectors.toList()));
+	// literals are cut between reads
+	assertEquals(expected, ANumber.parseAll(new SlowChannel(bytes, 7)).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void parseChannelWithLongLiteral() {
+	StringBuilder literal = new StringBuilder("1.");
+	for (int i = 0; i < 200000; i++) {
+	    literal.append((char) ('0' + i % 10));
+	}
+	String text = "1 " + literal + " 2";
+	List<ANumber> numbers = ANumber.parseAll(new SlowChannel(text.getBytes(StandardCharsets.US_ASCII), 1000))
+		.collect(Collectors.toList());
+	assertEquals(3, numbers.size());
+	assertEquals(new ADecimal(literal.toString()), numbers.get(1));
+	assertEquals(ANumber.valueOf(2), numbers.get(2));
+    }
+
+    @Test
+    public void parseFile() throws IOException {
+	String text = literals(100000);
+	Path file = directory.resolve("numbers.txt");
+	Files.write(file, text.getBytes(StandardCharsets.US_ASCII));
+	try (Stream<ANumber> numbers = ANumber.parseAll(file)) {
+	    assertEquals(sequential(text), numbers.parallel().collect(Collectors.toList()));
+	}
+	Path empty = Files.createFile(directory.resolve("empty.txt"));
+	try (Stream<ANumber> numbers = ANumber.parseAll(empty)) {
+	    assertEquals(0, numbers.count());
+	}
+    }
+
+    /**
+     * Literals of several kinds separated by different separators
+     */
+    private static String literals(int count) {
+	StringBuilder result = new StringBuilder();
+	String[] separators = { " ", ",", ";", "\n", "\t", ", " };
+	for (int i = 0; i < count; i++) {
+	    switch (i % 4) {
+	    case 0:
+		result.append(i);
+		break;
+	    case 1:
+		result.append(-i).append('.').append(i % 100);
+		break;
+	    case 2:
+		result.append(i).append('/').append(i + 1);
+		break;
+	    default:
+		result.append(i % 10).append('-').append(i % 7).append('i');
+		break;
+	    }
+	    result.append(separators[i % separators.length]);
+	}
+	return result.toString();
+    }
+
+    private static List<ANumber> sequential(String text) {
+	List<ANumber> result = new ArrayList<>();
+	ANumberScanner scanner = new ANumberScanner(text);
+	while (scanner.hasNext()) {
+	    result.add(scanner.next());
+	}
+	return result;
+    }
+
+    /**
+     * Channel that reads at most the given number of bytes at a time
+     */
+    private static final class SlowChannel implements ReadableByteChannel {
+
+	private final ByteBuffer source;
+
+	private final int chunk;
+
+	private SlowChannel(byte[] bytes, int chunk) {
+	    this.source = ByteBuffer.wrap(bytes);
+	    this.chunk = chunk;
+	}
+
+	@Override
+	public int read(ByteBuffer destination) {
+	    if (!source.hasRemaining()) {
+		return -1;
+	    }
+	    ByteBuffer part = source.duplicate();
+	    part.limit(Math.min(source.limit(), source.position() + Math.min(chunk, destination.remaining())));
+	    int read = part.remaining();
+	    destination.put(part);
+	    source.position(source.position() + read);
+	    return read;
+	}
+
+	@Override
+	public boolean isOpen() {
+	    return true;
+	}
+
+	@Override
+	public void close() {
+	}
+
+    }
+
+}
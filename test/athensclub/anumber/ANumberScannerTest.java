@@ -0,0 +1,130 @@
+package athensclub.anumber;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Literals, separators and errors of ANumberScanner.
+ * 
+ * @author Athensclub
+ *
+ */
+public class ANumberScannerTest {
+
+    @Test
+    public void decimals() {
+	assertExact("-12", ANumber.valueOf("-12"));
+	assertExact("1.50", ANumber.valueOf("1.50"));
+	assertExact("0.5", ANumber.valueOf(".5"));
+	assertExact("0.5", ANumber.valueOf("+.5"));
+	assertExact("0.0025", ANumber.valueOf("2.5e-3"));
+	assertExact("2.5E+3", ANumber.valueOf("2.5E3"));
+	assertExact("9223372036854775807", ANumber.valueOf("9223372036854775807"));
+	assertExact("-9223372036854775808", ANumber.valueOf("-9223372036854775808"));
+	assertExact("123456789012345678901234567890.123", ANumber.valueOf("123456789012345678901234567890.123"));
+	assertExact("1E-2147483647", ANumber.valueOf("1e-2147483647"));
+	assertTrue(ANumber.valueOf("42") instanceof AInteger);
+    }
+
+    @Test
+    public void fractionsAndComplexNumbers() {
+	assertEquals(ANumber.valueOf(3, 4), ANumber.valueOf("3/4"));
+	assertEquals(ANumber.valueOf(-3, 4), ANumber.valueOf("-1.5/2"));
+	assertEquals(new AComplex(ANumber.valueOf(1), ANumber.valueOf(2)), ANumber.valueOf("1+2i"));
+	assertEquals(new AComplex(ANumber.valueOf(3, 4), ANumber.valueOf(-1, 2)), ANumber.valueOf("3/4-1/2i"));
+	assertEquals(new AComplex(ADecimal.ZERO, ANumber.valueOf(2)), ANumber.valueOf("2i"));
+	assertEquals(new AComplex(ADecimal.ZERO, ADecimal.NEGATIVE_ONE), ANumber.valueOf("-i"));
+	assertEquals(new AComplex(ANumber.valueOf(1), ADecimal.ONE), ANumber.valueOf("1+i"));
+	assertEquals(new AComplex(new ADecimal("0.0025"), new ADecimal("-2500")), ANumber.valueOf("2.5e-3-2.5e3i"));
+    }
+
+    @Test
+    public void invalidLiterals() {
+	for (String literal : new String[] { "", " ", "abc", "1.2.3", "1e", "1/", "1+", "1+2", "3/4x", "--1", "1 2",
+		"i2", "1/0" }) {
+	    assertThrows(RuntimeException.class, () -> ANumber.valueOf(literal), literal);
+	}
+	ANumberScanner scanner = new ANumberScanner("1 2x 3");
+	assertEquals(ANumber.valueOf(1), scanner.next());
+	assertEquals("2x", assertThrows(NumberFormatException.class, scanner::next).getMessage());
+    }
+
+    @Test
+    public void separators() {
+	ANumberScanner scanner = new ANumberScanner(" 1,2;\t3/4\n\n-i ,");
+	List<ANumber> numbers = new ArrayList<>();
+	while (scanner.hasNext()) {
+	    numbers.add(scanner.next());
+	}
+	assertEquals(4, numbers.size());
+	assertEquals(ANumber.valueOf(1), numbers.get(0));
+	assertEquals(ANumber.valueOf(2), numbers.get(1));
+	assertEquals(ANumber.valueOf(3, 4), numbers.get(2));
+	assertEquals(new AComplex(ADecimal.ZERO, ADecimal.NEGATIVE_ONE), numbers.get(3));
+	assertFalse(scanner.hasNext());
+	assertThrows(NoSuchElementException.class, scanner::next);
+    }
+
+    @Test
+    public void sources() {
+	String text = "x 1.5 -3/4 x";
+	char[] chars = text.toCharArray();
+	byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+	assertEquals(new ADecimal("1.5"), ANumberScanner.parse(text, 2, 3));
+	assertEquals(new ADecimal("1.5"), ANumberScanner.parse(chars, 2, 3));
+	assertEquals(new ADecimal("1.5"), ANumberScanner.parse(bytes, 2, 3));
+	ByteBuffer buffer = ByteBuffer.wrap(bytes);
+	buffer.position(6).limit(11);
+	ANumberScanner scanner = new ANumberScanner(buffer);
+	assertEquals(ANumber.valueOf(-3, 4), scanner.next());
+	assertFalse(scanner.hasNext());
+	assertEquals(6, buffer.position());
+	assertThrows(IndexOutOfBoundsException.class, () -> new ANumberScanner(text, 10, 5));
+    }
+
+    @Test
+    public void parsingFromManyThreads() throws Exception {
+	ExecutorService executor = Executors.newFixedThreadPool(4);
+	try {
+	    List<Future<?>> futures = new ArrayList<>();
+	    for (int t = 0; t < 4; t++) {
+		int thread = t;
+		futures.add(executor.submit(() -> {
+		    for (int i = 0; i < 10000; i++) {
+			String literal = thread + "." + i + "/" + (i + 1);
+			ANumber expected = new AFraction(new ADecimal(thread + "." + i), ANumber.valueOf(i + 1));
+			assertEquals(expected, ANumber.valueOf(literal), literal);
+		    }
+		}));
+	    }
+	    for (Future<?> future : futures) {
+		future.get();
+	    }
+	} finally {
+	    executor.shutdown();
+	}
+    }
+
+    /**
+     * Assert that actual is a decimal with the same value and scale as expected
+     */
+    private static void assertExact(String expected, ANumber actual) {
+	assertTrue(actual instanceof ADecimal, () -> actual.getClass().getName());
+	assertEquals(new BigDecimal(expected), actual.bigDecimalValue());
+    }
+
+}
@@ -0,0 +1,87 @@
+package athensclub.anumber;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import ch.obermuhlner.math.big.BigDecimalMath;
+
+/**
+ * Precision of values shared between callers with different
+ * {@link AMathContext}, of powers, and of functions of inexact values.
+ * 
+ * @author Athensclub
+ *
+ */
+public class ANumberTest {
+
+    private static final MathContext DIGITS_60 = new MathContext(60);
+
+    @Test
+    public void sharedFractionFollowsCallerPrecision() {
+	ANumber third = ANumber.valueOf(1, 3);
+	assertEquals(34, third.bigDecimalValue().precision());
+	BigDecimal value = AMathContext.compute(DIGITS_60, () -> ANumber.valueOf(1, 3).bigDecimalValue());
+	assertEquals(BigDecimal.ONE.divide(BigDecimal.valueOf(3), DIGITS_60), value);
+	assertEquals(34, ANumber.valueOf(1, 3).bigDecimalValue().precision());
+    }
+
+    @Test
+    public void exactValuesAreCached() {
+	ANumber quarter = ANumber.valueOf(1, 4);
+	assertEquals(new BigDecimal("0.25"), quarter.bigDecimalValue());
+	assertEquals(new BigDecimal("0.25"), AMathContext.compute(new MathContext(2), quarter::bigDecimalValue));
+    }
+
+    @Test
+    public void smallPowersAreExact() {
+	assertEquals(new BigDecimal(BigInteger.ONE.shiftLeft(100)), ANumber.valueOf(2).pow(ANumber.valueOf(100))
+		.bigDecimalValue());
+	assertEquals(ANumber.valueOf(1, 1L << 40), ANumber.valueOf(1, 2).pow(ANumber.valueOf(40)));
+    }
+
+    @Test
+    public void largePowersAreRounded() {
+	// the exact value of 1.0000001^65536 has about 460000 digits
+	ANumber power = ANumber.valueOf("1.0000001").pow(ANumber.valueOf(65536));
+	BigDecimal expected = new BigDecimal("1.0000001").pow(65536, MathContext.DECIMAL128);
+	assertEquals(34, power.bigDecimalValue().precision());
+	BigDecimal error = expected.subtract(power.bigDecimalValue()).abs();
+	assertTrue(error.compareTo(expected.ulp().multiply(BigDecimal.TEN)) <= 0, power.toString());
+    }
+
+    @Test
+    @Timeout(10)
+    public void powersOfExtremeScalesAreRounded() {
+	ANumber tiny = new ADecimal("1E-100000000");
+	assertEquals(new BigDecimal("1E-200000000"), tiny.pow(ANumber.valueOf(2)).bigDecimalValue());
+	ANumber power = new ADecimal("3E+100000").pow(ANumber.valueOf(3));
+	assertEquals(0, new BigDecimal("2.7E+300001").compareTo(power.bigDecimalValue()));
+	assertEquals(ANumber.valueOf(1), new ADecimal("1.000000").pow(ANumber.valueOf(60000)));
+    }
+
+    @Test
+    public void functionsOfFractionsUseCallerPrecision() {
+	MathContext mc = new MathContext(70);
+	BigDecimal third = BigDecimal.ONE.divide(BigDecimal.valueOf(3), mc);
+	assertClose(BigDecimalMath.sin(third, mc), AMathContext.compute(DIGITS_60, () -> ANumber.valueOf(1, 3).sin()));
+	assertClose(BigDecimalMath.exp(third, mc), AMathContext.compute(DIGITS_60, () -> ANumber.valueOf(1, 3).exp()));
+	BigDecimal angle = BigDecimalMath.atan(BigDecimal.valueOf(3).divide(BigDecimal.valueOf(7), mc), mc);
+	assertClose(angle, AMathContext.compute(DIGITS_60, () -> new AComplex(ANumber.valueOf(7, 11), ANumber.valueOf(3,
+		11)).angle()));
+    }
+
+    private static void assertClose(BigDecimal expected, ANumber actual) {
+	BigDecimal value = actual.bigDecimalValue();
+	assertEquals(60, value.precision(), value.toString());
+	BigDecimal error = expected.subtract(value).abs();
+	assertTrue(error.compareTo(value.ulp()) <= 0, expected + " " + value);
+    }
+
+}
@@ -0,0 +1,113 @@
+package athensclub.anumber;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Karatsuba multiplication and Horner evaluation, checked against the naive
+ * definitions.
+ * 
+ * @author Athensclub
+ *
+ */
+public class APolynomialTest {
+
+    private static final Random RANDOM = new Random(11);
+
+    @Test
+    public void karatsubaMatchesNaiveProduct() {
+	int[][] degrees = { { 40, 40 }, { 100, 37 }, { 31, 200 }, { 129, 128 }, { 255, 255 }, { 32, 96 },
+		{ 40, 1000 }, { 700, 33 } };
+	for (int[] d : degrees) {
+	    for (int type = 0; type < 3; type++) {
+		APolynomial a = random(d[0], type), b = random(d[1], type);
+		assertArrayEquals(naive(a.getCoefficients(), b.getCoefficients()),
+			a.multiply(b).getCoefficients(), d[0] + "x" + d[1] + " type " + type);
+	    }
+	}
+    }
+
+    @Test
+    public void schoolbookMatchesNaiveProduct() {
+	for (int type = 0; type < 3; type++) {
+	    APolynomial a = random(5, type), b = random(9, type);
+	    assertArrayEquals(naive(a.getCoefficients(), b.getCoefficients()), a.multiply(b).getCoefficients());
+	}
+    }
+
+    @Test
+    public void productTrimsLeadingZeros() {
+	// (x + 1)(x - 1) = x^2 - 1, and a product with zero is zero
+	APolynomial p = APolynomial.X.add(APolynomial.ONE).multiply(APolynomial.X.subtract(APolynomial.ONE));
+	assertEquals(APolynomial.valueOf(ANumber.valueOf(-1), ADecimal.ZERO, ADecimal.ONE), p);
+	assertEquals(APolynomial.ZERO, p.multiply(APolynomial.ZERO));
+	APolynomial big = random(60, 0);
+	assertEquals(APolynomial.ZERO, big.multiply(big).subtract(big.multiply(big)));
+    }
+
+    @Test
+    public void evaluateMatchesPowerSum() {
+	for (int type = 0; type < 3; type++) {
+	    APolynomial p = random(20, type);
+	    ANumber[] xs = { ANumber.valueOf(3), ANumber.valueOf(-2, 7), new AComplex(ANumber.valueOf(1),
+		    ANumber.valueOf(-2)) };
+	    for (ANumber x : xs) {
+		ANumber expected = ADecimal.ZERO;
+		for (int i = p.degree(); i >= 0; i--) {
+		    expected = expected.add(p.getCoefficient(i).multiply(x.pow(i)));
+		}
+		assertEquals(expected, p.evaluate(x));
+	    }
+	    ANumber[] values = p.evaluate(xs);
+	    for (int i = 0; i < xs.length; i++) {
+		assertEquals(p.evaluate(xs[i]), values[i]);
+	    }
+	}
+    }
+
+    @Test
+    public void derivative() {
+	APolynomial p = APolynomial.valueOf(ANumber.valueOf(5), ANumber.valueOf(3), ANumber.valueOf(1, 2),
+		ANumber.valueOf(2));
+	assertEquals(APolynomial.valueOf(ANumber.valueOf(3), ADecimal.ONE, ANumber.valueOf(6)), p.derivative());
+	assertEquals(APolynomial.ZERO, APolynomial.ONE.derivative());
+    }
+
+    private static ANumber[] naive(ANumber[] a, ANumber[] b) {
+	ANumber[] result = new ANumber[a.length + b.length - 1];
+	for (int k = 0; k < result.length; k++) {
+	    ANumber sum = ADecimal.ZERO;
+	    for (int i = Math.max(0, k - b.length + 1); i <= Math.min(a.length - 1, k); i++) {
+		sum = sum.add(a[i].multiply(b[k - i]));
+	    }
+	    result[k] = sum;
+	}
+	return result;
+    }
+
+    /**
+     * Random polynomial of the given degree with integer (0), fraction (1) or
+     * complex (2) coefficients
+     */
+    private static APolynomial random(int degree, int type) {
+	ANumber[] coefficients = new ANumber[degree + 1];
+	for (int i = 0; i <= degree; i++) {
+	    long value = RANDOM.nextInt(2001) - 1000;
+	    if (type == 1) {
+		coefficients[i] = ANumber.valueOf(value, RANDOM.nextInt(9) + 1);
+	    } else if (type == 2) {
+		coefficients[i] = new AComplex(ANumber.valueOf(value), ANumber.valueOf(RANDOM.nextInt(21) - 10));
+	    } else {
+		coefficients[i] = ANumber.valueOf(value);
+	    }
+	}
+	// keep the leading coefficient non-zero so the degree is exact
+	coefficients[degree] = coefficients[degree].add(ANumber.valueOf(2000));
+	return APolynomial.valueOf(coefficients);
+    }
+
+}